@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.context.Context;
+import org.terasology.engine.context.internal.ContextImpl;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.network.Client;
+import org.terasology.engine.network.NetworkSystem;
+import org.terasology.engine.registry.InjectionHelper;
+import org.terasology.nui.Color;
+import org.terasology.web.client.ClientSecurityInfo;
+import org.terasology.web.client.HeadlessClient;
+import org.terasology.web.io.JsonSession;
+import org.terasology.web.resources.base.RouterResource;
+import org.terasology.web.resources.base.ResourcePath;
+import org.terasology.web.resources.onlinePlayers.OnlinePlayersResource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures the fan-out of a resource change to the subscribed clients: the resource is read, and its JSON tree is
+ * requested by every client's update subscriber, like the websocket sessions do. The online players resource is used,
+ * backed by a stand-in network system with a fixed list of players.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResourceManagerBenchmark {
+
+    private static final int PLAYER_COUNT = 16;
+    private static final ResourcePath CHANGED_PATH = new ResourcePath("onlinePlayers");
+
+    @Param({"1", "10", "100"})
+    private int clientCount;
+
+    private final List<HeadlessClient> clients = new ArrayList<>();
+    private ResourceManager resourceManager;
+    private OnlinePlayersResource onlinePlayersResource;
+    // written by the update subscribers, so that the updates are not optimized away
+    private volatile Object lastUpdate;
+
+    @Setup
+    public void setup() {
+        List<Client> players = new ArrayList<>();
+        for (int i = 0; i < PLAYER_COUNT; ++i) {
+            Client player = mock(Client.class, withSettings().stubOnly());
+            when(player.getId()).thenReturn("player" + i);
+            when(player.getName()).thenReturn("Player " + i);
+            when(player.getColor()).thenReturn(new Color(i * 16, 255 - i * 16, 128, 255));
+            players.add(player);
+        }
+        NetworkSystem networkSystem = mock(NetworkSystem.class, withSettings().stubOnly());
+        when(networkSystem.getPlayers()).thenReturn(players);
+        Context context = new ContextImpl();
+        context.put(NetworkSystem.class, networkSystem);
+
+        onlinePlayersResource = new OnlinePlayersResource();
+        RouterResource root = new RouterResource.Builder((resource) -> InjectionHelper.inject(resource, context))
+                .addSubResource("onlinePlayers", onlinePlayersResource)
+                .build();
+        resourceManager = ResourceManager.getInstance();
+        resourceManager.initialize(root, new HashMap<>());
+
+        ClientSecurityInfo securityInfo = new ClientSecurityInfo(false, false, Collections.emptyMap());
+        for (int i = 0; i < clientCount; ++i) {
+            HeadlessClient client = mock(HeadlessClient.class, withSettings().stubOnly());
+            when(client.getEntity()).thenReturn(mock(EntityRef.class, withSettings().stubOnly()));
+            when(client.getSecurityInfo()).thenReturn(securityInfo);
+            resourceManager.addClient(client, (update) -> lastUpdate = JsonSession.toJsonTree(update), (path, data) -> { });
+            resourceManager.subscribe(client, ResourcePath.createEmpty());
+            clients.add(client);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        clients.forEach(resourceManager::removeClient);
+        clients.clear();
+    }
+
+    @Benchmark
+    public Object changedForAllClients() {
+        resourceManager.onChangedForAllClients(CHANGED_PATH, onlinePlayersResource);
+        return lastUpdate;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+/**
+ * Measures the resolution of a request path to a {@link ResourceMethod} through a tree of {@link RouterResource}s
+ * shaped like the one built by the resource manager, both walking the routers and with the compiled {@link RouteTrie}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RouterResourceBenchmark {
+
+    private RouterResource root;
+    private RouteTrie routes;
+
+    @Setup
+    public void setup() {
+        root = new RouterResource.Builder()
+                .addSubResource("onlinePlayers", new ValueResource())
+                .addSubResource("console", new ValueResource())
+                .addSubResource("games", new ValueResource())
+                .addSubResource("engineState", new ValueResource())
+                .addSubResource("modules", new RouterResource.Builder()
+                        .addSubResource("available", new ValueResource())
+                        .addSubResource("installer", new ValueResource())
+                        .build())
+                .addSubResource("worldGenerators", new ValueResource())
+                .addSubResource("worldMap", new ValueResource())
+                .addSubResource("config", new RouterResource.Builder()
+                        .addSubResource("serverPort", new ValueResource())
+                        .addSubResource("MOTD", new ValueResource())
+                        .build())
+                .addSubResource("serverAdmins", new ValueResource())
+                .addSubResource("blacklist", new ValueResource())
+                .addSubResource("whitelist", new ValueResource())
+                .addSubResource("serverAdminPermissions", new ValueResource())
+                .addSubResource("system", new ValueResource())
+                .build();
+        routes = RouteTrie.compile(root);
+    }
+
+    @Benchmark
+    public ResourceMethod topLevelPath() throws ResourceAccessException {
+        return root.getMethod(ResourceMethodName.GET, new ResourcePath("onlinePlayers"));
+    }
+
+    @Benchmark
+    public ResourceMethod nestedPath() throws ResourceAccessException {
+        return root.getMethod(ResourceMethodName.GET, new ResourcePath("config", "MOTD"));
+    }
+
+    @Benchmark
+    public ResourceMethod compiledTopLevelPath() throws ResourceAccessException {
+        return routes.getMethod(ResourceMethodName.GET, new ResourcePath("onlinePlayers"));
+    }
+
+    @Benchmark
+    public ResourceMethod compiledNestedPath() throws ResourceAccessException {
+        return routes.getMethod(ResourceMethodName.GET, new ResourcePath("config", "MOTD"));
+    }
+
+    @Benchmark
+    public ResourceMethod unknownPath() throws ResourceAccessException {
+        return root.getMethod(ResourceMethodName.GET, new ResourcePath("modules", "unknown"));
+    }
+
+    private static final class ValueResource extends AbstractSimpleResource {
+
+        @Override
+        protected ResourceMethod getGetMethod(ResourcePath path) throws ResourceAccessException {
+            return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> "value");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3i;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.block.BlockUri;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Measures the steps of a world map request: rendering the tiles from the blocks of the world,
+ * composing the tiles into the requested area and encoding the result as a png image.
+ * The world is a stand-in which returns stone up to y = 40 and air above it, so every column is scanned for its surface.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class WorldMapBenchmark {
+
+    private static final int SURFACE_Y = 40;
+
+    @Param({"64", "256", "1024"})
+    private int mapBlockSize;
+
+    private MapTileRenderer renderer;
+    private MapViewport viewport;
+    private List<MapTile> tiles;
+    private int[] colors;
+    private MapPngEncoder encoder;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException, ResourceAccessException {
+        Block stone = mockBlock("engine:stone", (short) 1, false);
+        Block air = mockBlock("engine:air", (short) 0, true);
+        WorldProvider worldProvider = mock(WorldProvider.class, withSettings().stubOnly());
+        when(worldProvider.getBlock(anyInt(), anyInt(), anyInt())).thenAnswer((invocation) ->
+                invocation.<Integer>getArgument(1) <= SURFACE_Y ? stone : air);
+
+        // the block textures aren't available without the engine, so the colors are derived from the ids
+        BlockColorPalette palette = new BlockColorPalette() {
+            @Override
+            public int getBaseColor(Block block) {
+                return block.getId() * 0x3F6A1B & 0xFFFFFF;
+            }
+        };
+        renderer = new MapTileRenderer(worldProvider, palette, new SurfaceHeightmap(worldProvider));
+
+        WorldMapInput input = new WorldMapInput();
+        setField(input, "center", new Vector3i(0, SURFACE_Y, 0));
+        setField(input, "mapBlockWidth", mapBlockSize);
+        setField(input, "mapBlockLength", mapBlockSize);
+        setField(input, "surface", true);
+        setField(input, "pixelsPerBlock", 1);
+        viewport = MapViewport.fromInput(input);
+        tiles = renderTiles();
+        colors = viewport.compose(tiles);
+        encoder = new MapPngEncoder(6);
+    }
+
+    @Benchmark
+    public List<MapTile> renderTiles() {
+        List<MapTile> result = new ArrayList<>();
+        for (MapTileKey key : viewport.getTileKeys()) {
+            result.add(renderer.render(key, 0));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int[] compose() {
+        return viewport.compose(tiles);
+    }
+
+    @Benchmark
+    public byte[] encodePng() throws IOException {
+        return encoder.encode(colors, viewport.getPixelWidth(), viewport.getPixelLength(), viewport.getPixelsPerBlock());
+    }
+
+    private static Block mockBlock(String uri, short id, boolean penetrable) {
+        Block block = mock(Block.class, withSettings().stubOnly());
+        when(block.getURI()).thenReturn(new BlockUri(uri));
+        when(block.getId()).thenReturn(id);
+        when(block.isPenetrable()).thenReturn(penetrable);
+        return block;
+    }
+
+    // the input is normally deserialized by Gson, so it has no setters
+    private static void setField(WorldMapInput input, String name, Object value) throws ReflectiveOperationException {
+        Field field = WorldMapInput.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(input, value);
+    }
+}
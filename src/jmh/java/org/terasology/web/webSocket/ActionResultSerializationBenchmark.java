@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.terasology.nui.Color;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.onlinePlayers.OnlinePlayerMetadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Measures the serialization of the messages sent over the websocket, with a {@link Gson} configured like the one
+ * of {@link WebSocketHandler}: an empty result, and a result carrying a list of online players.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ActionResultSerializationBenchmark {
+
+    private static final Gson GSON = WebSocketHandler.createGson();
+    private static final int PLAYER_COUNT = 100;
+    private static final Collection<String> RESOURCE_PATH = Arrays.asList("onlinePlayers");
+
+    private List<OnlinePlayerMetadata> players;
+
+    @Setup
+    public void setup() {
+        players = new ArrayList<>();
+        for (int i = 0; i < PLAYER_COUNT; ++i) {
+            players.add(new OnlinePlayerMetadata("player" + i, "Player " + i, new Color(i, 255 - i, 128, 255)));
+        }
+    }
+
+    @Benchmark
+    public String emptyResult() {
+        ActionResult result = ActionResult.OK;
+        return GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT,
+                RESOURCE_PATH, result.toJsonTree(GSON)));
+    }
+
+    @Benchmark
+    public String resultWithData() {
+        JsonElement data = GSON.toJsonTree(players);
+        ActionResult result = new ActionResult(data);
+        return GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT,
+                RESOURCE_PATH, result.toJsonTree(GSON)));
+    }
+}
@@ -52,6 +52,7 @@ import org.terasology.engine.core.paths.PathManager;
 import org.terasology.engine.core.subsystem.common.ConfigurationSubsystem;
 import org.terasology.web.io.ActionResultMessageBodyWriter;
 import org.terasology.web.io.gsonUtils.GsonMessageBodyHandler;
+import org.terasology.web.resources.worldMap.WorldMapSettings;
 import org.terasology.web.serverAdminManagement.ServerAdminsManager;
 import org.terasology.web.servlet.AboutServlet;
 import org.terasology.web.servlet.HttpAPIServlet;
@@ -73,6 +74,7 @@ public final class ServerMain {
     private static final String ARG_WAIT_MANUAL_START = "-dontStartDefault";
     private static final String ARG_NO_SAVE_GAMES = "-noSaveGames";
     private static final String ARG_OVERRIDE_DEFAULT_CONFIG = "-overrideDefaultConfig=";
+    private static final String ARG_MAP_RENDER_THREADS = "-mapRenderThreads=";
 
     private static boolean autoStart = true;
 
@@ -145,6 +147,8 @@ public final class ServerMain {
                 System.setProperty(SystemConfig.SAVED_GAMES_ENABLED_PROPERTY, "false");
             } else if (arg.startsWith(ARG_OVERRIDE_DEFAULT_CONFIG)) {
                 System.setProperty(Config.PROPERTY_OVERRIDE_DEFAULT_CONFIG, arg.substring(ARG_OVERRIDE_DEFAULT_CONFIG.length()));
+            } else if (arg.startsWith(ARG_MAP_RENDER_THREADS)) {
+                System.setProperty(WorldMapSettings.RENDER_THREADS_PROPERTY, arg.substring(ARG_MAP_RENDER_THREADS.length()));
             } else {
                 System.err.println("Unrecognized command line argument \"" + arg + "\"");
                 printUsage();
@@ -167,6 +171,7 @@ public final class ServerMain {
         System.out.println(ARG_WAIT_MANUAL_START + ": do not generate and start a game with the default settings, but wait for manual setup via the web interface");
         System.out.println(ARG_NO_SAVE_GAMES + ": disable saving game data");
         System.out.println(ARG_OVERRIDE_DEFAULT_CONFIG + ": override the default config file");
+        System.out.println(ARG_MAP_RENDER_THREADS + ": use the specified number of threads to render the world map (default: number of processors - 1)");
         System.out.println();
         System.out.println("The web server port (default 8080) can be overridden by setting the environment variable HTTP_PORT.");
     }
@@ -247,7 +252,10 @@ public final class ServerMain {
 
         ServletContextHandler jerseyContext = new ServletContextHandler(ServletContextHandler.GZIP);
         jerseyContext.setResourceBase("templates");
-        jerseyContext.addServlet(new ServletHolder(new ServletContainer(rc)), "/*");
+        ServletHolder jerseyServlet = new ServletHolder(new ServletContainer(rc));
+        // required by the resource methods which resume their responses when the background work completes
+        jerseyServlet.setAsyncSupported(true);
+        jerseyContext.addServlet(jerseyServlet, "/*");
         jerseyContext.addServlet(new ServletHolder(WsConnectionServlet.class), "/ws/*");
 
         HandlerList handlers = new HandlerList();
@@ -22,17 +22,35 @@ import java.util.Map;
 /**
  * This class contains information on whether a client is authenticated or has admin permission.
  * All clients connecting to the server facade use this.
+ * Clients with equal security info are allowed to see the same data, so the updates sent to them are shared.
+ * The permissions are stored as a bitmask, which is taken when the instance is created, so that the instances can be used
+ * as keys identifying a security class of clients (anonymous, authenticated, or admin with a given set of permissions).
  */
 public class ClientSecurityInfo {
 
-    private boolean isAuthenticated;
-    private boolean isAdmin;
-    private Map<PermissionType, Boolean> clientPermissions;
+    private final boolean isAuthenticated;
+    private final boolean isAdmin;
+    private final long permissionMask;
 
+    /**
+     * @param clientPermissions the permissions of the client, or null if it has none (e.g. because it isn't an admin).
+     */
     public ClientSecurityInfo(boolean isAuthenticated, boolean isAdmin, Map<PermissionType, Boolean> clientPermissions) {
         this.isAuthenticated = isAuthenticated;
         this.isAdmin = isAdmin;
-        this.clientPermissions = clientPermissions;
+        this.permissionMask = toMask(clientPermissions);
+    }
+
+    private static long toMask(Map<PermissionType, Boolean> permissions) {
+        long mask = 0;
+        if (permissions != null) {
+            for (Map.Entry<PermissionType, Boolean> entry : permissions.entrySet()) {
+                if (Boolean.TRUE.equals(entry.getValue())) {
+                    mask |= 1L << entry.getKey().ordinal();
+                }
+            }
+        }
+        return mask;
     }
 
     public boolean isAuthenticated() {
@@ -44,6 +62,20 @@ public class ClientSecurityInfo {
     }
 
     public boolean ownsPermission(PermissionType permissionType) {
-        return clientPermissions.get(permissionType);
+        return (permissionMask & (1L << permissionType.ordinal())) != 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ClientSecurityInfo) {
+            ClientSecurityInfo other = (ClientSecurityInfo) obj;
+            return isAuthenticated == other.isAuthenticated && isAdmin == other.isAdmin && permissionMask == other.permissionMask;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return (Long.hashCode(permissionMask) * 31 + Boolean.hashCode(isAdmin)) * 31 + Boolean.hashCode(isAuthenticated);
     }
 }
@@ -33,7 +33,8 @@ public class ActionResult {
         ACTION_NOT_ALLOWED,
         NOT_FOUND,
         GENERIC_ERROR,
-        CONFLICT
+        CONFLICT,
+        SERVICE_UNAVAILABLE
     }
 
     private Status status;
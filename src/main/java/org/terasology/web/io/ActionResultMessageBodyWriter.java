@@ -48,8 +48,16 @@ public class ActionResultMessageBodyWriter implements MessageBodyWriter<ActionRe
             .put(ActionResult.Status.ACTION_NOT_ALLOWED, Response.Status.METHOD_NOT_ALLOWED)
             .put(ActionResult.Status.GENERIC_ERROR, Response.Status.INTERNAL_SERVER_ERROR)
             .put(ActionResult.Status.CONFLICT, Response.Status.CONFLICT)
+            .put(ActionResult.Status.SERVICE_UNAVAILABLE, Response.Status.SERVICE_UNAVAILABLE)
             .build();
 
+    /**
+     * @return the HTTP status which corresponds to the given error status.
+     */
+    public static Response.Status getResponseStatus(ActionResult.Status status) {
+        return ERRORMAP.getOrDefault(status, Response.Status.OK);
+    }
+
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return true;
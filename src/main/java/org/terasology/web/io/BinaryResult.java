@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io;
+
+/**
+ * Result of a resource method which can be sent to the client as raw bytes (e.g. an image) instead of JSON.
+ */
+public interface BinaryResult {
+
+    /**
+     * @return the MIME type of the data.
+     */
+    String getContentType();
+
+    /**
+     * @return the data to send, or null if the client already has an up to date copy of it (see {@link #getEntityTag()}).
+     */
+    byte[] getData();
+
+    /**
+     * @return an opaque value which changes every time the data changes, or null if the data has no entity tag.
+     */
+    String getEntityTag();
+}
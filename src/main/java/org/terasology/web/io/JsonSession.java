@@ -17,6 +17,7 @@ package org.terasology.web.io;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonSyntaxException;
 import org.terasology.engine.config.Config;
@@ -31,6 +32,7 @@ import org.terasology.naming.Version;
 import org.terasology.naming.gson.NameTypeAdapter;
 import org.terasology.naming.gson.VersionTypeAdapter;
 import org.terasology.web.EngineRunner;
+import org.terasology.web.resources.base.AsyncResourceMethod;
 import org.terasology.web.resources.base.InputParser;
 import org.terasology.web.resources.base.ResourceMethodName;
 import org.terasology.web.resources.base.ResourcePath;
@@ -45,14 +47,23 @@ import org.terasology.web.io.gsonUtils.ByteArrayBase64Serializer;
 import org.terasology.web.io.gsonUtils.ValidatorTypeAdapterFactory;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.ResourceManager;
+import org.terasology.web.resources.ResourceUpdate;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Handles the JSON data that goes across the REST API and manages client connections.
@@ -78,15 +89,31 @@ public class JsonSession {
             }
         }
     };
+    // key of the JSON tree of the data in the ResourceUpdates
+    private static final Object JSON_TREE_REPRESENTATION = new Object();
+    /**
+     * The maximum number of operations in a batch, so that a single request can't keep the server busy for too long.
+     */
+    public static final int MAX_BATCH_SIZE = 64;
+    // performs the read operations of the batches in parallel
+    private static final ExecutorService BATCH_READ_EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), (runnable) -> {
+        Thread thread = new Thread(runnable, "batch-reads");
+        thread.setDaemon(true);
+        return thread;
+    });
     private static Set<JsonSession> allSessions = new HashSet<>();
 
     private final AuthenticationHandshakeHandler authHandler;
     private final ResourceManager resourceManager;
 
     private HeadlessClientFactory headlessClientFactory;
-    private HeadlessClient client;
-    private BiConsumer<Collection<String>, JsonElement> resourceChangeSubscriber = (path, data) -> { };
+    // also read by the batch operations, which are performed on other threads
+    private volatile HeadlessClient client;
+    private Consumer<ResourceUpdate> resourceChangeSubscriber = (update) -> { };
     private BiConsumer<Collection<String>, JsonElement> resourceEventListener = (path, data) -> { };
+    private final Set<ResourcePath> subscriptions = ConcurrentHashMap.newKeySet();
+    // whether the subscription to all the resources was made by subscribeToAllByDefault, and is thus replaced by the first subscription
+    private volatile boolean defaultSubscription;
 
     JsonSession(AuthenticationHandshakeHandler authHandler, HeadlessClientFactory headlessClientFactory, ResourceManager resourceManager) {
         this.authHandler = authHandler;
@@ -122,7 +149,11 @@ public class JsonSession {
         });
     }
 
-    public void setResourceChangeSubscriber(BiConsumer<Collection<String>, JsonElement> resourceChangeSubscriber) {
+    /**
+     * @param resourceChangeSubscriber receives the new state of the resources; the updates are shared with the other sessions,
+     *                                 so their JSON tree, obtained with {@link #toJsonTree(ResourceUpdate)}, must not be modified.
+     */
+    public void setResourceChangeSubscriber(Consumer<ResourceUpdate> resourceChangeSubscriber) {
         this.resourceChangeSubscriber = resourceChangeSubscriber;
     }
 
@@ -130,8 +161,15 @@ public class JsonSession {
         this.resourceEventListener = resourceEventListener;
     }
 
-    private void notifyResourceChanged(ResourcePath resourcePath, Object newData) {
-        resourceChangeSubscriber.accept(Collections.unmodifiableCollection(resourcePath.getItemList()), GSON.toJsonTree(newData));
+    /**
+     * @return the JSON tree of the data of the update, which is computed only once for all the sessions receiving the update.
+     */
+    public static JsonElement toJsonTree(ResourceUpdate update) {
+        return update.getRepresentation(JSON_TREE_REPRESENTATION, (u) -> GSON.toJsonTree(u.getData()));
+    }
+
+    private void notifyResourceChanged(ResourceUpdate update) {
+        resourceChangeSubscriber.accept(update);
     }
 
     private void notifyResourceEvent(ResourcePath resourcePath, Object eventData) {
@@ -140,6 +178,7 @@ public class JsonSession {
 
     private void setResourceObservers() {
        resourceManager.addClient(client, this::notifyResourceChanged, this::notifyResourceEvent);
+       subscriptions.forEach((prefix) -> resourceManager.subscribe(client, prefix));
     }
 
     private void removeResourceObservers() {
@@ -185,6 +224,61 @@ public class JsonSession {
         allSessions.remove(this);
     }
 
+    /**
+     * Subscribe to all the resources until the client makes its first subscription with {@link #subscribe(List)}, so that the
+     * clients which don't send subscriptions keep receiving the changes of all the resources.
+     */
+    public void subscribeToAllByDefault() {
+        ResourcePath root = ResourcePath.createEmpty();
+        subscriptions.add(root);
+        resourceManager.subscribe(client, root);
+        defaultSubscription = true;
+    }
+
+    /**
+     * Start receiving the changes of the resource at the specified path and of all the resources below it; the first subscription
+     * replaces the one made by {@link #subscribeToAllByDefault()}, if any.
+     * The subscriptions are kept when the client authenticates or the engine state changes.
+     * @param resourcePath the path of the resources; an empty path subscribes to all the resources.
+     */
+    public ActionResult subscribe(List<String> resourcePath) {
+        ResourcePath prefix = new ResourcePath(resourcePath);
+        subscriptions.add(prefix);
+        resourceManager.subscribe(client, prefix);
+        if (defaultSubscription) {
+            defaultSubscription = false;
+            ResourcePath root = ResourcePath.createEmpty();
+            if (!prefix.equals(root) && subscriptions.remove(root)) {
+                resourceManager.unsubscribe(client, root);
+            }
+        }
+        return ActionResult.OK;
+    }
+
+    /**
+     * Cancel a subscription made with {@link #subscribe(List)} or {@link #subscribeToAllByDefault()}.
+     */
+    public ActionResult unsubscribe(List<String> resourcePath) {
+        ResourcePath prefix = new ResourcePath(resourcePath);
+        if (prefix.equals(ResourcePath.createEmpty())) {
+            defaultSubscription = false;
+        }
+        if (!subscriptions.remove(prefix)) {
+            return new ActionResult(ActionResult.Status.NOT_FOUND, "Not subscribed to this path.");
+        }
+        resourceManager.unsubscribe(client, prefix);
+        return ActionResult.OK;
+    }
+
+    /**
+     * @return a stage which completes with the last state of the resource sent to the clients with the same permissions as this
+     * session's client, which the following patches are based on (see {@link ResourceManager#getLatestUpdate(ResourcePath, HeadlessClient)}),
+     * or exceptionally with a {@link ResourceAccessException}.
+     */
+    public CompletionStage<ResourceUpdate> getLatestUpdate(List<String> resourcePath) {
+        return resourceManager.getLatestUpdate(new ResourcePath(resourcePath), client);
+    }
+
     public ActionResult accessResource(List<String> resourcePath, ResourceMethodName methodName, JsonElement inputData) {
         try {
             Object resultData = resourceManager.performAction(new ResourcePath(resourcePath), methodName, inputData, JSON_INPUT_PARSER, client);
@@ -194,4 +288,103 @@ public class JsonSession {
         }
     }
 
+    /**
+     * Perform a request to a resource without waiting for it to complete, if the resource method is asynchronous.
+     * @return a stage which completes with the result to send to the client; failures are converted to error results.
+     */
+    public CompletionStage<ActionResult> accessResourceAsync(List<String> resourcePath, ResourceMethodName methodName, JsonElement inputData) {
+        return resourceManager.performActionAsync(new ResourcePath(resourcePath), methodName, inputData, JSON_INPUT_PARSER, client)
+                .handle((resultData, failure) -> failure != null
+                        ? AsyncResourceMethod.toResourceAccessException(failure).getResultToSend()
+                        : new ActionResult(GSON.toJsonTree(resultData)));
+    }
+
+    /**
+     * Perform a batch of operations, sent as a JSON array of {@link ResourceOperation}s, so that the client can get several
+     * resources with a single round trip. The reads (GET operations) are performed in parallel, and only wait for the
+     * operations which modify the resources sent before them in the batch; the other operations are performed in order,
+     * each one after all the previous ones have completed.
+     * @return a stage which completes with a result whose data is the array of the results of the operations, in the same order
+     * as the operations; the result is an error only if the batch itself is not valid.
+     */
+    public CompletionStage<ActionResult> accessResourcesAsync(JsonElement operationsData) {
+        ResourceOperation[] operations;
+        try {
+            operations = GSON.fromJson(operationsData, ResourceOperation[].class);
+        } catch (JsonSyntaxException ex) {
+            return CompletableFuture.completedFuture(new ActionResult(ex));
+        }
+        if (operations == null || operations.length > MAX_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(new ActionResult(ActionResult.Status.BAD_REQUEST,
+                    "A batch must be an array of at most " + MAX_BATCH_SIZE + " operations."));
+        }
+        // checked here too rather than relying on the validation of the deserialized operations, so that a malformed
+        // operation can't fail the dispatching of the batch
+        for (ResourceOperation operation : operations) {
+            if (operation == null || operation.getMethod() == null || operation.getResourcePath() == null
+                    || operation.getResourcePath().contains(null)) {
+                return CompletableFuture.completedFuture(new ActionResult(ActionResult.Status.BAD_REQUEST,
+                        "Every operation of a batch must have a method and a resource path."));
+            }
+        }
+        List<CompletableFuture<ActionResult>> results = new ArrayList<>(operations.length);
+        CompletableFuture<?> previousWrite = CompletableFuture.completedFuture(null);
+        CompletableFuture<?> previousOperations = CompletableFuture.completedFuture(null);
+        for (ResourceOperation operation : operations) {
+            CompletableFuture<ActionResult> result;
+            if (operation.getMethod() == ResourceMethodName.GET) {
+                result = previousWrite.thenComposeAsync((ignored) -> accessResourceAsync(operation), BATCH_READ_EXECUTOR)
+                        .exceptionally(JsonSession::toErrorResult);
+            } else {
+                // since every write waits for all the previous operations, waiting for the last write also means waiting for all the writes
+                result = previousOperations.thenCompose((ignored) -> accessResourceAsync(operation)).exceptionally(JsonSession::toErrorResult);
+                previousWrite = result;
+            }
+            results.add(result);
+            previousOperations = CompletableFuture.allOf(previousOperations, result);
+        }
+        return previousOperations.thenApply((ignored) -> {
+            JsonArray resultsData = new JsonArray();
+            results.forEach((result) -> resultsData.add(result.join().toJsonTree(GSON)));
+            return new ActionResult(resultsData);
+        });
+    }
+
+    private CompletionStage<ActionResult> accessResourceAsync(ResourceOperation operation) {
+        return accessResourceAsync(new ArrayList<>(operation.getResourcePath()), operation.getMethod(), operation.getData());
+    }
+
+    // used so that an unexpected failure of an operation doesn't fail the whole batch
+    private static ActionResult toErrorResult(Throwable failure) {
+        return AsyncResourceMethod.toResourceAccessException(failure).getResultToSend();
+    }
+
+    /**
+     * Perform a request to a resource which returns binary data, without serializing the result to JSON.
+     * @return the result of the resource method.
+     * @throws ResourceAccessException if the request fails, or the resource doesn't return a {@link BinaryResult}.
+     */
+    public BinaryResult accessBinaryResource(List<String> resourcePath, ResourceMethodName methodName, JsonElement inputData) throws ResourceAccessException {
+        Object resultData = resourceManager.performAction(new ResourcePath(resourcePath), methodName, inputData, JSON_INPUT_PARSER, client);
+        if (!(resultData instanceof BinaryResult)) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.BAD_REQUEST, "This resource doesn't provide binary data."));
+        }
+        return (BinaryResult) resultData;
+    }
+
+    /**
+     * Asynchronous version of {@link #accessBinaryResource(List, ResourceMethodName, JsonElement)}.
+     * @return a stage which completes with the result of the resource method, or exceptionally with a {@link ResourceAccessException}.
+     */
+    public CompletionStage<BinaryResult> accessBinaryResourceAsync(List<String> resourcePath, ResourceMethodName methodName, JsonElement inputData) {
+        return resourceManager.performActionAsync(new ResourcePath(resourcePath), methodName, inputData, JSON_INPUT_PARSER, client)
+                .thenApply((resultData) -> {
+                    if (!(resultData instanceof BinaryResult)) {
+                        throw new CompletionException(new ResourceAccessException(
+                                new ActionResult(ActionResult.Status.BAD_REQUEST, "This resource doesn't provide binary data.")));
+                    }
+                    return (BinaryResult) resultData;
+                });
+    }
+
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.gsonUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Map;
+
+/**
+ * Computes the differences between two JSON trees as a JSON patch (RFC 6902), so that the clients which already have
+ * the state of a resource can be sent only what changed.
+ */
+public final class JsonDiff {
+
+    private JsonDiff() {
+    }
+
+    /**
+     * @return an array of add, remove and replace operations which, applied in order, transform source into target;
+     * the values in the operations are shared with target, so neither must be modified afterwards.
+     */
+    public static JsonArray diff(JsonElement source, JsonElement target) {
+        JsonArray patch = new JsonArray();
+        diff("", source, target, patch);
+        return patch;
+    }
+
+    private static void diff(String pointer, JsonElement source, JsonElement target, JsonArray patch) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isJsonObject() && target.isJsonObject()) {
+            diffObjects(pointer, source.getAsJsonObject(), target.getAsJsonObject(), patch);
+        } else if (source.isJsonArray() && target.isJsonArray()) {
+            diffArrays(pointer, source.getAsJsonArray(), target.getAsJsonArray(), patch);
+        } else {
+            patch.add(operation("replace", pointer, target));
+        }
+    }
+
+    private static void diffObjects(String pointer, JsonObject source, JsonObject target, JsonArray patch) {
+        for (Map.Entry<String, JsonElement> entry : source.entrySet()) {
+            String memberPointer = pointer + "/" + escape(entry.getKey());
+            if (target.has(entry.getKey())) {
+                diff(memberPointer, entry.getValue(), target.get(entry.getKey()), patch);
+            } else {
+                patch.add(operation("remove", memberPointer, null));
+            }
+        }
+        for (Map.Entry<String, JsonElement> entry : target.entrySet()) {
+            if (!source.has(entry.getKey())) {
+                patch.add(operation("add", pointer + "/" + escape(entry.getKey()), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * The elements which are equal at the beginning and at the end of both arrays are skipped, so that inserting or removing
+     * elements (e.g. a player joining) results in a single operation; the remaining elements are compared by position.
+     */
+    private static void diffArrays(String pointer, JsonArray source, JsonArray target, JsonArray patch) {
+        int sourceSize = source.size();
+        int targetSize = target.size();
+        int prefix = 0;
+        while (prefix < sourceSize && prefix < targetSize && source.get(prefix).equals(target.get(prefix))) {
+            ++prefix;
+        }
+        int suffix = 0;
+        while (suffix < sourceSize - prefix && suffix < targetSize - prefix
+                && source.get(sourceSize - 1 - suffix).equals(target.get(targetSize - 1 - suffix))) {
+            ++suffix;
+        }
+        int sourceChanged = sourceSize - prefix - suffix;
+        int targetChanged = targetSize - prefix - suffix;
+        int common = Math.min(sourceChanged, targetChanged);
+        for (int i = 0; i < common; ++i) {
+            diff(pointer + "/" + (prefix + i), source.get(prefix + i), target.get(prefix + i), patch);
+        }
+        // each removal shifts the following elements back, so the same index is removed repeatedly
+        for (int i = common; i < sourceChanged; ++i) {
+            patch.add(operation("remove", pointer + "/" + (prefix + common), null));
+        }
+        for (int i = common; i < targetChanged; ++i) {
+            patch.add(operation("add", pointer + "/" + (prefix + i), target.get(prefix + i)));
+        }
+    }
+
+    private static JsonObject operation(String op, String path, JsonElement value) {
+        JsonObject operation = new JsonObject();
+        operation.addProperty("op", op);
+        operation.addProperty("path", path);
+        if (value != null) {
+            operation.add("value", value);
+        }
+        return operation;
+    }
+
+    private static String escape(String key) {
+        return key.replace("~", "~0").replace("/", "~1");
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.network.Client;
+import org.terasology.web.client.ClientSecurityInfo;
+import org.terasology.web.resources.base.AsyncResourceMethod;
+import org.terasology.web.resources.base.RequiresEngineThread;
+import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.base.ResourceMethod;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Performs the methods of the resources annotated with {@link RequiresEngineThread} on the engine's thread, so that they
+ * don't access the engine objects concurrently with the game's tick. The web server's threads queue the methods, and the
+ * queue is drained once per tick by {@link #update(float)} within a time budget; the methods which don't fit in the budget
+ * are left for the next tick. While the dispatcher isn't registered in a running game (e.g. while the engine is idle or
+ * loading a game) nothing drains the queue, so the methods are performed directly by the calling thread.
+ */
+public class EngineThreadDispatcher implements DefaultComponentSystem, UpdateSubscriberSystem {
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final long budgetNanos;
+    // the thread which drains the queue, or null when the queue isn't drained
+    private volatile Thread engineThread;
+
+    /**
+     * @param budgetNanos the time which can be spent on the queued tasks in each tick.
+     */
+    public EngineThreadDispatcher(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public void initialise() {
+        engineThread = Thread.currentThread();
+    }
+
+    @Override
+    public void update(float delta) {
+        drain();
+    }
+
+    @Override
+    public void shutdown() {
+        engineThread = null;
+        // no tick will drain the tasks which are still queued, so they're performed now, while the game's objects still exist
+        runQueuedTasks(Long.MAX_VALUE);
+    }
+
+    /**
+     * Wrap a method so that it's performed on the engine's thread; the returned method is asynchronous, so that
+     * the caller doesn't have to wait for the next tick.
+     */
+    public <INTYPE, OUTTYPE> AsyncResourceMethod<INTYPE, OUTTYPE> decorate(ResourceMethod<INTYPE, OUTTYPE> method) {
+        return new AsyncResourceMethod<INTYPE, OUTTYPE>() {
+            @Override
+            public Class<INTYPE> getInType() {
+                return method.getInType();
+            }
+
+            @Override
+            public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                return method.clientIsAllowed(securityInfo);
+            }
+
+            @Override
+            public CompletionStage<OUTTYPE> performAsync(INTYPE data, Client client) {
+                if (method instanceof AsyncResourceMethod) {
+                    // only the start of the work needs the engine's thread
+                    AsyncResourceMethod<INTYPE, OUTTYPE> asyncMethod = (AsyncResourceMethod<INTYPE, OUTTYPE>) method;
+                    CompletionStage<CompletionStage<OUTTYPE>> started = submit(() -> asyncMethod.performAsync(data, client));
+                    return started.thenCompose((stage) -> stage);
+                }
+                return submit(() -> method.perform(data, client));
+            }
+        };
+    }
+
+    /**
+     * Queue a task to run on the engine's thread; the task is run immediately if the caller is the engine's thread,
+     * or if the queue isn't drained.
+     * @return a stage which completes with the result of the task, or exceptionally with the exception it throws
+     * (e.g. a {@link ResourceAccessException}).
+     */
+    public <T> CompletionStage<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable runnable = () -> {
+            try {
+                result.complete(task.call());
+            } catch (Exception ex) {
+                result.completeExceptionally(ex);
+            }
+        };
+        Thread drainingThread = engineThread;
+        if (drainingThread == null || drainingThread == Thread.currentThread()) {
+            runnable.run();
+            return result;
+        }
+        tasks.add(runnable);
+        if (engineThread == null) {
+            // the dispatcher was shut down while the task was being queued, so the task may have been missed
+            runQueuedTasks(Long.MAX_VALUE);
+        }
+        return result;
+    }
+
+    /**
+     * Run the queued tasks until the budget is exhausted; at least one task is run, so that the queue always advances.
+     * @return the number of tasks which have been run.
+     */
+    int drain() {
+        return runQueuedTasks(budgetNanos);
+    }
+
+    int getQueuedTaskCount() {
+        return tasks.size();
+    }
+
+    private int runQueuedTasks(long budget) {
+        long startTime = System.nanoTime();
+        int count = 0;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+            count++;
+            if (System.nanoTime() - startTime >= budget) {
+                break;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the {@link EngineThreadDispatcher}, which can be changed with system properties.
+ */
+public final class EngineThreadSettings {
+
+    /**
+     * Property which sets the time the engine's thread can spend on the queued resource methods in each tick, in milliseconds.
+     */
+    public static final String BUDGET_PROPERTY = "facade.engineThreadBudgetMs";
+    private static final long DEFAULT_BUDGET_MS = 4;
+
+    private EngineThreadSettings() {
+    }
+
+    /**
+     * @return the time the engine's thread can spend on the queued resource methods in each tick, in nanoseconds;
+     * at least one method is performed in each tick anyway.
+     */
+    public static long getBudgetNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MS)));
+    }
+}
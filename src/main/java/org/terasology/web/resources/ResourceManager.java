@@ -21,12 +21,15 @@ import org.terasology.engine.context.Context;
 import org.terasology.engine.core.ComponentSystemManager;
 import org.terasology.engine.core.TerasologyEngine;
 import org.terasology.engine.core.modes.GameState;
+import org.terasology.engine.core.modes.StateIngame;
 import org.terasology.engine.entitySystem.entity.EntityRef;
 import org.terasology.engine.entitySystem.systems.ComponentSystem;
 import org.terasology.engine.network.internal.ServerConnectListManager;
 import org.terasology.engine.registry.InjectionHelper;
+import org.terasology.web.client.ClientSecurityInfo;
 import org.terasology.web.client.HeadlessClient;
 import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.AsyncResourceMethod;
 import org.terasology.web.resources.base.InputParser;
 import org.terasology.web.resources.base.Resource;
 import org.terasology.web.resources.base.ResourceAccessException;
@@ -34,6 +37,7 @@ import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourceMethodName;
 import org.terasology.web.resources.base.ResourceObserver;
 import org.terasology.web.resources.base.ResourcePath;
+import org.terasology.web.resources.base.RouteTrie;
 import org.terasology.web.resources.base.RouterResource;
 import org.terasology.web.resources.config.ServerMotdResource;
 import org.terasology.web.resources.config.ServerPortResource;
@@ -50,15 +54,25 @@ import org.terasology.web.resources.systemStatus.SystemResource;
 import org.terasology.web.resources.worldGenerators.AvailableWorldGeneratorsResource;
 import org.terasology.web.resources.worldMap.WorldMapResource;
 import org.terasology.web.serverAdminManagement.AdminPermissionManager;
+import org.terasology.web.serverAdminManagement.ServerAdminsManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * This class manages the whole resource system.
@@ -67,12 +81,32 @@ public final class ResourceManager implements ResourceObserver {
 
     private static final Logger logger = LoggerFactory.getLogger(ResourceManager.class);
     private static final ResourceManager INSTANCE = new ResourceManager();
+    // closes the coalescing windows and sends the updates collapsed in them
+    private static final ScheduledExecutorService UPDATE_SCHEDULER = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "resource-updates");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private RouterResource rootResource;
+    private RouteTrie routes;
     private Map<ResourcePath, Set<ResourcePath>> additionalResourcesToUpdate;
-    private Map<EntityRef, BiConsumer<ResourcePath, Object>> eventListeners = new HashMap<>();
-    private Map<EntityRef, BiConsumer<ResourcePath, Object>> updateSubscribers = new HashMap<>();
-    private Map<EntityRef, HeadlessClient> clientLookup = new HashMap<>();
+    private Map<EntityRef, BiConsumer<ResourcePath, Object>> eventListeners = new ConcurrentHashMap<>();
+    private Map<EntityRef, Consumer<ResourceUpdate>> updateSubscribers = new ConcurrentHashMap<>();
+    private Map<EntityRef, HeadlessClient> clientLookup = new ConcurrentHashMap<>();
+    // the clients are grouped by security info, so that the updates are read once per group instead of once per client
+    private Map<EntityRef, ClientSecurityInfo> securityInfoLookup = new ConcurrentHashMap<>();
+    private Map<ClientSecurityInfo, Set<EntityRef>> clientsBySecurityInfo = new ConcurrentHashMap<>();
+    private SubscriptionIndex subscriptions = new SubscriptionIndex();
+    // for each resource, the last update sent to each group of clients, which the next update is versioned after
+    private Map<ResourcePath, Map<ClientSecurityInfo, ResourceUpdate>> lastUpdates = new ConcurrentHashMap<>();
+    // for each resource, the completion of the last read queued with runInOrder, which the next one waits for
+    private final Map<ResourcePath, CompletableFuture<Void>> lastReads = new ConcurrentHashMap<>();
+    private Map<ResourcePath, Long> defaultUpdateWindows = new HashMap<>();
+    // performs the methods of the resources which require the engine's thread, while a game is running
+    private final EngineThreadDispatcher engineThreadDispatcher = new EngineThreadDispatcher(EngineThreadSettings.getBudgetNanos());
+    private UpdateCoalescer updateCoalescer = new UpdateCoalescer(UPDATE_SCHEDULER, this::sendUpdateToAllClients,
+            (path) -> ResourceUpdateSettings.getUpdateWindow(path, defaultUpdateWindows.getOrDefault(path, 0L)));
 
     private ResourceManager() {
     }
@@ -91,7 +125,7 @@ public final class ResourceManager implements ResourceObserver {
 
         Consumer<Resource> resourceInitializer = (resource) -> initializeResource(context, resource);
         SystemResource systemResource = new SystemResource();
-        rootResource = new RouterResource.Builder(resourceInitializer)
+        RouterResource rootResource = new RouterResource.Builder(resourceInitializer)
                 .addSubResource("onlinePlayers", new OnlinePlayersResource())
                 .addSubResource("console", new ConsoleResource())
                 .addSubResource("games", new GamesResource())
@@ -101,7 +135,7 @@ public final class ResourceManager implements ResourceObserver {
                         .addSubResource("installer", new ModuleInstallerResource())
                         .build())
                 .addSubResource("worldGenerators", new AvailableWorldGeneratorsResource())
-                .addSubResource("worldMap", new WorldMapResource())
+                .addSubResource("worldMap", new WorldMapResource(engineThreadDispatcher))
                 .addSubResource("config", new RouterResource.Builder(resourceInitializer)
                         .addSubResource("serverPort", new ServerPortResource())
                         .addSubResource("MOTD", new ServerMotdResource())
@@ -113,16 +147,39 @@ public final class ResourceManager implements ResourceObserver {
                 .addSubResource("system", systemResource)
                 .build();
         systemResource.startSystemInfoRefreshService();
+        ComponentSystemManager componentSystemManager = context.get(ComponentSystemManager.class);
+        // only a running game ticks the update subscribers; in the other states the methods are performed by the calling threads
+        if (gameState instanceof StateIngame && componentSystemManager != null) {
+            componentSystemManager.register(engineThreadDispatcher);
+        }
         InjectionHelper.inject(AdminPermissionManager.getInstance(), context);
-        rootResource.setObserver(this);
-        additionalResourcesToUpdate = new HashMap<>();
+        ServerAdminsManager.getInstance().setOnAdminChangedCallback(this::onClientSecurityChanged);
+        AdminPermissionManager.getInstance().setOnPermissionsChangedCallback(this::onClientSecurityChanged);
+        Map<ResourcePath, Set<ResourcePath>> additionalUpdates = new HashMap<>();
         // when /modules/installer changes, also update /modules/available and /worldGenerators
-        additionalResourcesToUpdate.put(new ResourcePath("modules", "installer"), new HashSet<>(Arrays.asList(
+        additionalUpdates.put(new ResourcePath("modules", "installer"), new HashSet<>(Arrays.asList(
                 new ResourcePath("modules", "available"),
                 new ResourcePath("worldGenerators"))));
+        // these resources can change many times per second, e.g. at every download progress step or during a mass reconnect
+        defaultUpdateWindows.put(new ResourcePath("modules", "installer"), 250L);
+        defaultUpdateWindows.put(new ResourcePath("onlinePlayers"), 500L);
+        initialize(rootResource, additionalUpdates);
         rootResource.notifyChangedForAllClients();
     }
 
+    /**
+     * Set the resource tree served by the resource manager; also used to run the manager without an engine in the benchmarks.
+     * @param root the root of the resource tree.
+     * @param additionalUpdates for each resource path, the paths of the other resources which must be sent to the clients when it changes.
+     */
+    void initialize(RouterResource root, Map<ResourcePath, Set<ResourcePath>> additionalUpdates) {
+        rootResource = root;
+        routes = RouteTrie.compile(root, engineThreadDispatcher::decorate);
+        lastUpdates.clear();
+        additionalResourcesToUpdate = additionalUpdates;
+        rootResource.setObserver(this);
+    }
+
     /**
      * initialize a resource by either registering it as component system if possible, or injecting it otherwise.
      * @param context the context of the game engine.
@@ -140,8 +197,15 @@ public final class ResourceManager implements ResourceObserver {
     }
 
     private ResourceMethod getResourceMethod(Resource resource, ResourcePath path, ResourceMethodName methodName, HeadlessClient client) throws ResourceAccessException {
-        ResourceMethod method = resource.getMethod(methodName, path);
-        if (!method.clientIsAllowed(client.getSecurityInfo())) {
+        return checkClientIsAllowed(resource.getMethod(methodName, path), client);
+    }
+
+    private ResourceMethod checkClientIsAllowed(ResourceMethod method, HeadlessClient client) throws ResourceAccessException {
+        return checkClientIsAllowed(method, client.getSecurityInfo());
+    }
+
+    private ResourceMethod checkClientIsAllowed(ResourceMethod method, ClientSecurityInfo securityInfo) throws ResourceAccessException {
+        if (!method.clientIsAllowed(securityInfo)) {
             // TODO: possibly provide a way to explain a reason for denied access (unauthenticated or not admin)
             throw new ResourceAccessException(new ActionResult(ActionResult.Status.FORBIDDEN, "You are not allowed to access this resource."));
         }
@@ -149,7 +213,7 @@ public final class ResourceManager implements ResourceObserver {
     }
 
     private ResourceMethod getResourceMethod(ResourcePath path, ResourceMethodName methodName, HeadlessClient client) throws ResourceAccessException {
-        return getResourceMethod(rootResource, path, methodName, client);
+        return checkClientIsAllowed(routes.getMethod(methodName, path), client);
     }
 
     private ResourceMethod getResourceMethod(Resource resource, ResourceMethodName methodName, HeadlessClient client) throws ResourceAccessException {
@@ -162,47 +226,293 @@ public final class ResourceManager implements ResourceObserver {
         return method.perform(inputParser.parse(inputData, method.getInType()), client);
     }
 
-    public void addClient(HeadlessClient client, BiConsumer<ResourcePath, Object> updateSubscriber, BiConsumer<ResourcePath, Object> eventListener) {
+    /**
+     * Like {@link #performAction(ResourcePath, ResourceMethodName, Object, InputParser, HeadlessClient)}, but if the method
+     * is an {@link AsyncResourceMethod} the calling thread doesn't wait for it to complete.
+     * @return a stage which completes with the result of the method, or exceptionally with a {@link ResourceAccessException}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletionStage<Object> performActionAsync(ResourcePath path, ResourceMethodName methodName, T inputData, InputParser<T> inputParser,
+                                                          HeadlessClient client) {
+        try {
+            ResourceMethod method = getResourceMethod(path, methodName, client);
+            Object parsedInput = inputParser.parse(inputData, method.getInType());
+            if (method instanceof AsyncResourceMethod) {
+                return ((AsyncResourceMethod<Object, Object>) method).performAsync(parsedInput, client);
+            }
+            return CompletableFuture.completedFuture(method.perform(parsedInput, client));
+        } catch (ResourceAccessException ex) {
+            return failedFuture(ex);
+        }
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(ResourceAccessException ex) {
+        CompletableFuture<T> failure = new CompletableFuture<>();
+        failure.completeExceptionally(ex);
+        return failure;
+    }
+
+    public synchronized void addClient(HeadlessClient client, Consumer<ResourceUpdate> updateSubscriber, BiConsumer<ResourcePath, Object> eventListener) {
         eventListeners.put(client.getEntity(), eventListener);
         updateSubscribers.put(client.getEntity(), updateSubscriber);
         clientLookup.put(client.getEntity(), client);
+        updateSecurityInfo(client);
     }
 
-    public void removeClient(HeadlessClient client) {
+    public synchronized void removeClient(HeadlessClient client) {
         eventListeners.remove(client.getEntity());
         updateSubscribers.remove(client.getEntity());
         clientLookup.remove(client.getEntity());
+        subscriptions.removeClient(client.getEntity());
+        ClientSecurityInfo securityInfo = securityInfoLookup.remove(client.getEntity());
+        if (securityInfo != null) {
+            removeFromSecurityGroup(client.getEntity(), securityInfo);
+        }
+    }
+
+    /**
+     * Start sending to a registered client the updates of the resource at the specified path and of all the resources below it.
+     * @param prefix the path of the resources to receive the updates of; the empty path subscribes to all the resources.
+     */
+    public void subscribe(HeadlessClient client, ResourcePath prefix) {
+        subscriptions.subscribe(client.getEntity(), prefix);
+    }
+
+    /**
+     * Cancel a subscription made with {@link #subscribe(HeadlessClient, ResourcePath)}; the subscriptions to other prefixes
+     * of the same paths are not affected.
+     */
+    public void unsubscribe(HeadlessClient client, ResourcePath prefix) {
+        subscriptions.unsubscribe(client.getEntity(), prefix);
+    }
+
+    /**
+     * Move the registered clients whose admin permissions changed to the group of their new security info.
+     * @param clientId the id of the client whose permissions changed, or null if those of every client may have changed.
+     */
+    synchronized void onClientSecurityChanged(String clientId) {
+        for (HeadlessClient client : clientLookup.values()) {
+            if (clientId == null || clientId.equals(client.getId())) {
+                updateSecurityInfo(client);
+            }
+        }
+    }
+
+    private void updateSecurityInfo(HeadlessClient client) {
+        EntityRef clientEntity = client.getEntity();
+        ClientSecurityInfo newSecurityInfo = client.getSecurityInfo();
+        ClientSecurityInfo oldSecurityInfo = securityInfoLookup.put(clientEntity, newSecurityInfo);
+        if (!newSecurityInfo.equals(oldSecurityInfo)) {
+            if (oldSecurityInfo != null) {
+                removeFromSecurityGroup(clientEntity, oldSecurityInfo);
+            }
+            clientsBySecurityInfo.computeIfAbsent(newSecurityInfo, (key) -> ConcurrentHashMap.newKeySet()).add(clientEntity);
+        }
+    }
+
+    private void removeFromSecurityGroup(EntityRef clientEntity, ClientSecurityInfo securityInfo) {
+        Set<EntityRef> group = clientsBySecurityInfo.get(securityInfo);
+        if (group != null) {
+            group.remove(clientEntity);
+            if (group.isEmpty()) {
+                clientsBySecurityInfo.remove(securityInfo);
+            }
+        }
     }
 
     @Override
     public void onEvent(ResourcePath senderPath, Object eventData, EntityRef targetClientEntity) {
-        eventListeners.get(targetClientEntity).accept(senderPath, eventData);
+        BiConsumer<ResourcePath, Object> listener = eventListeners.get(targetClientEntity);
+        if (listener == null) {
+            logger.warn("Failed to send event to client with entity ID " + targetClientEntity.getId() + " (corresponding client not registered)");
+            return;
+        }
+        listener.accept(senderPath, eventData);
     }
 
     @Override
     public void onChangedForClient(ResourcePath senderPath, Resource sender, EntityRef targetClientEntity) {
         HeadlessClient client = clientLookup.get(targetClientEntity);
-        if (client == null) {
+        ClientSecurityInfo securityInfo = securityInfoLookup.get(targetClientEntity);
+        if (client == null || securityInfo == null) {
             logger.warn("Failed to send update to client with entity ID" + targetClientEntity.getId() + " (corresponding client not registered)");
+            return;
         }
-        Set<ResourcePath> updatesToSend = new HashSet<>();
-        updatesToSend.add(senderPath);
-        updatesToSend.addAll(additionalResourcesToUpdate.getOrDefault(senderPath, Collections.emptySet()));
-        for (ResourcePath path: updatesToSend) {
-            try {
-                ResourceMethod resourceGetMethod = getResourceMethod(path.clone(), ResourceMethodName.GET, client);
-                if (!resourceGetMethod.getInType().equals(Void.class)) {
-                    throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, "This resource's GET method requires input data"));
-                }
-                updateSubscribers.get(targetClientEntity).accept(path, resourceGetMethod.perform(null, client));
-            } catch (ResourceAccessException ex) {
-                logger.warn("Failed to send update for resource at path " + path.toString(), ex);
+        for (ResourcePath path: getPathsToUpdate(senderPath)) {
+            if (!subscriptions.isSubscribed(targetClientEntity, path)) {
+                continue;
             }
+            runInOrder(path, () -> readResource(path, client, securityInfo, false).thenAccept((update) -> {
+                Consumer<ResourceUpdate> subscriber = updateSubscribers.get(targetClientEntity);
+                if (update != null && subscriber != null) {
+                    subscriber.accept(update);
+                }
+            }));
         }
     }
 
+    /**
+     * Send the new state of a resource to all the clients subscribed to it. Repeated notifications for the same resource within
+     * its update window (see {@link ResourceUpdateSettings}) are collapsed, so that the clients receive at most one update per window.
+     */
     @Override
     public void onChangedForAllClients(ResourcePath senderPath, Resource sender) {
-        updateSubscribers.keySet().forEach((clientEntity) -> onChangedForClient(senderPath, sender, clientEntity));
+        for (ResourcePath path: getPathsToUpdate(senderPath)) {
+            if (!subscriptions.getSubscribers(path).isEmpty()) {
+                updateCoalescer.onChanged(senderPath);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return for each resource path, the number of change notifications which didn't result in a separate update because they
+     * were collapsed with another one.
+     */
+    public Map<ResourcePath, Long> getSuppressedNotificationCounts() {
+        return updateCoalescer.getSuppressedCounts();
+    }
+
+    /**
+     * The resource is read only once for each group of subscribed clients with the same security info, and all the subscribed
+     * clients of a group receive the same {@link ResourceUpdate}, so that it's serialized only once. The calling thread doesn't
+     * wait for the resources which are read in the background (e.g. on the engine's thread), so that the updates of the other
+     * resources aren't delayed by them; the updates of the same resource are read and sent one at a time, in order.
+     */
+    private void sendUpdateToAllClients(ResourcePath senderPath) {
+        for (ResourcePath path: getPathsToUpdate(senderPath)) {
+            runInOrder(path, () -> sendUpdate(path)).whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    logger.warn("Failed to send update for resource at path " + path.toString(), failure);
+                }
+            });
+        }
+    }
+
+    private CompletableFuture<Void> sendUpdate(ResourcePath path) {
+        Set<EntityRef> pathSubscribers = subscriptions.getSubscribers(path);
+        if (pathSubscribers.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Void>> groupUpdates = new ArrayList<>();
+        clientsBySecurityInfo.forEach((securityInfo, group) -> groupUpdates.add(sendUpdateToGroup(path, securityInfo, group, pathSubscribers)));
+        return CompletableFuture.allOf(groupUpdates.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> sendUpdateToGroup(ResourcePath path, ClientSecurityInfo securityInfo, Set<EntityRef> group,
+                                                      Set<EntityRef> pathSubscribers) {
+        // the first subscribed client of the group is used to read the resource on behalf of the whole group
+        HeadlessClient reader = group.stream().filter(pathSubscribers::contains).map(clientLookup::get).filter(Objects::nonNull)
+                .findFirst().orElse(null);
+        if (reader == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return readResource(path, reader, securityInfo, true).thenAccept((update) -> {
+            if (update == null) {
+                return;
+            }
+            for (EntityRef clientEntity : group) {
+                Consumer<ResourceUpdate> subscriber = updateSubscribers.get(clientEntity);
+                // the subscriber is null if the client was removed while the update was being read
+                if (subscriber != null && pathSubscribers.contains(clientEntity)) {
+                    subscriber.accept(update);
+                }
+            }
+            // the subscribers have built the representations which need the previous update
+            update.releasePrevious();
+        });
+    }
+
+    /**
+     * Get the last update of a resource sent to the clients with the same security info as the specified client, so that a
+     * client which missed an update can get the state the next updates are based on. If no update was sent yet, the resource
+     * is read and the result becomes the first version. The updates being read when this method is called are waited for.
+     * @return a stage which completes with the update, or exceptionally with a {@link ResourceAccessException} if the client
+     * can't read the resource.
+     */
+    public CompletionStage<ResourceUpdate> getLatestUpdate(ResourcePath path, HeadlessClient client) {
+        ClientSecurityInfo clientSecurityInfo = securityInfoLookup.get(client.getEntity());
+        ClientSecurityInfo securityInfo = clientSecurityInfo != null ? clientSecurityInfo : client.getSecurityInfo();
+        return runInOrder(path, () -> {
+            Map<ClientSecurityInfo, ResourceUpdate> pathUpdates = lastUpdates.computeIfAbsent(path, (key) -> new ConcurrentHashMap<>());
+            ResourceUpdate lastUpdate = pathUpdates.get(securityInfo);
+            if (lastUpdate != null) {
+                return CompletableFuture.completedFuture(lastUpdate);
+            }
+            return readData(path, client, securityInfo).thenApply((data) ->
+                    pathUpdates.computeIfAbsent(securityInfo, (key) -> new ResourceUpdate(path, data, 1, null)));
+        });
+    }
+
+    /**
+     * Start a task which reads a resource once the previous tasks started for the same resource have completed, so that two
+     * updates of a resource can't be read concurrently and versioned or sent out of order. The task is started by the calling
+     * thread if no other task is running for the resource, and by the update scheduler otherwise.
+     * @param task starts reading the resource, and returns a stage which completes when the update has been sent.
+     * @return the stage returned by the task.
+     */
+    private <T> CompletableFuture<T> runInOrder(ResourcePath path, Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        CompletableFuture<Void> previous = lastReads.put(path, completion);
+        CompletableFuture<T> result;
+        if (previous == null || previous.isDone()) {
+            result = CompletableFuture.completedFuture(null).thenCompose((ignored) -> task.get());
+        } else {
+            result = previous.thenComposeAsync((ignored) -> task.get(), UPDATE_SCHEDULER);
+        }
+        result.whenComplete((value, failure) -> {
+            lastReads.remove(path, completion);
+            completion.complete(null);
+        });
+        return result;
+    }
+
+    private Set<ResourcePath> getPathsToUpdate(ResourcePath senderPath) {
+        Set<ResourcePath> updatesToSend = new HashSet<>();
+        updatesToSend.add(senderPath);
+        updatesToSend.addAll(additionalResourcesToUpdate.getOrDefault(senderPath, Collections.emptySet()));
+        return updatesToSend;
+    }
+
+    /**
+     * @param versioned whether the update is shared by the group of clients with the specified security info, and thus gets the
+     *                  version following the last update sent to the group.
+     * @return a stage which completes with the result of the GET method of the resource at the specified path, or with null
+     * if the client can't read it.
+     */
+    private CompletableFuture<ResourceUpdate> readResource(ResourcePath path, HeadlessClient client, ClientSecurityInfo securityInfo, boolean versioned) {
+        return readData(path, client, securityInfo).handle((data, failure) -> {
+            if (failure != null) {
+                logger.warn("Failed to send update for resource at path " + path.toString(), AsyncResourceMethod.toResourceAccessException(failure));
+                return null;
+            }
+            if (!versioned) {
+                return new ResourceUpdate(path, data);
+            }
+            return lastUpdates.computeIfAbsent(path, (key) -> new ConcurrentHashMap<>()).compute(securityInfo, (key, lastUpdate) ->
+                    new ResourceUpdate(path, data, lastUpdate == null ? 1 : lastUpdate.getVersion() + 1, lastUpdate));
+        });
+    }
+
+    /**
+     * Perform the GET method of a resource without waiting for it, if it's asynchronous (e.g. because it's performed on the engine's
+     * thread); the stages of the methods which don't complete immediately are continued by the update scheduler, so that the updates
+     * aren't serialized and sent by the thread which completed them.
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Object> readData(ResourcePath path, HeadlessClient client, ClientSecurityInfo securityInfo) {
+        try {
+            ResourceMethod resourceGetMethod = checkClientIsAllowed(routes.getMethod(ResourceMethodName.GET, path), securityInfo);
+            if (!resourceGetMethod.getInType().equals(Void.class)) {
+                throw new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, "This resource's GET method requires input data"));
+            }
+            if (!(resourceGetMethod instanceof AsyncResourceMethod)) {
+                return CompletableFuture.completedFuture(resourceGetMethod.perform(null, client));
+            }
+            CompletableFuture<Object> data = ((AsyncResourceMethod<Void, Object>) resourceGetMethod).performAsync(null, client).toCompletableFuture();
+            return data.isDone() ? data : data.whenCompleteAsync((result, failure) -> { }, UPDATE_SCHEDULER);
+        } catch (ResourceAccessException ex) {
+            return failedFuture(ex);
+        }
     }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The new state of a resource, sent to the clients subscribed to its changes. When a resource changes for all the clients,
+ * the same instance is given to all the clients with the same security info, so that the data is read and serialized only once.
+ * Those shared updates are versioned: each one has the next version of the previous update of the same resource sent to the
+ * same security info, and keeps a reference to it while it's being sent, so that the clients can be sent the differences only.
+ */
+public final class ResourceUpdate {
+
+    private final ResourcePath path;
+    private final Object data;
+    private final long version;
+    private volatile ResourceUpdate previous;
+    private final Map<Object, Object> representations = new ConcurrentHashMap<>(4);
+
+    /**
+     * Create an update which is sent to a single client, and thus has no version.
+     */
+    public ResourceUpdate(ResourcePath path, Object data) {
+        this(path, data, 0, null);
+    }
+
+    ResourceUpdate(ResourcePath path, Object data, long version, ResourceUpdate previous) {
+        this.path = path;
+        this.data = data;
+        this.version = version;
+        this.previous = previous;
+    }
+
+    public ResourcePath getPath() {
+        return path;
+    }
+
+    /**
+     * @return the result of the resource's GET method; it must not be modified, since it's shared among clients.
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * @return the version of the resource's state for the clients this update is shared with (starting from 1),
+     * or 0 if the update is sent to a single client.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the update with the previous version, or null if there isn't one or the update has already been sent to all
+     * the clients (so that the chain of the previous updates isn't kept in memory).
+     */
+    public ResourceUpdate getPrevious() {
+        return previous;
+    }
+
+    void releasePrevious() {
+        previous = null;
+    }
+
+    /**
+     * Get a representation of the update (e.g. the JSON tree of the data, or the message sent to the clients), computing it
+     * only the first time it's requested. The factory may request other representations of the same update; if two threads
+     * request a missing representation at the same time, it may be computed twice, but only the first result is kept.
+     * @param key identifies the kind of representation; use a constant owned by the code which builds it.
+     * @param factory builds the representation; it must always return the same result for the same update.
+     * @return the representation of the update.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getRepresentation(Object key, Function<ResourceUpdate, T> factory) {
+        Object representation = representations.get(key);
+        if (representation == null) {
+            // not computed inside computeIfAbsent, since the factories can recursively request other representations
+            representation = factory.apply(this);
+            Object existing = representations.putIfAbsent(key, representation);
+            if (existing != null) {
+                representation = existing;
+            }
+        }
+        return (T) representation;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.web.resources.base.ResourcePath;
+
+/**
+ * Settings of the updates sent to the clients, which can be changed with system properties.
+ */
+public final class ResourceUpdateSettings {
+
+    /**
+     * Prefix of the properties which set the coalescing window of a resource, in milliseconds; the resource path follows,
+     * with its items separated by dots (e.g. {@code facade.updateWindow.modules.installer}).
+     */
+    public static final String UPDATE_WINDOW_PROPERTY_PREFIX = "facade.updateWindow.";
+
+    private ResourceUpdateSettings() {
+    }
+
+    /**
+     * @param path the path of the resource.
+     * @param defaultWindow the window used if the property is not set.
+     * @return the minimum time between two updates of the resource sent to all the clients, in milliseconds; 0 disables coalescing.
+     */
+    public static long getUpdateWindow(ResourcePath path, long defaultWindow) {
+        return Math.max(0, Long.getLong(UPDATE_WINDOW_PROPERTY_PREFIX + String.join(".", path.getItemList()), defaultWindow));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the resource paths the clients have subscribed to. A subscription to a path is also a subscription
+ * to all the paths below it, so subscribing to the empty path means receiving the updates of every resource.
+ */
+class SubscriptionIndex {
+
+    private final Map<ResourcePath, Set<EntityRef>> subscribersByPrefix = new ConcurrentHashMap<>();
+    private final Map<EntityRef, Set<ResourcePath>> prefixesByClient = new ConcurrentHashMap<>();
+
+    synchronized void subscribe(EntityRef clientEntity, ResourcePath prefix) {
+        prefixesByClient.computeIfAbsent(clientEntity, (key) -> new HashSet<>()).add(prefix);
+        subscribersByPrefix.computeIfAbsent(prefix, (key) -> ConcurrentHashMap.newKeySet()).add(clientEntity);
+    }
+
+    synchronized void unsubscribe(EntityRef clientEntity, ResourcePath prefix) {
+        Set<ResourcePath> prefixes = prefixesByClient.get(clientEntity);
+        if (prefixes != null && prefixes.remove(prefix)) {
+            removeSubscriber(prefix, clientEntity);
+            if (prefixes.isEmpty()) {
+                prefixesByClient.remove(clientEntity);
+            }
+        }
+    }
+
+    synchronized void removeClient(EntityRef clientEntity) {
+        Set<ResourcePath> prefixes = prefixesByClient.remove(clientEntity);
+        if (prefixes != null) {
+            prefixes.forEach((prefix) -> removeSubscriber(prefix, clientEntity));
+        }
+    }
+
+    private void removeSubscriber(ResourcePath prefix, EntityRef clientEntity) {
+        Set<EntityRef> subscribers = subscribersByPrefix.get(prefix);
+        subscribers.remove(clientEntity);
+        if (subscribers.isEmpty()) {
+            subscribersByPrefix.remove(prefix);
+        }
+    }
+
+    /**
+     * @return the clients subscribed to the specified path or to one of its prefixes; the returned set must not be modified.
+     */
+    Set<EntityRef> getSubscribers(ResourcePath path) {
+        if (subscribersByPrefix.isEmpty()) {
+            return Collections.emptySet();
+        }
+        List<String> items = path.getItemList();
+        Set<EntityRef> result = null;
+        boolean resultIsShared = false;
+        for (int length = 0; length <= items.size(); ++length) {
+            ResourcePath prefix = length == items.size() ? path : new ResourcePath(items.subList(0, length));
+            Set<EntityRef> subscribers = subscribersByPrefix.get(prefix);
+            if (subscribers == null) {
+                continue;
+            }
+            if (result == null) {
+                // most of the times only one prefix has subscribers, so its set is returned without copying it
+                result = subscribers;
+                resultIsShared = true;
+            } else {
+                if (resultIsShared) {
+                    result = new HashSet<>(result);
+                    resultIsShared = false;
+                }
+                result.addAll(subscribers);
+            }
+        }
+        return result != null ? result : Collections.emptySet();
+    }
+
+    boolean isSubscribed(EntityRef clientEntity, ResourcePath path) {
+        return getSubscribers(path).contains(clientEntity);
+    }
+}
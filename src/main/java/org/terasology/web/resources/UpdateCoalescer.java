@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collapses the change notifications of a resource which arrive within its coalescing window.
+ * The first notification is flushed immediately and opens the window; the ones received while the window is open are
+ * collapsed into a single flush when it closes, which opens a new window. This way the clients receive at most one update
+ * of the resource per window, and the last one always reflects the latest state.
+ */
+class UpdateCoalescer {
+
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<ResourcePath> flush;
+    private final Function<ResourcePath, Long> windowProvider;
+    private final Map<ResourcePath, Long> windows = new ConcurrentHashMap<>();
+    private final Map<ResourcePath, WindowState> states = new HashMap<>();
+    private final Map<ResourcePath, LongAdder> suppressedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param scheduler the executor which closes the windows and runs the deferred flushes.
+     * @param flush the action which sends the update of a resource.
+     * @param windowProvider gives the coalescing window of a resource in milliseconds (0 disables coalescing);
+     *                       it's called once per resource path.
+     */
+    UpdateCoalescer(ScheduledExecutorService scheduler, Consumer<ResourcePath> flush, Function<ResourcePath, Long> windowProvider) {
+        this.scheduler = scheduler;
+        this.flush = flush;
+        this.windowProvider = windowProvider;
+    }
+
+    void onChanged(ResourcePath path) {
+        long window = windows.computeIfAbsent(path, windowProvider);
+        if (window <= 0) {
+            flush.accept(path);
+            return;
+        }
+        synchronized (states) {
+            WindowState state = states.get(path);
+            if (state != null) {
+                if (state.pending) {
+                    suppressedCounts.computeIfAbsent(path, (key) -> new LongAdder()).increment();
+                }
+                state.pending = true;
+                return;
+            }
+            states.put(path, new WindowState());
+        }
+        flushAndOpenWindow(path, window);
+    }
+
+    private void flushAndOpenWindow(ResourcePath path, long window) {
+        try {
+            flush.accept(path);
+        } finally {
+            scheduler.schedule(() -> closeWindow(path, window), window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void closeWindow(ResourcePath path, long window) {
+        synchronized (states) {
+            WindowState state = states.get(path);
+            if (!state.pending) {
+                states.remove(path);
+                return;
+            }
+            state.pending = false;
+        }
+        flushAndOpenWindow(path, window);
+    }
+
+    /**
+     * @return for each resource path, the number of notifications which were collapsed into another one since the server started.
+     */
+    Map<ResourcePath, Long> getSuppressedCounts() {
+        Map<ResourcePath, Long> result = new HashMap<>();
+        suppressedCounts.forEach((path, count) -> result.put(path, count.sum()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static final class WindowState {
+        // whether a notification was received since the window was opened
+        private boolean pending;
+    }
+}
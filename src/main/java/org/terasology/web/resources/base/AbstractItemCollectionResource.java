@@ -23,10 +23,16 @@ import static org.terasology.web.resources.base.ResourceMethodFactory.decorateMe
 
 /**
  * Resource class used for resources that need to return a variable amount of items, such as an array.
+ * The methods of the collection and of its items are requested from the subclass only once and then reused;
+ * the item methods receive the id of the item as a parameter.
  */
 public abstract class AbstractItemCollectionResource extends AbstractObservableResource {
 
     private Map<String, Function<String, Resource>> itemSubResourceProviders;
+    private final ResolvedMethods<ResourceMethod> collectionMethods = new ResolvedMethods<>();
+    private final ResolvedMethods<ParametrizedResourceMethod> itemMethods = new ResolvedMethods<>();
+    private final ResolvedMethods.Resolver<ResourceMethod> collectionMethodResolver = this::resolveCollectionMethod;
+    private final ResolvedMethods.Resolver<ParametrizedResourceMethod> itemMethodResolver = this::resolveItemMethod;
 
     protected AbstractItemCollectionResource(Map<String, Function<String, Resource>> itemSubResourceProviders) {
         this.itemSubResourceProviders = itemSubResourceProviders;
@@ -38,33 +44,53 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
 
     @Override
     public final ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
-        String itemId = null;
-        if (!path.isEmpty()) {
-            itemId = path.consumeNextItem();
-            if (!path.isEmpty()) {
-                return getItemSubResourceMethod(methodName, path, itemId);
-            }
+        if (path.isEmpty()) {
+            return collectionMethods.get(methodName, collectionMethodResolver);
         }
+        String itemId = path.getFirstItem();
+        if (path.size() > 1) {
+            return getItemSubResourceMethod(methodName, path.removeFirstItem(), itemId);
+        }
+        return itemMethods.get(methodName, itemMethodResolver).withParameter(itemId);
+    }
+
+    private ResourceMethod resolveCollectionMethod(ResourceMethodName methodName) throws ResourceAccessException {
+        switch (methodName) {
+            case GET:
+                return getGetCollectionMethod();
+            case POST:
+                return getPostCollectionMethod();
+            case PUT:
+                return getPutCollectionMethod();
+            case DELETE:
+                return getDeleteCollectionMethod();
+            case PATCH:
+                return getPatchCollectionMethod();
+        }
+        throw ResourceAccessException.METHOD_NOT_ALLOWED;
+    }
+
+    private ParametrizedResourceMethod resolveItemMethod(ResourceMethodName methodName) throws ResourceAccessException {
         switch (methodName) {
             case GET:
-                return itemId == null ? getGetCollectionMethod() : getGetItemMethod(itemId);
+                return getGetItemMethod();
             case POST:
-                return itemId == null ? getPostCollectionMethod() : getPostItemMethod(itemId);
+                return getPostItemMethod();
             case PUT:
-                return itemId == null ? getPutCollectionMethod() : getPutItemMethod(itemId);
+                return getPutItemMethod();
             case DELETE:
-                return itemId == null ? getDeleteCollectionMethod() : getDeleteItemMethod(itemId);
+                return getDeleteItemMethod();
             case PATCH:
-                return itemId == null ? getPatchCollectionMethod() : getPatchItemMethod(itemId);
+                return getPatchItemMethod();
         }
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
     private ResourceMethod getItemSubResourceMethod(ResourceMethodName methodName, ResourcePath path, String itemId) throws ResourceAccessException {
-        String subResourceName = path.consumeNextItem();
+        String subResourceName = path.getFirstItem();
         Function<String, Resource> subResourceProvider = itemSubResourceProviders.get(subResourceName);
         if (subResourceProvider != null) {
-            return decorateMethod(subResourceProvider.apply(itemId).getMethod(methodName, path),
+            return decorateMethod(subResourceProvider.apply(itemId).getMethod(methodName, path.removeFirstItem()),
                     () -> beforeSubResourceAccess(subResourceName, itemId),
                     () -> afterSubResourceAccess(subResourceName, itemId));
         } else {
@@ -78,7 +104,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getGetItemMethod(String itemId) throws ResourceAccessException {
+    protected ParametrizedResourceMethod getGetItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -86,7 +112,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getPostItemMethod(String itemId) throws ResourceAccessException {
+    protected ParametrizedResourceMethod getPostItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -94,7 +120,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getPutItemMethod(String itemId) throws ResourceAccessException {
+    protected ParametrizedResourceMethod getPutItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -102,7 +128,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getDeleteItemMethod(String itemId) throws ResourceAccessException {
+    protected ParametrizedResourceMethod getDeleteItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -110,7 +136,7 @@ public abstract class AbstractItemCollectionResource extends AbstractObservableR
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
-    protected ResourceMethod getPatchItemMethod(String itemId) throws ResourceAccessException {
+    protected ParametrizedResourceMethod getPatchItemMethod() throws ResourceAccessException {
         throw ResourceAccessException.METHOD_NOT_ALLOWED;
     }
 
@@ -17,11 +17,23 @@ package org.terasology.web.resources.base;
 
 /**
  * Simple resource class which provides access to a variable through REST.
+ * The methods for the resource's own path are requested from the subclass only once and then reused,
+ * so they must not depend on the state of the resource at the time they are built (they can read it when performed).
  */
 public abstract class AbstractSimpleResource extends AbstractObservableResource {
 
+    private final ResolvedMethods<ResourceMethod> resolvedMethods = new ResolvedMethods<>();
+    private final ResolvedMethods.Resolver<ResourceMethod> resolver = (methodName) -> resolveMethod(methodName, ResourcePath.createEmpty());
+
     @Override
     public final ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
+        if (path.isEmpty()) {
+            return resolvedMethods.get(methodName, resolver);
+        }
+        return resolveMethod(methodName, path);
+    }
+
+    private ResourceMethod resolveMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
         switch (methodName) {
             case GET:
                 return getGetMethod(path);
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.terasology.engine.network.Client;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Method handler for {@link ResourceMethodFactory} which is used for resources that complete the requests in the background.
+ * The handler must only start the work and return, without waiting for it (blocking handlers should be created with
+ * {@link ResourceMethodFactory#createBackgroundMethod}); the stages it returns can't throw checked exceptions, so
+ * a {@link ResourceAccessException} has to be wrapped in a {@link java.util.concurrent.CompletionException}.
+ * @param <INTYPE> the type of data sent to the server from the client through the {@link AsyncResourceMethod}.
+ * @param <OUTTYPE> the type of data sent from the server to the client by the {@link AsyncResourceMethod} when it completes.
+ */
+@FunctionalInterface
+public interface AsyncMethodHandler<INTYPE, OUTTYPE> {
+
+    CompletionStage<OUTTYPE> perform(INTYPE data, Client client) throws ResourceAccessException;
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.terasology.engine.network.Client;
+import org.terasology.web.io.ActionResult;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A {@link ResourceMethod} whose work is completed in the background, so that the thread which received the request
+ * (a Jetty request thread or the WebSocket read thread) is free to handle other requests in the meantime.
+ * @param <INTYPE> the type of data sent to the server from the client.
+ * @param <OUTTYPE> the type of data sent from the server to the client.
+ */
+public interface AsyncResourceMethod<INTYPE, OUTTYPE> extends ResourceMethod<INTYPE, OUTTYPE> {
+
+    /**
+     * Start performing the request for the client.
+     * @param data the data sent to the server (if any).
+     * @param client the client that performed the request.
+     * @return a stage which completes with the data requested by the client, or exceptionally with a {@link ResourceAccessException}.
+     * @throws ResourceAccessException if the request fails before any background work is started (e.g. the input is invalid).
+     */
+    CompletionStage<OUTTYPE> performAsync(INTYPE data, Client client) throws ResourceAccessException;
+
+    /**
+     * Perform the request and wait for it to complete; used by the callers which need the result synchronously.
+     */
+    @Override
+    default OUTTYPE perform(INTYPE data, Client client) throws ResourceAccessException {
+        return join(performAsync(data, client));
+    }
+
+    /**
+     * Wait for a stage returned by {@link #performAsync(Object, Client)} to complete.
+     * @return the result of the stage.
+     * @throws ResourceAccessException if the stage completed exceptionally with a {@link ResourceAccessException}; other
+     * exceptions are reported as a generic error.
+     */
+    static <T> T join(CompletionStage<T> stage) throws ResourceAccessException {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException | CancellationException ex) {
+            throw toResourceAccessException(ex);
+        }
+    }
+
+    /**
+     * @param failure the exception a stage returned by {@link #performAsync(Object, Client)} completed with, possibly wrapped
+     *                in a {@link CompletionException}.
+     * @return the {@link ResourceAccessException} which describes the failure to the client.
+     */
+    static ResourceAccessException toResourceAccessException(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof ResourceAccessException) {
+            return (ResourceAccessException) cause;
+        }
+        return new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, String.valueOf(cause.getMessage())));
+    }
+}
@@ -20,7 +20,7 @@ import org.terasology.engine.network.Client;
 
 /**
  * Method handler for {@link ResourceMethodFactory} which is used for resources where the client needs to
- * give extra parameters to the server for execution. Currently unused.
+ * give extra parameters to the server for execution, such as the id of an item of a collection.
  * @param <INTYPE> the type of data sent to the server from the client through the {@link ResourceMethod}.
  * @param <OUTTYPE> the type of data sent from the server to the client by the {@link ResourceMethod} after executing.
  */
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.terasology.engine.network.Client;
+import org.terasology.web.client.ClientSecurityInfo;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A method of the items of a collection resource, which receives the id of the item as a parameter.
+ * Instances are immutable, so that a single instance can serve the requests for all the items.
+ * @param <INTYPE> the type of data sent to the server from the client.
+ * @param <OUTTYPE> the type of data sent from the server to the client.
+ */
+public class ParametrizedResourceMethod<INTYPE, OUTTYPE> {
+
+    private final Class<INTYPE> inType;
+    private final ClientSecurityRequirements securityRequirements;
+    private final ParametrizedMethodHandler<INTYPE, OUTTYPE> handler;
+    private final boolean background;
+
+    public ParametrizedResourceMethod(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements,
+                                      ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) {
+        this(inType, securityRequirements, handler, false);
+    }
+
+    private ParametrizedResourceMethod(Class<INTYPE> inType, ClientSecurityRequirements securityRequirements,
+                                       ParametrizedMethodHandler<INTYPE, OUTTYPE> handler, boolean background) {
+        this.inType = inType;
+        this.securityRequirements = securityRequirements;
+        this.handler = handler;
+        this.background = background;
+    }
+
+    public Class<INTYPE> getInType() {
+        return inType;
+    }
+
+    public ClientSecurityRequirements getSecurityRequirements() {
+        return securityRequirements;
+    }
+
+    public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+        return securityRequirements.clientIsAllowed(securityInfo);
+    }
+
+    public OUTTYPE perform(INTYPE data, String parameter, Client client) throws ResourceAccessException {
+        return handler.perform(data, parameter, client);
+    }
+
+    /**
+     * @return a method which performs this one on a background thread; the methods returned by its
+     * {@link #withParameter(String)} are {@link AsyncResourceMethod}s.
+     */
+    public ParametrizedResourceMethod<INTYPE, OUTTYPE> runInBackground() {
+        return new ParametrizedResourceMethod<>(inType, securityRequirements, this::perform, true);
+    }
+
+    /**
+     * @return a {@link ResourceMethod} which performs this method with the specified parameter.
+     */
+    public ResourceMethod<INTYPE, OUTTYPE> withParameter(String parameter) {
+        if (background) {
+            return new AsyncResourceMethod<INTYPE, OUTTYPE>() {
+                @Override
+                public Class<INTYPE> getInType() {
+                    return inType;
+                }
+
+                @Override
+                public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                    return ParametrizedResourceMethod.this.clientIsAllowed(securityInfo);
+                }
+
+                @Override
+                public CompletionStage<OUTTYPE> performAsync(INTYPE data, Client client) {
+                    return BackgroundTasks.run(() -> ParametrizedResourceMethod.this.perform(data, parameter, client));
+                }
+            };
+        }
+        return new ResourceMethod<INTYPE, OUTTYPE>() {
+            @Override
+            public Class<INTYPE> getInType() {
+                return inType;
+            }
+
+            @Override
+            public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                return ParametrizedResourceMethod.this.clientIsAllowed(securityInfo);
+            }
+
+            @Override
+            public OUTTYPE perform(INTYPE data, Client client) throws ResourceAccessException {
+                return ParametrizedResourceMethod.this.perform(data, parameter, client);
+            }
+        };
+    }
+}
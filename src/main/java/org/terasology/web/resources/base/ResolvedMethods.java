@@ -0,0 +1,51 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Remembers, for each {@link ResourceMethodName}, the method returned by a resource or the exception it threw,
+ * so that the methods are built only once instead of on every request.
+ * @param <T> the type of the methods.
+ */
+final class ResolvedMethods<T> {
+
+    private final AtomicReferenceArray<Object> methods = new AtomicReferenceArray<>(ResourceMethodName.values().length);
+
+    @FunctionalInterface
+    interface Resolver<T> {
+        T resolve(ResourceMethodName methodName) throws ResourceAccessException;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(ResourceMethodName methodName, Resolver<T> resolver) throws ResourceAccessException {
+        Object method = methods.get(methodName.ordinal());
+        if (method == null) {
+            try {
+                method = resolver.resolve(methodName);
+            } catch (ResourceAccessException ex) {
+                method = ex;
+            }
+            // if two threads resolve the method at the same time, both results are equivalent, so either can be kept
+            methods.compareAndSet(methodName.ordinal(), null, method);
+        }
+        if (method instanceof ResourceAccessException) {
+            throw (ResourceAccessException) method;
+        }
+        return (T) method;
+    }
+}
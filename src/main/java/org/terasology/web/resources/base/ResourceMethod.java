@@ -40,6 +40,8 @@ public interface ResourceMethod<INTYPE, OUTTYPE> {
 
     /**
      * Perform the HTTP request for the client.
+     * The result of a GET method without input data is also sent to the clients when the resource changes; in that case it's
+     * computed once and shared among the clients with the same security info, so it must depend only on that.
      * @param data the data sent to the server (if any).
      * @param client the client that performed the request.
      * @return the data requested by the client.
@@ -19,6 +19,9 @@ import org.terasology.engine.network.Client;
 import org.terasology.web.ThrowingRunnable;
 import org.terasology.web.client.ClientSecurityInfo;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * This factory is used to make {@link ResourceMethod}s for {@link Resource} classes.
  */
@@ -30,14 +33,33 @@ public final class ResourceMethodFactory {
     public static <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> createParametrizedMethod(
             ResourcePath path, ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
             ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) throws ResourceAccessException {
-        String parameter = path.assertAndConsumeLastItem();
+        String parameter = path.getSingleItem();
         return createParametrizedMethod(parameter, securityRequirements, inType, handler);
     }
 
     public static <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> createParametrizedMethod(
             String parameter, ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
             ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) throws ResourceAccessException {
-        return new ResourceMethodImpl<>(inType, securityRequirements, (data, client) -> handler.perform(data, parameter, client));
+        return createParametrizedMethod(securityRequirements, inType, handler).withParameter(parameter);
+    }
+
+    /**
+     * Create a {@link ParametrizedResourceMethod}, which receives the parameter (e.g. the id of an item) when performed.
+     * @param securityRequirements the security requirements of the method.
+     */
+    public static <INTYPE, OUTTYPE> ParametrizedResourceMethod<INTYPE, OUTTYPE> createParametrizedMethod(
+            ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
+            ParametrizedMethodHandler<INTYPE, OUTTYPE> handler) throws ResourceAccessException {
+        return new ParametrizedResourceMethod<>(inType, securityRequirements, handler);
+    }
+
+    public static <INTYPE> ParametrizedResourceMethod<INTYPE, Void> createVoidParametrizedMethod(
+            ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
+            VoidParametrizedMethodHandler<INTYPE> handler) throws ResourceAccessException {
+        return createParametrizedMethod(securityRequirements, inType, (data, parameter, client) -> {
+            handler.perform(data, parameter, client);
+            return null;
+        });
     }
 
     /**
@@ -83,8 +105,46 @@ public final class ResourceMethodFactory {
         return createVoidParameterlessMethod(securityRequirements, inType, handler);
     }
 
+    /**
+     * Create an {@link AsyncResourceMethod}, whose handler returns a stage which completes with the result.
+     * @param path the resource's path, which must be empty.
+     */
+    public static <INTYPE, OUTTYPE> AsyncResourceMethod<INTYPE, OUTTYPE> createAsyncMethod(
+            ResourcePath path, ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
+            AsyncMethodHandler<INTYPE, OUTTYPE> handler) throws ResourceAccessException {
+        path.assertEmpty();
+        return new AsyncResourceMethodImpl<>(inType, securityRequirements, handler);
+    }
+
+    /**
+     * Create an {@link AsyncResourceMethod} which runs a blocking handler (e.g. one which copies files or downloads data)
+     * on a background thread.
+     * @param path the resource's path, which must be empty.
+     */
+    public static <INTYPE, OUTTYPE> AsyncResourceMethod<INTYPE, OUTTYPE> createBackgroundMethod(
+            ResourcePath path, ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
+            ParameterlessMethodHandler<INTYPE, OUTTYPE> handler) throws ResourceAccessException {
+        return createAsyncMethod(path, securityRequirements, inType, (data, client) -> BackgroundTasks.run(() -> handler.perform(data, client)));
+    }
+
+    public static <INTYPE> AsyncResourceMethod<INTYPE, Void> createVoidBackgroundMethod(
+            ResourcePath path, ClientSecurityRequirements securityRequirements, Class<INTYPE> inType,
+            VoidParameterlessMethodHandler<INTYPE> handler) throws ResourceAccessException {
+        return createBackgroundMethod(path, securityRequirements, inType, (data, client) -> {
+            handler.perform(data, client);
+            return null;
+        });
+    }
+
+    /**
+     * Wrap a method so that the specified actions are run before it's performed and after it completes successfully;
+     * if the method is asynchronous, so is the returned one, and the after action runs when it completes.
+     */
     public static <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> decorateMethod(
             ResourceMethod<INTYPE, OUTTYPE> base, ThrowingRunnable<ResourceAccessException> before, ThrowingRunnable<ResourceAccessException> after) {
+        if (base instanceof AsyncResourceMethod) {
+            return decorateAsyncMethod((AsyncResourceMethod<INTYPE, OUTTYPE>) base, before, after);
+        }
         return new ResourceMethod<INTYPE, OUTTYPE>() {
             @Override
             public Class<INTYPE> getInType() {
@@ -105,4 +165,38 @@ public final class ResourceMethodFactory {
             }
         };
     }
+
+    private static <INTYPE, OUTTYPE> AsyncResourceMethod<INTYPE, OUTTYPE> decorateAsyncMethod(
+            AsyncResourceMethod<INTYPE, OUTTYPE> base, ThrowingRunnable<ResourceAccessException> before, ThrowingRunnable<ResourceAccessException> after) {
+        return new AsyncResourceMethod<INTYPE, OUTTYPE>() {
+            @Override
+            public Class<INTYPE> getInType() {
+                return base.getInType();
+            }
+
+            @Override
+            public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                return base.clientIsAllowed(securityInfo);
+            }
+
+            @Override
+            public CompletionStage<OUTTYPE> performAsync(INTYPE data, Client client) throws ResourceAccessException {
+                before.run();
+                CompletableFuture<OUTTYPE> result = new CompletableFuture<>();
+                base.performAsync(data, client).whenComplete((value, failure) -> {
+                    if (failure != null) {
+                        result.completeExceptionally(failure);
+                        return;
+                    }
+                    try {
+                        after.run();
+                        result.complete(value);
+                    } catch (ResourceAccessException ex) {
+                        result.completeExceptionally(ex);
+                    }
+                });
+                return result;
+            }
+        };
+    }
 }
@@ -15,83 +15,169 @@
  */
 package org.terasology.web.resources.base;
 
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
+import java.util.List;
 
 /**
  * This class represents the path to a resource with a series of strings. Example: config/MOTD
+ * Paths are immutable; the paths returned by {@link #removeFirstItem()} and {@link #subPath(int)} share the items
+ * of the original path, so walking down a path doesn't copy it.
  */
-// TODO: consider making it immutable and returning a new instance for each operation
-public class ResourcePath {
+public final class ResourcePath {
 
-    private Deque<String> items;
+    private static final String[] NO_ITEMS = new String[0];
+    private static final ResourcePath EMPTY = new ResourcePath(NO_ITEMS, 0);
+
+    private final String[] items;
+    private final int offset;
+    private int hash;
 
     public ResourcePath(Collection<String> items) {
-        this.items = new ArrayDeque<>(items);
-        this.items.removeIf(String::isEmpty);
+        this(removeEmptyItems(items), 0);
     }
 
     public ResourcePath(String... items) {
         this(Arrays.asList(items));
     }
 
+    private ResourcePath(String[] items, int offset) {
+        this.items = items;
+        this.offset = offset;
+    }
+
     public static ResourcePath createEmpty() {
-        return new ResourcePath(Collections.emptyList());
+        return EMPTY;
+    }
+
+    private static String[] removeEmptyItems(Collection<String> items) {
+        List<String> result = new ArrayList<>(items.size());
+        for (String item : items) {
+            if (!item.isEmpty()) {
+                result.add(item);
+            }
+        }
+        return result.toArray(NO_ITEMS);
     }
 
     public boolean isEmpty() {
-        return items.isEmpty();
+        return offset == items.length;
     }
 
-    public String consumeNextItem() throws ResourceAccessException {
-        if (items.isEmpty()) {
+    public int size() {
+        return items.length - offset;
+    }
+
+    /**
+     * @param index the index of the item, between 0 and {@link #size()} - 1.
+     */
+    public String getItem(int index) {
+        return items[offset + index];
+    }
+
+    /**
+     * @return the first item of the path.
+     * @throws ResourceAccessException with status NOT_FOUND if the path is empty.
+     */
+    public String getFirstItem() throws ResourceAccessException {
+        if (isEmpty()) {
             throw ResourceAccessException.NOT_FOUND;
         }
-        return items.pollFirst();
+        return items[offset];
     }
 
-    public String assertAndConsumeLastItem() throws ResourceAccessException {
-        if (items.size() != 1) {
+    /**
+     * @return the path without its first item.
+     * @throws ResourceAccessException with status NOT_FOUND if the path is empty.
+     */
+    public ResourcePath removeFirstItem() throws ResourceAccessException {
+        if (isEmpty()) {
             throw ResourceAccessException.NOT_FOUND;
         }
-        return consumeNextItem();
+        return subPath(1);
+    }
+
+    /**
+     * @param fromIndex the number of leading items to skip, between 0 and {@link #size()}.
+     * @return the path made of the items from the specified index on.
+     */
+    public ResourcePath subPath(int fromIndex) {
+        if (fromIndex == 0) {
+            return this;
+        }
+        int newOffset = offset + fromIndex;
+        return newOffset == items.length ? EMPTY : new ResourcePath(items, newOffset);
+    }
+
+    /**
+     * @return the only item of the path.
+     * @throws ResourceAccessException with status NOT_FOUND if the path doesn't have exactly one item.
+     */
+    public String getSingleItem() throws ResourceAccessException {
+        if (size() != 1) {
+            throw ResourceAccessException.NOT_FOUND;
+        }
+        return items[offset];
     }
 
     public void assertEmpty() throws ResourceAccessException {
-        if (!items.isEmpty()) {
+        if (!isEmpty()) {
             throw ResourceAccessException.NOT_FOUND;
         }
     }
 
+    /**
+     * @return a new path with the specified item followed by the items of this path.
+     */
     public ResourcePath pushItem(String item) {
-        items.offerFirst(item);
-        return this;
+        String[] newItems = new String[size() + 1];
+        newItems[0] = item;
+        System.arraycopy(items, offset, newItems, 1, size());
+        return new ResourcePath(newItems, 0);
     }
 
-    public Collection<String> getItemList() {
-        return items;
+    public List<String> getItemList() {
+        return Collections.unmodifiableList(Arrays.asList(items).subList(offset, items.length));
     }
 
     @Override
     public boolean equals(Object other) {
-        return other instanceof ResourcePath && toString().equals(other.toString());
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ResourcePath)) {
+            return false;
+        }
+        ResourcePath otherPath = (ResourcePath) other;
+        if (size() != otherPath.size() || hashCode() != otherPath.hashCode()) {
+            return false;
+        }
+        for (int i = 0; i < size(); ++i) {
+            if (!getItem(i).equals(otherPath.getItem(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return toString().hashCode();
-    }
-
-    @Override
-    public ResourcePath clone() {
-        return new ResourcePath(getItemList());
+        int result = hash;
+        if (result == 0) {
+            result = 1;
+            for (int i = offset; i < items.length; ++i) {
+                result = result * 31 + items[i].hashCode();
+            }
+            // racy but safe, like String.hashCode: every thread computes the same value
+            hash = result;
+        }
+        return result;
     }
 
     @Override
     public String toString() {
-        return String.join("/", items);
+        return String.join("/", getItemList());
     }
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable index of a tree of {@link RouterResource}s, used to find the resource which handles a path without
+ * walking the routers one by one. The tree is compiled once, so sub-resources added to the routers later are not seen.
+ * The resources which are not routers still receive the rest of the path (e.g. the id of an item) as usual.
+ * The methods of the resources annotated with {@link RequiresEngineThread} are wrapped by the specified decorator; since
+ * the resources usually return the same method on every request, the wrapper is remembered and reused while they do.
+ */
+public final class RouteTrie {
+
+    private final Node root;
+    private final UnaryOperator<ResourceMethod> engineThreadDecorator;
+
+    private RouteTrie(Node root, UnaryOperator<ResourceMethod> engineThreadDecorator) {
+        this.root = root;
+        this.engineThreadDecorator = engineThreadDecorator;
+    }
+
+    public static RouteTrie compile(RouterResource router) {
+        return compile(router, UnaryOperator.identity());
+    }
+
+    /**
+     * @param engineThreadDecorator makes the methods of the resources which require the engine's thread run on it.
+     */
+    public static RouteTrie compile(RouterResource router, UnaryOperator<ResourceMethod> engineThreadDecorator) {
+        return new RouteTrie(compileNode(router), engineThreadDecorator);
+    }
+
+    private static Node compileNode(Resource resource) {
+        if (!(resource instanceof RouterResource)) {
+            return new Node(resource, resource, null);
+        }
+        RouterResource router = (RouterResource) resource;
+        Map<String, Node> children = new HashMap<>();
+        router.getSubResources().forEach((name, subResource) -> children.put(name.intern(), compileNode(subResource)));
+        return new Node(router, router.getRootResource(), Collections.unmodifiableMap(children));
+    }
+
+    /**
+     * Same as {@link Resource#getMethod(ResourceMethodName, ResourcePath)} on the root router.
+     */
+    public ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
+        Node node = root;
+        int depth = 0;
+        while (depth < path.size() && node.children != null) {
+            Node child = node.children.get(path.getItem(depth));
+            if (child == null) {
+                // let the router handle the unknown sub-resource like when it's accessed directly
+                return node.resource.getMethod(methodName, path.subPath(depth));
+            }
+            node = child;
+            ++depth;
+        }
+        ResourceMethod method = node.endpoint.getMethod(methodName, path.subPath(depth));
+        return node.decoratedMethods != null ? node.decorate(methodName, method, engineThreadDecorator) : method;
+    }
+
+    private static final class DecoratedMethod {
+        private final ResourceMethod base;
+        private final ResourceMethod decorated;
+
+        private DecoratedMethod(ResourceMethod base, ResourceMethod decorated) {
+            this.base = base;
+            this.decorated = decorated;
+        }
+    }
+
+    private static final class Node {
+        private final Resource resource;
+        // the resource which handles the path ending at this node: the root resource of a router, or the resource itself
+        private final Resource endpoint;
+        // null for the resources which are not routers
+        private final Map<String, Node> children;
+        // the last decorated method for each method name; null if the endpoint doesn't require the engine's thread
+        private final AtomicReferenceArray<DecoratedMethod> decoratedMethods;
+
+        private Node(Resource resource, Resource endpoint, Map<String, Node> children) {
+            this.resource = resource;
+            this.endpoint = endpoint;
+            this.children = children;
+            boolean requiresEngineThread = endpoint != null && endpoint.getClass().isAnnotationPresent(RequiresEngineThread.class);
+            this.decoratedMethods = requiresEngineThread ? new AtomicReferenceArray<>(ResourceMethodName.values().length) : null;
+        }
+
+        private ResourceMethod decorate(ResourceMethodName methodName, ResourceMethod method, UnaryOperator<ResourceMethod> decorator) {
+            DecoratedMethod last = decoratedMethods.get(methodName.ordinal());
+            if (last != null && last.base == method) {
+                return last.decorated;
+            }
+            // methods built for each request (e.g. with the id of an item) are decorated each time, like they are built
+            ResourceMethod decorated = decorator.apply(method);
+            decoratedMethods.set(methodName.ordinal(), new DecoratedMethod(method, decorated));
+            return decorated;
+        }
+    }
+}
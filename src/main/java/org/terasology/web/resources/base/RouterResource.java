@@ -58,6 +58,14 @@ public final class RouterResource implements Resource {
             }));
     }
 
+    Resource getRootResource() {
+        return rootResource;
+    }
+
+    Map<String, Resource> getSubResources() {
+        return subResources;
+    }
+
     @Override
     public void notifyChangedForAllClients() {
         rootResource.notifyChangedForAllClients();
@@ -69,9 +77,8 @@ public final class RouterResource implements Resource {
         if (path.isEmpty()) {
             return rootResource.getMethod(methodName, path);
         } else {
-            String selector = path.consumeNextItem();
-            Resource res = subResources.getOrDefault(selector, NullResource.getInstance());
-            return res.getMethod(methodName, path);
+            Resource res = subResources.getOrDefault(path.getFirstItem(), NullResource.getInstance());
+            return res.getMethod(methodName, path.removeFirstItem());
         }
     }
 
@@ -81,6 +88,22 @@ public final class RouterResource implements Resource {
     private static final class NullResource extends AbstractObservableResource {
 
         private static final NullResource INSTANCE = new NullResource();
+        private static final ResourceMethod<Void, Void> NOT_FOUND_METHOD = new ResourceMethod<Void, Void>() {
+            @Override
+            public Class<Void> getInType() {
+                return Void.class;
+            }
+
+            @Override
+            public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
+                return true;
+            }
+
+            @Override
+            public Void perform(Void data, Client client) throws ResourceAccessException {
+                throw ResourceAccessException.NOT_FOUND;
+            }
+        };
 
         private NullResource() {
         }
@@ -91,22 +114,7 @@ public final class RouterResource implements Resource {
 
         @Override
         public ResourceMethod getMethod(ResourceMethodName methodName, ResourcePath path) throws ResourceAccessException {
-            return new ResourceMethod<Void, Void>() {
-                @Override
-                public Class<Void> getInType() {
-                    return Void.class;
-                }
-
-                @Override
-                public boolean clientIsAllowed(ClientSecurityInfo securityInfo) {
-                    return true;
-                }
-
-                @Override
-                public Void perform(Void data, Client client) throws ResourceAccessException {
-                    throw ResourceAccessException.NOT_FOUND;
-                }
-            };
+            return NOT_FOUND_METHOD;
         }
 
         @Override
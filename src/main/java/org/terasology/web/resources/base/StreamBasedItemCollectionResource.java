@@ -23,6 +23,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParametrizedMethod;
 
 /**
  * Resource class used for when the resource needs to send a stream across REST.
@@ -45,8 +46,8 @@ public abstract class StreamBasedItemCollectionResource<T> extends AbstractItemC
     }
 
     @Override
-    public final ResourceMethod<Void, T> getGetItemMethod(String itemId) throws ResourceAccessException {
-        return createParameterlessMethod(getGetMethodSecurityRequirements(), Void.class, (data, client) -> {
+    public final ParametrizedResourceMethod<Void, T> getGetItemMethod() throws ResourceAccessException {
+        return createParametrizedMethod(getGetMethodSecurityRequirements(), Void.class, (data, itemId, client) -> {
             Optional<T> result = getDataSourceStream()
                     .filter(item -> itemMatchesId(itemId, item))
                     .findFirst();
@@ -18,6 +18,7 @@ package org.terasology.web.resources.connectLists;
 import org.terasology.engine.network.internal.ServerConnectListManager;
 import org.terasology.web.resources.base.AbstractItemCollectionResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ParametrizedResourceMethod;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.serverAdminManagement.PermissionType;
@@ -25,7 +26,7 @@ import org.terasology.web.serverAdminManagement.PermissionType;
 import java.util.Set;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
-import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParametrizedMethod;
 
 public class ConnectListResource extends AbstractItemCollectionResource {
 
@@ -50,9 +51,9 @@ public class ConnectListResource extends AbstractItemCollectionResource {
 
     // TODO: validate input (check that the input is in the form of a player id: xxxxxxxx-xxxx-xxxx-xxxx-xxxxxxxxxxxx) where x is an alphanumeric character
     @Override
-    protected ResourceMethod<Void, Void> getPostItemMethod(String itemId) throws ResourceAccessException {
-        return createVoidParameterlessMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.CONSOLE_USER_MANAGEMENT), Void.class,
-                (data, client) -> {
+    protected ParametrizedResourceMethod<Void, Void> getPostItemMethod() throws ResourceAccessException {
+        return createVoidParametrizedMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.CONSOLE_USER_MANAGEMENT), Void.class,
+                (data, itemId, client) -> {
                     if (typeOfList == ConnectListType.BLACKLIST) {
                         serverConnectListManager.addToBlacklist(itemId);
                     } else {
@@ -63,9 +64,9 @@ public class ConnectListResource extends AbstractItemCollectionResource {
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getDeleteItemMethod(String itemId) throws ResourceAccessException {
-        return createVoidParameterlessMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.CONSOLE_USER_MANAGEMENT), Void.class,
-                (data, client) -> {
+    protected ParametrizedResourceMethod<Void, Void> getDeleteItemMethod() throws ResourceAccessException {
+        return createVoidParametrizedMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.CONSOLE_USER_MANAGEMENT), Void.class,
+                (data, itemId, client) -> {
                     if (typeOfList == ConnectListType.BLACKLIST) {
                         serverConnectListManager.removeFromBlacklist(itemId);
                     } else {
@@ -43,6 +43,7 @@ import static org.terasology.web.resources.base.ResourceMethodFactory.createPara
  * This resource is used to access the in-game console and send commands to it.
  */
 @RegisterSystem
+@RequiresEngineThread
 public class ConsoleResource extends AbstractSimpleResource implements DefaultComponentSystem {
 
     @In
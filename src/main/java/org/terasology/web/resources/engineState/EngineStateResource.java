@@ -20,6 +20,7 @@ import org.terasology.engine.registry.In;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.RequiresEngineThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 import org.terasology.web.serverAdminManagement.PermissionType;
@@ -30,6 +31,7 @@ import static org.terasology.web.resources.base.ResourceMethodFactory.createVoid
 /**
  * This class determines what methods can be used to access the engine state.
  */
+@RequiresEngineThread
 public class EngineStateResource extends AbstractSimpleResource {
 
     @In
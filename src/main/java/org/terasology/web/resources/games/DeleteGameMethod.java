@@ -22,7 +22,7 @@ import org.terasology.engine.utilities.FilesUtil;
 import org.terasology.web.io.ActionResult;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
-import org.terasology.web.resources.base.ResourceMethodImpl;
+import org.terasology.web.resources.base.ParametrizedResourceMethod;
 import org.terasology.web.serverAdminManagement.PermissionType;
 
 import java.io.IOException;
@@ -30,21 +30,19 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 
 /**
- * {@link org.terasology.web.resources.base.ResourceMethod} used for deleting games.
+ * {@link ParametrizedResourceMethod} used for deleting games; the parameter is the name of the game.
  */
-public class DeleteGameMethod extends ResourceMethodImpl<Void, Void> {
+public class DeleteGameMethod extends ParametrizedResourceMethod<Void, Void> {
 
     private PathManager pathManager;
-    private String gameName;
 
-    public DeleteGameMethod(PathManager pathManager, String gameName) {
+    public DeleteGameMethod(PathManager pathManager) {
         super(Void.class, ClientSecurityRequirements.requireAdminPermission(PermissionType.DELETE_GAMES), null);
         this.pathManager = pathManager;
-        this.gameName = gameName;
     }
 
     @Override
-    public Void perform(Void data, Client client) throws ResourceAccessException {
+    public Void perform(Void data, String gameName, Client client) throws ResourceAccessException {
         Path gamePath = pathManager.getSavePath(gameName);
         if (!Files.isDirectory(gamePath)) {
             throw new ResourceAccessException(new ActionResult(ActionResult.Status.NOT_FOUND, "The specified path does not exist or isn't a valid savegame."));
@@ -34,7 +34,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidBackgroundMethod;
 
 /**
  * {@link org.terasology.web.resources.base.Resource} used for backing up games.
@@ -53,7 +53,8 @@ public class GamesBackupsResource extends AbstractSimpleResource {
 
     @Override
     protected ResourceMethod<Void, Void> getPostMethod(ResourcePath path) throws ResourceAccessException {
-        return createVoidParameterlessMethod(path, ClientSecurityRequirements.requireAdminPermission(PermissionType.CREATE_BACKUP_RENAME_GAMES), Void.class,
+        // copying a game can take a while, so it's done on a background thread
+        return createVoidBackgroundMethod(path, ClientSecurityRequirements.requireAdminPermission(PermissionType.CREATE_BACKUP_RENAME_GAMES), Void.class,
                 (data, client) -> performBackup());
     }
 
@@ -23,6 +23,7 @@ import org.terasology.engine.rendering.nui.layers.mainMenu.savedGames.GameInfo;
 import org.terasology.engine.rendering.nui.layers.mainMenu.savedGames.GameProvider;
 import org.terasology.web.EngineRunner;
 import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.ParametrizedResourceMethod;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.StreamBasedItemCollectionResource;
@@ -72,21 +73,27 @@ public class GamesResource extends StreamBasedItemCollectionResource<GameInfo> {
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getDeleteItemMethod(String itemId) throws ResourceAccessException {
-        return decorateMethodForExistingGame(itemId, new DeleteGameMethod(PathManager.getInstance(), itemId));
+    protected ParametrizedResourceMethod<Void, Void> getDeleteItemMethod() throws ResourceAccessException {
+        // deleting the files of a game can take a while, so it's done on a background thread
+        return decorateMethodForExistingGame(new DeleteGameMethod(PathManager.getInstance())).runInBackground();
     }
 
     @Override
-    protected ResourceMethod<NewGameMetadata, Void> getPatchItemMethod(String itemId) throws ResourceAccessException {
-        return decorateMethodForExistingGame(itemId, new PatchGameMethod(PathManager.getInstance(), itemId));
+    protected ParametrizedResourceMethod<NewGameMetadata, Void> getPatchItemMethod() throws ResourceAccessException {
+        return decorateMethodForExistingGame(new PatchGameMethod(PathManager.getInstance()));
     }
 
     private <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> decorateMethodWithNotifier(ResourceMethod<INTYPE, OUTTYPE> base) {
         return decorateMethod(base, () -> { }, this::notifyChangedForAllClients);
     }
 
-    private <INTYPE, OUTTYPE> ResourceMethod<INTYPE, OUTTYPE> decorateMethodForExistingGame(String gameName, ResourceMethod<INTYPE, OUTTYPE> base) {
-        return decorateMethod(base, () -> checkGameIsNotRunningOrLoading(gameName), this::notifyChangedForAllClients);
+    private <INTYPE, OUTTYPE> ParametrizedResourceMethod<INTYPE, OUTTYPE> decorateMethodForExistingGame(ParametrizedResourceMethod<INTYPE, OUTTYPE> base) {
+        return new ParametrizedResourceMethod<>(base.getInType(), base.getSecurityRequirements(), (data, gameName, client) -> {
+            checkGameIsNotRunningOrLoading(gameName);
+            OUTTYPE result = base.perform(data, gameName, client);
+            notifyChangedForAllClients();
+            return result;
+        });
     }
 
     private void checkGameIsNotRunningOrLoading(String gameName) throws ResourceAccessException {
@@ -21,7 +21,7 @@ import org.terasology.engine.network.Client;
 import org.terasology.web.io.ActionResult;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
-import org.terasology.web.resources.base.ResourceMethodImpl;
+import org.terasology.web.resources.base.ParametrizedResourceMethod;
 import org.terasology.web.serverAdminManagement.PermissionType;
 
 import java.io.IOException;
@@ -32,21 +32,19 @@ import static org.terasology.web.resources.InputCheckUtils.checkNotNullOrEmpty;
 import static org.terasology.web.resources.InputCheckUtils.checkNull;
 
 /**
- * {@link org.terasology.web.resources.base.ResourceMethod} used for renaming games.
+ * {@link ParametrizedResourceMethod} used for renaming games; the parameter is the current name of the game.
  */
-public class PatchGameMethod extends ResourceMethodImpl<NewGameMetadata, Void> {
+public class PatchGameMethod extends ParametrizedResourceMethod<NewGameMetadata, Void> {
 
     private PathManager pathManager;
-    private String gameName;
 
-    public PatchGameMethod(PathManager pathManager, String gameName) {
+    public PatchGameMethod(PathManager pathManager) {
         super(NewGameMetadata.class, ClientSecurityRequirements.requireAdminPermission(PermissionType.CREATE_BACKUP_RENAME_GAMES), null);
         this.pathManager = pathManager;
-        this.gameName = gameName;
     }
 
     @Override
-    public Void perform(NewGameMetadata data, Client client) throws ResourceAccessException {
+    public Void perform(NewGameMetadata data, String gameName, Client client) throws ResourceAccessException {
         checkNull(data.getSeed(), "It's not possible to change the seed of an existing game.");
         checkNull(data.getWorldGenerator(), "It's not possible to change the world generator of an existing game.");
         checkNull(data.getModules(), "It's not possible to change modules of an existing game"); // TODO: make it possible
@@ -40,7 +40,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
-import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidBackgroundMethod;
 
 public class ModuleInstallerResource extends AbstractSimpleResource {
 
@@ -60,7 +60,8 @@ public class ModuleInstallerResource extends AbstractSimpleResource {
 
     @Override
     protected ResourceMethod<Name[], Void> getPutMethod(ResourcePath path) throws ResourceAccessException {
-        return createVoidParameterlessMethod(path, ClientSecurityRequirements.requireAdminPermission(PermissionType.INSTALL_MODULES), Name[].class,
+        // updating the remote registry requires a download, so it's done on a background thread
+        return createVoidBackgroundMethod(path, ClientSecurityRequirements.requireAdminPermission(PermissionType.INSTALL_MODULES), Name[].class,
                 (data, client) -> installModules(data));
     }
 
@@ -26,6 +26,7 @@ import org.terasology.web.resources.DefaultComponentSystem;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.RequiresEngineThread;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 
@@ -36,6 +37,7 @@ import java.util.stream.StreamSupport;
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
 
 @RegisterSystem
+@RequiresEngineThread
 public class OnlinePlayersResource extends AbstractSimpleResource implements DefaultComponentSystem {
 
     @In
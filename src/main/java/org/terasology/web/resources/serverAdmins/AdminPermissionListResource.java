@@ -18,6 +18,7 @@ package org.terasology.web.resources.serverAdmins;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.serverAdminManagement.AdminPermissionManager;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.RequiresEngineThread;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
@@ -30,6 +31,7 @@ import static org.terasology.web.resources.base.ResourceMethodFactory.createPara
 /**
  * This resource is used to get a list of admin permissions.
  */
+@RequiresEngineThread
 public class AdminPermissionListResource extends AbstractSimpleResource {
 
     public AdminPermissionListResource() {
@@ -19,6 +19,7 @@ import org.terasology.web.resources.DefaultComponentSystem;
 import org.terasology.web.resources.base.AbstractItemCollectionResource;
 import org.terasology.web.serverAdminManagement.AdminPermissionManager;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.RequiresEngineThread;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.serverAdminManagement.IdPermissionPair;
@@ -30,6 +31,7 @@ import static org.terasology.web.resources.base.ResourceMethodFactory.createVoid
 /**
  * Resource used for getting/setting the permissions of a specific admin.
  */
+@RequiresEngineThread
 public class AdminPermissionResource extends AbstractItemCollectionResource implements DefaultComponentSystem {
 
     private String adminID;
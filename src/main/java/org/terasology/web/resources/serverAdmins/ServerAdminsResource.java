@@ -17,6 +17,8 @@ package org.terasology.web.resources.serverAdmins;
 
 import org.terasology.web.resources.base.AbstractItemCollectionResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ParametrizedResourceMethod;
+import org.terasology.web.resources.base.RequiresEngineThread;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.serverAdminManagement.PermissionType;
@@ -26,11 +28,14 @@ import java.util.Collections;
 import java.util.Set;
 
 import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
-import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParametrizedMethod;
 
 /**
- * Resource class used to get a list of server admins.
+ * Resource class used to get a list of server admins. Changing the admins or their permissions updates the permissions
+ * of the connected players, so the methods of this resource and of its {@link AdminPermissionResource}s are performed
+ * on the engine's thread.
  */
+@RequiresEngineThread
 public class ServerAdminsResource extends AbstractItemCollectionResource {
 
     public ServerAdminsResource() {
@@ -45,14 +50,14 @@ public class ServerAdminsResource extends AbstractItemCollectionResource {
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getPostItemMethod(String itemId) throws ResourceAccessException {
-        return createVoidParameterlessMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.ADMIN_MANAGEMENT), Void.class,
-                (data, client) -> ServerAdminsManager.getInstance().addAdmin(itemId));
+    protected ParametrizedResourceMethod<Void, Void> getPostItemMethod() throws ResourceAccessException {
+        return createVoidParametrizedMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.ADMIN_MANAGEMENT), Void.class,
+                (data, itemId, client) -> ServerAdminsManager.getInstance().addAdmin(itemId));
     }
 
     @Override
-    protected ResourceMethod<Void, Void> getDeleteItemMethod(String itemId) throws ResourceAccessException {
-        return createVoidParameterlessMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.ADMIN_MANAGEMENT), Void.class,
-                (data, client) -> ServerAdminsManager.getInstance().removeAdmin(itemId));
+    protected ParametrizedResourceMethod<Void, Void> getDeleteItemMethod() throws ResourceAccessException {
+        return createVoidParametrizedMethod(ClientSecurityRequirements.requireAdminPermission(PermissionType.ADMIN_MANAGEMENT), Void.class,
+                (data, itemId, client) -> ServerAdminsManager.getInstance().removeAdmin(itemId));
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.engine.utilities.Assets;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.block.BlockManager;
+import org.terasology.engine.world.block.tiles.BlockTile;
+import org.terasology.math.TeraMath;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Table of the average texture color of every registered block, indexed by block id.
+ * The colors are computed once per block family when the palette is rebuilt, so that rendering a map column
+ * is just an array lookup followed by the brightness adjustment for the column's height.
+ */
+public class BlockColorPalette {
+
+    private static final Logger logger = LoggerFactory.getLogger(BlockColorPalette.class);
+    private static final int UNKNOWN_COLOR = -1;
+    private static final int MISSING_TEXTURE_COLOR = 0x000000;
+    private static final double BRIGHTNESS_MIN = 0.85;
+    private static final double BLOCK_Y_BRIGHTNESS_CHANGE = 0.0015;
+
+    private final Map<ResourceUrn, Integer> familyColors = new HashMap<>();
+    private volatile int[] colorsById = new int[0];
+    private volatile int hash;
+
+    /**
+     * Discard all the cached colors and compute the colors of all the blocks currently registered in the given block manager.
+     * @param blockManager the block manager of the running game, or null if no game is running.
+     */
+    public synchronized void rebuild(BlockManager blockManager) {
+        familyColors.clear();
+        if (blockManager == null) {
+            colorsById = new int[0];
+            hash = 0;
+            return;
+        }
+        int[] newColors = new int[0];
+        for (Block block : blockManager.listRegisteredBlocks()) {
+            newColors = storeColor(newColors, block);
+        }
+        colorsById = newColors;
+        int newHash = 0;
+        for (Map.Entry<ResourceUrn, Integer> familyColor : familyColors.entrySet()) {
+            // independent of the iteration order, so that the same families and colors always have the same hash
+            newHash += familyColor.getKey().toString().hashCode() * 31 + familyColor.getValue();
+        }
+        hash = newHash;
+        logger.info("Computed map colors for {} block families", familyColors.size());
+    }
+
+    /**
+     * @return a hash of the colors computed by the last rebuild, which changes when the block families or their textures change.
+     */
+    public int getHash() {
+        return hash;
+    }
+
+    /**
+     * @param block the block to get the color of.
+     * @return the average color of the block's texture, in 0xRRGGBB format, without any brightness adjustment.
+     */
+    public int getBaseColor(Block block) {
+        int id = Short.toUnsignedInt(block.getId());
+        int[] colors = colorsById;
+        if (id < colors.length && colors[id] != UNKNOWN_COLOR) {
+            return colors[id];
+        }
+        // the block has been registered after the last rebuild
+        synchronized (this) {
+            colorsById = storeColor(colorsById, block);
+            return colorsById[id];
+        }
+    }
+
+    /**
+     * @param block the block to get the color of.
+     * @param blockY the y coordinate of the block.
+     * @return the color of the block as it should appear on the map at the specified height, in 0xRRGGBB format.
+     */
+    public int getColor(Block block, int blockY) {
+        return applyBrightness(getBaseColor(block), blockY);
+    }
+
+    private int[] storeColor(int[] colors, Block block) {
+        int id = Short.toUnsignedInt(block.getId());
+        int[] result = colors;
+        if (id >= result.length) {
+            int oldLength = result.length;
+            result = Arrays.copyOf(result, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(result, oldLength, result.length, UNKNOWN_COLOR);
+        }
+        result[id] = familyColors.computeIfAbsent(block.getURI().getBlockFamilyDefinitionUrn(), BlockColorPalette::computeFamilyColor);
+        return result;
+    }
+
+    private static int computeFamilyColor(ResourceUrn blockFamilyUrn) {
+        Optional<BlockTile> tile = Assets.get(blockFamilyUrn, BlockTile.class);
+        if (!tile.isPresent()) {
+            logger.warn("cannot find texture of block " + blockFamilyUrn.toString());
+            return MISSING_TEXTURE_COLOR;
+        }
+        return getAverageColor(tile.get().getImage());
+    }
+
+    /**
+     * Get the average color of an individual block's texture.
+     * @param image the texture of a single block.
+     * @return the average color of the texture in 0xRRGGBB format.
+     */
+    static int getAverageColor(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        int r = 0;
+        int g = 0;
+        int b = 0;
+        for (int pixel : pixels) {
+            r += (pixel >> 16) & 0xFF;
+            g += (pixel >> 8) & 0xFF;
+            b += pixel & 0xFF;
+        }
+        r /= pixels.length;
+        g /= pixels.length;
+        b /= pixels.length;
+        return (r << 16) | (g << 8) | b;
+    }
+
+    /**
+     * Adjust the brightness of a color depending on the height of the block, where a lower y-coordinate is darker.
+     * @param rgb the color to adjust, in 0xRRGGBB format.
+     * @param blockY the y coordinate of the block.
+     * @return the adjusted color in 0xRRGGBB format.
+     */
+    static int applyBrightness(int rgb, int blockY) {
+        double brightnessMultiplier = TeraMath.clamp(BRIGHTNESS_MIN + blockY * BLOCK_Y_BRIGHTNESS_CHANGE, BRIGHTNESS_MIN, 1);
+        int r = (int) (((rgb >> 16) & 0xFF) * brightnessMultiplier);
+        int g = (int) (((rgb >> 8) & 0xFF) * brightnessMultiplier);
+        int b = (int) ((rgb & 0xFF) * brightnessMultiplier);
+        return (r << 16) | (g << 8) | b;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3f;
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.world.RelevanceRegionComponent;
+import org.terasology.engine.world.chunks.Chunks;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps chunks loaded for the world map with a few reusable anchor entities, each one with a relevance region.
+ * An anchor stays in place while some renders use it, and for a while after the last one has finished, so that
+ * refreshing a map doesn't make its chunks unload and load again; idle anchors are moved to the newly requested areas.
+ */
+class ChunkAnchorPool {
+
+    private final EntityManager entityManager;
+    private final int maxAnchors;
+    private final long lingerMillis;
+    private final LongSupplier clock;
+    private final List<Anchor> anchors = new ArrayList<>();
+
+    /**
+     * An anchor entity, which keeps loaded the chunks within a distance of its center.
+     */
+    static final class Anchor {
+        private final EntityRef entity;
+        private final LocationComponent location;
+        private final RelevanceRegionComponent relevanceRegion;
+        private final Vector3i centerChunk = new Vector3i();
+        private final boolean pooled;
+        private int users;
+        private long idleSince;
+
+        private Anchor(EntityRef entity, LocationComponent location, RelevanceRegionComponent relevanceRegion, boolean pooled) {
+            this.entity = entity;
+            this.location = location;
+            this.relevanceRegion = relevanceRegion;
+            this.pooled = pooled;
+        }
+
+        EntityRef getEntity() {
+            return entity;
+        }
+
+        private boolean covers(Vector3ic otherCenterChunk, Vector3ic otherDistance) {
+            Vector3ic distance = relevanceRegion.distance;
+            return Math.abs(centerChunk.x() - otherCenterChunk.x()) + otherDistance.x() / 2 <= distance.x() / 2
+                    && Math.abs(centerChunk.y() - otherCenterChunk.y()) + otherDistance.y() / 2 <= distance.y() / 2
+                    && Math.abs(centerChunk.z() - otherCenterChunk.z()) + otherDistance.z() / 2 <= distance.z() / 2;
+        }
+    }
+
+    /**
+     * @param entityManager used to create and destroy the anchor entities.
+     * @param maxAnchors the maximum number of anchors which are reused; when they are all in use, temporary anchors are created.
+     * @param lingerMillis how long an anchor keeps its chunks loaded after the last render which used it has finished.
+     * @param clock the current time, in milliseconds.
+     */
+    ChunkAnchorPool(EntityManager entityManager, int maxAnchors, long lingerMillis, LongSupplier clock) {
+        this.entityManager = entityManager;
+        this.maxAnchors = maxAnchors;
+        this.lingerMillis = lingerMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Get an anchor which keeps loaded the chunks around an area of the map, until it's released.
+     * @param center the location of the block in the center of the area.
+     * @param distance the size of the region to keep loaded, in chunks (as in {@link RelevanceRegionComponent#distance}).
+     * @return an anchor already covering the area if there's one, otherwise an idle anchor moved to the area or a new anchor.
+     */
+    synchronized Anchor acquire(Vector3ic center, Vector3ic distance) {
+        Vector3i centerChunk = new Vector3i(Math.floorDiv(center.x(), Chunks.SIZE_X), Math.floorDiv(center.y(), Chunks.SIZE_Y),
+                Math.floorDiv(center.z(), Chunks.SIZE_Z));
+        Anchor idleAnchor = null;
+        // anchors are destroyed by the engine along with the other entities when the world is unloaded
+        anchors.removeIf((anchor) -> !anchor.entity.exists());
+        for (Anchor anchor : anchors) {
+            if (anchor.covers(centerChunk, distance)) {
+                anchor.users++;
+                return anchor;
+            }
+            if (anchor.users == 0 && (idleAnchor == null || anchor.idleSince < idleAnchor.idleSince)) {
+                idleAnchor = anchor;
+            }
+        }
+        if (idleAnchor != null && anchors.size() >= maxAnchors) {
+            // move the anchor which has been idle for the longest time
+            idleAnchor.location.setWorldPosition(new Vector3f(center));
+            idleAnchor.relevanceRegion.distance = new Vector3i(distance);
+            idleAnchor.entity.saveComponent(idleAnchor.location);
+            idleAnchor.entity.saveComponent(idleAnchor.relevanceRegion);
+            idleAnchor.centerChunk.set(centerChunk);
+            idleAnchor.users = 1;
+            return idleAnchor;
+        }
+        LocationComponent location = new LocationComponent();
+        location.setWorldPosition(new Vector3f(center));
+        RelevanceRegionComponent relevanceRegion = new RelevanceRegionComponent();
+        relevanceRegion.distance = new Vector3i(distance);
+        Anchor anchor = new Anchor(entityManager.create(location, relevanceRegion), location, relevanceRegion, anchors.size() < maxAnchors);
+        anchor.centerChunk.set(centerChunk);
+        anchor.users = 1;
+        if (anchor.pooled) {
+            anchors.add(anchor);
+        }
+        return anchor;
+    }
+
+    /**
+     * Signal that a render doesn't need the chunks of an anchor anymore.
+     */
+    synchronized void release(Anchor anchor) {
+        anchor.users--;
+        if (anchor.users == 0) {
+            if (anchor.pooled) {
+                anchor.idleSince = clock.getAsLong();
+            } else {
+                anchor.entity.destroy();
+            }
+        }
+    }
+
+    /**
+     * Destroy the anchors which have been idle for longer than the linger time, so that their chunks can be unloaded.
+     */
+    synchronized void destroyExpired() {
+        long now = clock.getAsLong();
+        Iterator<Anchor> iterator = anchors.iterator();
+        while (iterator.hasNext()) {
+            Anchor anchor = iterator.next();
+            if (anchor.users == 0 && now - anchor.idleSince >= lingerMillis) {
+                anchor.entity.destroy();
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized int getAnchorCount() {
+        return anchors.size();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3i;
+import org.joml.Vector3ic;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.chunks.Chunks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Tracks which chunks of the areas requested by world map renders are loaded, and completes a future
+ * for each area as soon as all of its chunks are available. Chunk loads are notified by {@link #onChunkLoaded(Vector3ic)},
+ * so nothing has to poll the world while waiting.
+ */
+class ChunkReadinessService {
+
+    private final WorldProvider worldProvider;
+    private final List<PendingArea> pendingAreas = new ArrayList<>();
+
+    ChunkReadinessService(WorldProvider worldProvider) {
+        this.worldProvider = worldProvider;
+    }
+
+    /**
+     * Get a future which completes when all the chunks containing the blocks of the specified area are loaded.
+     * The future can be cancelled to stop waiting.
+     * @param minX the minimum x block coordinate of the area.
+     * @param minZ the minimum z block coordinate of the area.
+     * @param maxX the maximum x block coordinate (exclusive) of the area.
+     * @param maxZ the maximum z block coordinate (exclusive) of the area.
+     * @param minY the minimum y block coordinate of the area.
+     * @param maxY the maximum y block coordinate (exclusive) of the area.
+     * @return a future which completes once the area is loaded.
+     */
+    CompletableFuture<Void> whenLoaded(int minX, int minZ, int maxX, int maxZ, int minY, int maxY) {
+        Set<Vector3ic> missingChunks = new HashSet<>();
+        for (int chunkY = Math.floorDiv(minY, Chunks.SIZE_Y); chunkY <= Math.floorDiv(maxY - 1, Chunks.SIZE_Y); ++chunkY) {
+            for (int chunkZ = Math.floorDiv(minZ, Chunks.SIZE_Z); chunkZ <= Math.floorDiv(maxZ - 1, Chunks.SIZE_Z); ++chunkZ) {
+                for (int chunkX = Math.floorDiv(minX, Chunks.SIZE_X); chunkX <= Math.floorDiv(maxX - 1, Chunks.SIZE_X); ++chunkX) {
+                    missingChunks.add(new Vector3i(chunkX, chunkY, chunkZ));
+                }
+            }
+        }
+        PendingArea area = new PendingArea(missingChunks);
+        synchronized (this) {
+            // checked while holding the lock, so that a chunk loaded meanwhile can't be missed
+            missingChunks.removeIf(this::isChunkLoaded);
+            if (missingChunks.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            pendingAreas.add(area);
+        }
+        area.future.whenComplete((result, exception) -> removePendingArea(area));
+        return area.future;
+    }
+
+    /**
+     * Must be called whenever a chunk is loaded.
+     * @param chunkPosition the position of the loaded chunk, in chunk coordinates.
+     */
+    void onChunkLoaded(Vector3ic chunkPosition) {
+        Vector3ic loadedChunk = new Vector3i(chunkPosition);
+        List<PendingArea> completedAreas = new ArrayList<>();
+        synchronized (this) {
+            for (PendingArea area : pendingAreas) {
+                area.missingChunks.remove(loadedChunk);
+                if (area.missingChunks.isEmpty()) {
+                    completedAreas.add(area);
+                }
+            }
+            pendingAreas.removeAll(completedAreas);
+        }
+        // completed outside of the lock, since the dependent actions may take a while
+        completedAreas.forEach((area) -> area.future.complete(null));
+    }
+
+    synchronized int getPendingAreaCount() {
+        return pendingAreas.size();
+    }
+
+    private synchronized void removePendingArea(PendingArea area) {
+        pendingAreas.remove(area);
+    }
+
+    private boolean isChunkLoaded(Vector3ic chunkPosition) {
+        return worldProvider.isBlockRelevant(chunkPosition.x() * Chunks.SIZE_X, chunkPosition.y() * Chunks.SIZE_Y, chunkPosition.z() * Chunks.SIZE_Z);
+    }
+
+    private static final class PendingArea {
+        private final Set<Vector3ic> missingChunks;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingArea(Set<Vector3ic> missingChunks) {
+            this.missingChunks = missingChunks;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records when each tile column was last invalidated, so that a tile which started rendering before the blocks of its column
+ * changed can be recognized and discarded, while the tiles of the other columns are kept.
+ * This class is not thread safe; it's guarded by the lock of its owner.
+ */
+class MapColumnInvalidations {
+
+    // every invalidation records a stamp for each zoom level, so this bounds the memory used by about 9000 changed columns
+    private static final int MAX_RECORDED_COLUMNS = 1 << 16;
+
+    private final Map<Long, Long> stamps = new HashMap<>();
+    private long invalidationCount;
+    private long forgottenStamp;
+
+    /**
+     * @return the stamp to take before a tile starts rendering, and to pass later to {@link #isInvalidatedSince(MapTileKey, long)}.
+     */
+    long getStamp() {
+        return invalidationCount;
+    }
+
+    /**
+     * @return the stamp of the last change of the column of the specified tile; the columns which haven't changed, or whose changes
+     * have been forgotten, have the stamp of when they were forgotten (or the first one).
+     */
+    long getColumnStamp(MapTileKey key) {
+        return stamps.getOrDefault(key.getColumn(), forgottenStamp);
+    }
+
+    /**
+     * Make sure that the stamps of all the columns, including the ones which haven't changed, are greater than the specified one.
+     */
+    void advanceBeyond(long stamp) {
+        if (invalidationCount <= stamp) {
+            stamps.clear();
+            invalidationCount = stamp + 1;
+            forgottenStamp = invalidationCount;
+        }
+    }
+
+    /**
+     * Record that the specified chunk column has changed, which invalidates the tiles of every zoom level which cover it.
+     */
+    void invalidate(int tileX, int tileZ) {
+        if (stamps.size() > MAX_RECORDED_COLUMNS - MapTileKey.MAX_LEVEL - 1) {
+            // the forgotten columns are considered changed now, so only the tiles which are being rendered are affected
+            stamps.clear();
+            forgottenStamp = invalidationCount;
+        }
+        invalidationCount++;
+        for (int level = 0; level <= MapTileKey.MAX_LEVEL; ++level) {
+            // shifting rounds towards negative infinity, like the tile coordinates
+            stamps.put(MapTileKey.columnOf(tileX >> level, tileZ >> level, level), invalidationCount);
+        }
+    }
+
+    /**
+     * @return whether the column of the specified tile has been invalidated after the stamp was taken.
+     */
+    boolean isInvalidatedSince(MapTileKey key, long stamp) {
+        return stamps.getOrDefault(key.getColumn(), forgottenStamp) > stamp;
+    }
+}
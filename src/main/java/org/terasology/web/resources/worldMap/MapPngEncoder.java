@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes map images as png. Since a map contains few distinct colors, it's encoded as an 8-bit indexed image when possible
+ * (at most 256 colors), and as a 24-bit RGB image otherwise. Each block of the map is a square of pixels with the same color,
+ * so all the rows of a block after the first one are equal to the previous row, and are encoded with the "up" filter,
+ * which turns them into zeros. The buffers are reused by the following encodings in the same thread.
+ */
+class MapPngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int MAX_PALETTE_SIZE = 256;
+    private static final byte COLOR_TYPE_RGB = 2;
+    private static final byte COLOR_TYPE_INDEXED = 3;
+    private static final byte FILTER_NONE = 0;
+    private static final byte FILTER_SUB = 1;
+    private static final byte FILTER_UP = 2;
+    // open addressing table used to build the palette; twice the maximum palette size keeps the probe sequences short
+    private static final int PALETTE_TABLE_SIZE = MAX_PALETTE_SIZE * 2;
+    private static final int EMPTY_SLOT = -1;
+
+    private final int compressionLevel;
+    private final ThreadLocal<Buffers> buffers;
+
+    private static final class Buffers {
+        private final Deflater deflater;
+        private final ByteArrayOutputStream imageData = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final CRC32 crc = new CRC32();
+        private final int[] paletteColors = new int[PALETTE_TABLE_SIZE];
+        private final int[] paletteIndices = new int[PALETTE_TABLE_SIZE];
+        private final int[] palette = new int[MAX_PALETTE_SIZE];
+        private byte[] row = new byte[0];
+        private byte[] zeroRow = new byte[0];
+
+        private Buffers(int compressionLevel) {
+            deflater = new Deflater(compressionLevel);
+        }
+
+        private byte[] getRow(int size) {
+            if (row.length < size) {
+                row = new byte[size];
+                zeroRow = new byte[size];
+            }
+            return row;
+        }
+    }
+
+    /**
+     * @param compressionLevel the deflate level, from 0 (no compression, fastest) to 9 (best compression, slowest).
+     */
+    MapPngEncoder(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+        this.buffers = ThreadLocal.withInitial(() -> new Buffers(this.compressionLevel));
+    }
+
+    /**
+     * Encode the image of a map.
+     * @param colors the colors of the blocks in 0xRRGGBB format, row by row (index = z * mapBlockWidth + x).
+     * @param mapBlockWidth the width of the map, in blocks.
+     * @param mapBlockLength the length of the map, in blocks.
+     * @param pixelsPerBlock the size, in pixels, of the square which represents a block in the image.
+     * @return the png image.
+     */
+    byte[] encode(int[] colors, int mapBlockWidth, int mapBlockLength, int pixelsPerBlock) throws IOException {
+        Buffers buf = buffers.get();
+        int width = mapBlockWidth * pixelsPerBlock;
+        int height = mapBlockLength * pixelsPerBlock;
+        int paletteSize = buildPalette(buf, colors);
+        boolean indexed = paletteSize <= MAX_PALETTE_SIZE;
+        int bytesPerPixel = indexed ? 1 : 3;
+        int rowSize = width * bytesPerPixel;
+        byte[] row = buf.getRow(rowSize);
+
+        buf.imageData.reset();
+        buf.deflater.reset();
+        // the deflater is owned by the buffers, so closing the stream doesn't end it
+        try (DeflaterOutputStream deflaterStream = new DeflaterOutputStream(buf.imageData, buf.deflater, rowSize + 1)) {
+            for (int z = 0; z < mapBlockLength; ++z) {
+                fillRow(buf, row, colors, z * mapBlockWidth, mapBlockWidth, pixelsPerBlock, indexed);
+                deflaterStream.write(indexed ? FILTER_NONE : FILTER_SUB);
+                deflaterStream.write(row, 0, rowSize);
+                for (int repeat = 1; repeat < pixelsPerBlock; ++repeat) {
+                    deflaterStream.write(FILTER_UP);
+                    deflaterStream.write(buf.zeroRow, 0, rowSize);
+                }
+            }
+        }
+
+        buf.output.reset();
+        buf.output.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(width);
+        headerData.writeInt(height);
+        headerData.writeByte(8);
+        headerData.writeByte(indexed ? COLOR_TYPE_INDEXED : COLOR_TYPE_RGB);
+        headerData.writeByte(0); // deflate compression
+        headerData.writeByte(0); // adaptive filtering
+        headerData.writeByte(0); // no interlacing
+        writeChunk(buf, "IHDR", header.toByteArray(), header.size());
+        if (indexed) {
+            byte[] palette = new byte[paletteSize * 3];
+            for (int i = 0; i < paletteSize; ++i) {
+                palette[i * 3] = (byte) (buf.palette[i] >> 16);
+                palette[i * 3 + 1] = (byte) (buf.palette[i] >> 8);
+                palette[i * 3 + 2] = (byte) buf.palette[i];
+            }
+            writeChunk(buf, "PLTE", palette, palette.length);
+        }
+        writeChunk(buf, "IDAT", buf.imageData.toByteArray(), buf.imageData.size());
+        writeChunk(buf, "IEND", new byte[0], 0);
+        return buf.output.toByteArray();
+    }
+
+    /**
+     * Collect the distinct colors of the image in the palette, stopping when there are too many.
+     * @return the number of distinct colors, or a number greater than the maximum palette size if there are too many.
+     */
+    private static int buildPalette(Buffers buf, int[] colors) {
+        Arrays.fill(buf.paletteColors, EMPTY_SLOT);
+        int size = 0;
+        for (int color : colors) {
+            int rgb = color & 0xFFFFFF;
+            int slot = findSlot(buf, rgb);
+            if (buf.paletteColors[slot] == EMPTY_SLOT) {
+                if (size == MAX_PALETTE_SIZE) {
+                    return size + 1;
+                }
+                buf.paletteColors[slot] = rgb;
+                buf.paletteIndices[slot] = size;
+                buf.palette[size++] = rgb;
+            }
+        }
+        return size;
+    }
+
+    private static int findSlot(Buffers buf, int rgb) {
+        int slot = (rgb * 0x9E3779B1 >>> 23) & (PALETTE_TABLE_SIZE - 1);
+        while (buf.paletteColors[slot] != EMPTY_SLOT && buf.paletteColors[slot] != rgb) {
+            slot = (slot + 1) & (PALETTE_TABLE_SIZE - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Fill a row of pixels from a row of blocks; RGB rows are written already filtered with the "sub" filter, so that
+     * the pixels of a block after the first one are zeros.
+     */
+    private static void fillRow(Buffers buf, byte[] row, int[] colors, int offset, int mapBlockWidth, int pixelsPerBlock, boolean indexed) {
+        int position = 0;
+        int previous = 0;
+        for (int x = 0; x < mapBlockWidth; ++x) {
+            int rgb = colors[offset + x] & 0xFFFFFF;
+            if (indexed) {
+                byte index = (byte) buf.paletteIndices[findSlot(buf, rgb)];
+                Arrays.fill(row, position, position + pixelsPerBlock, index);
+                position += pixelsPerBlock;
+            } else {
+                row[position++] = (byte) ((rgb >> 16) - (previous >> 16));
+                row[position++] = (byte) (((rgb >> 8) & 0xFF) - ((previous >> 8) & 0xFF));
+                row[position++] = (byte) ((rgb & 0xFF) - (previous & 0xFF));
+                Arrays.fill(row, position, position + (pixelsPerBlock - 1) * 3, (byte) 0);
+                position += (pixelsPerBlock - 1) * 3;
+                previous = rgb;
+            }
+        }
+    }
+
+    private static void writeChunk(Buffers buf, String type, byte[] data, int length) throws IOException {
+        OutputStream output = buf.output;
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        writeInt(output, length);
+        output.write(typeBytes);
+        output.write(data, 0, length);
+        buf.crc.reset();
+        buf.crc.update(typeBytes);
+        buf.crc.update(data, 0, length);
+        writeInt(output, (int) buf.crc.getValue());
+    }
+
+    private static void writeInt(OutputStream output, int value) throws IOException {
+        output.write(value >>> 24);
+        output.write(value >>> 16);
+        output.write(value >>> 8);
+        output.write(value);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3fc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Decides when and which tiles are rendered in the background, so that the map around the players and the spawn point
+ * is already available when a client requests it. Pre-rendering only happens when the engine has time to spare:
+ * it pauses while the average frame time is above the configured limit.
+ */
+class MapPreRenderer {
+
+    private static final float SCAN_INTERVAL_SECONDS = 1;
+    // weight of the last frame in the average frame time
+    private static final float FRAME_TIME_SMOOTHING = 0.1f;
+
+    private final int radius;
+    private final float maxFrameSeconds;
+    private final int maxTilesPerBatch;
+    private float averageFrameSeconds;
+    private float secondsSinceLastScan = SCAN_INTERVAL_SECONDS;
+
+    /**
+     * @param radius the radius, in tiles, of the square area kept rendered around each point of interest.
+     * @param maxFrameSeconds the average frame time above which the pre-rendering pauses.
+     * @param maxTilesPerBatch the maximum number of tiles selected at a time.
+     */
+    MapPreRenderer(int radius, float maxFrameSeconds, int maxTilesPerBatch) {
+        this.radius = radius;
+        this.maxFrameSeconds = maxFrameSeconds;
+        this.maxTilesPerBatch = maxTilesPerBatch;
+    }
+
+    /**
+     * Record the duration of an engine frame.
+     * @param delta the frame time, in seconds.
+     */
+    void onFrame(float delta) {
+        averageFrameSeconds += (delta - averageFrameSeconds) * FRAME_TIME_SMOOTHING;
+        secondsSinceLastScan += delta;
+    }
+
+    /**
+     * @return whether the engine isn't under load and enough time has passed since the last scan for missing tiles.
+     */
+    boolean isScanDue() {
+        return radius > 0 && averageFrameSeconds <= maxFrameSeconds && secondsSinceLastScan >= SCAN_INTERVAL_SECONDS;
+    }
+
+    /**
+     * Select the next tiles to render, closest to the points of interest first.
+     * @param pointsOfInterest the positions around which the tiles must be rendered.
+     * @param needsRendering tells which tiles are missing and can be rendered.
+     * @return up to maxTilesPerBatch keys of surface tiles of level 0.
+     */
+    List<MapTileKey> selectTiles(Collection<? extends Vector3fc> pointsOfInterest, Predicate<MapTileKey> needsRendering) {
+        secondsSinceLastScan = 0;
+        Set<MapTileKey> selected = new LinkedHashSet<>();
+        for (int distance = 0; distance <= radius; ++distance) {
+            for (Vector3fc point : pointsOfInterest) {
+                int centerX = MapTileKey.toTileCoordinate((int) Math.floor(point.x()));
+                int centerZ = MapTileKey.toTileCoordinate((int) Math.floor(point.z()));
+                for (int tileZ = centerZ - distance; tileZ <= centerZ + distance; ++tileZ) {
+                    // only the border of the square at the current distance, since the inner squares were visited before
+                    int step = tileZ == centerZ - distance || tileZ == centerZ + distance ? 1 : Math.max(1, 2 * distance);
+                    for (int tileX = centerX - distance; tileX <= centerX + distance; tileX += step) {
+                        MapTileKey key = new MapTileKey(tileX, tileZ, MapTileKey.SURFACE);
+                        if (!selected.contains(key) && needsRendering.test(key)) {
+                            selected.add(key);
+                            if (selected.size() >= maxTilesPerBatch) {
+                                return new ArrayList<>(selected);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(selected);
+    }
+}
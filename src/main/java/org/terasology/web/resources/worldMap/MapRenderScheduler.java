@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the world map requests with a bounded concurrency, queueing the ones which can't start yet (up to a limit).
+ * Requests with the same key which are queued or running at the same time are coalesced, so that all their callers
+ * share the same computation. A job only starts its work and returns a stage, and it keeps its slot until the stage completes,
+ * so no thread is blocked while the job runs.
+ */
+class MapRenderScheduler {
+
+    private final Executor executor;
+    private final int maxRunningJobs;
+    private final int maxQueuedJobs;
+    private final Deque<Job<?>> queue = new ArrayDeque<>();
+    private final Map<Object, Job<?>> jobsByKey = new HashMap<>();
+    private int runningJobs;
+
+    private static final class Job<T> {
+        private final Object key;
+        private final Callable<? extends CompletionStage<T>> computation;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final List<IntConsumer> queuePositionListeners = new ArrayList<>();
+
+        private Job(Object key, Callable<? extends CompletionStage<T>> computation) {
+            this.key = key;
+            this.computation = computation;
+        }
+
+        private void notifyQueuePosition(int position) {
+            queuePositionListeners.forEach((listener) -> listener.accept(position));
+        }
+    }
+
+    /**
+     * @param executor the executor where the jobs are started.
+     * @param maxRunningJobs the maximum number of jobs which run at the same time.
+     * @param maxQueuedJobs the maximum number of jobs waiting to start; further jobs are rejected.
+     */
+    MapRenderScheduler(Executor executor, int maxRunningJobs, int maxQueuedJobs) {
+        this.executor = executor;
+        this.maxRunningJobs = maxRunningJobs;
+        this.maxQueuedJobs = maxQueuedJobs;
+    }
+
+    /**
+     * Schedule a job, or join the queued or running job with the same key.
+     * @param key identifies the result of the job: jobs with equal keys must compute equivalent results.
+     * @param computation starts the job, and returns a stage which completes with its result.
+     * @param queuePositionListener if the job has to wait, notified with its position in the queue (1 for the next job to start)
+     *                              whenever it changes, and with 0 when the job starts; it's called while holding the lock
+     *                              of the scheduler, so it must not block.
+     * @return a future which is completed with the result of the job.
+     * @throws ResourceAccessException if the queue is full.
+     */
+    @SuppressWarnings("unchecked")
+    synchronized <T> CompletableFuture<T> submit(Object key, Callable<? extends CompletionStage<T>> computation, IntConsumer queuePositionListener)
+            throws ResourceAccessException {
+        Job<T> job = (Job<T>) jobsByKey.get(key);
+        if (job != null) {
+            job.queuePositionListeners.add(queuePositionListener);
+            int position = getQueuePosition(job);
+            if (position > 0) {
+                queuePositionListener.accept(position);
+            }
+            return job.result;
+        }
+        if (runningJobs >= maxRunningJobs && queue.size() >= maxQueuedJobs) {
+            throw new ResourceAccessException(new ActionResult(ActionResult.Status.SERVICE_UNAVAILABLE,
+                    "Too many world map requests are pending, please retry later."));
+        }
+        job = new Job<>(key, computation);
+        job.queuePositionListeners.add(queuePositionListener);
+        jobsByKey.put(key, job);
+        if (runningJobs < maxRunningJobs) {
+            start(job);
+        } else {
+            queue.add(job);
+            job.notifyQueuePosition(queue.size());
+        }
+        return job.result;
+    }
+
+    synchronized int getQueuedJobCount() {
+        return queue.size();
+    }
+
+    synchronized int getRunningJobCount() {
+        return runningJobs;
+    }
+
+    private int getQueuePosition(Job<?> job) {
+        int position = 1;
+        for (Job<?> queuedJob : queue) {
+            if (queuedJob == job) {
+                return position;
+            }
+            position++;
+        }
+        return 0;
+    }
+
+    private <T> void start(Job<T> job) {
+        runningJobs++;
+        executor.execute(() -> {
+            try {
+                job.computation.call().whenComplete((result, failure) -> finish(job, result, failure));
+            } catch (Exception | Error ex) {
+                finish(job, null, ex);
+            }
+        });
+    }
+
+    private <T> void finish(Job<T> job, T result, Throwable failure) {
+        if (failure != null) {
+            job.result.completeExceptionally(failure);
+        } else {
+            job.result.complete(result);
+        }
+        onJobFinished(job);
+    }
+
+    private synchronized void onJobFinished(Job<?> job) {
+        runningJobs--;
+        jobsByKey.remove(job.key, job);
+        Job<?> next = queue.poll();
+        if (next != null) {
+            start(next);
+            next.notifyQueuePosition(0);
+            int position = 1;
+            for (Job<?> queuedJob : queue) {
+                queuedJob.notifyQueuePosition(position++);
+            }
+        }
+    }
+}
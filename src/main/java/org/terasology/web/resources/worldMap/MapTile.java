@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.terasology.engine.world.chunks.Chunks;
+
+/**
+ * The rendered colors of a square area of the world map which covers exactly one chunk column.
+ * Tiles are immutable; when the blocks they show change, they are discarded and rendered again.
+ */
+public final class MapTile {
+
+    /**
+     * Width and length of a tile, in blocks. Chunks are square on the horizontal plane, so a tile matches a chunk column.
+     */
+    public static final int SIZE = Chunks.SIZE_X;
+
+    private final MapTileKey key;
+    private final int[] colors;
+    private final boolean complete;
+    private final long columnStamp;
+    private final int paletteHash;
+
+    /**
+     * @param key the key of this tile.
+     * @param colors the colors of the blocks in 0xRRGGBB format, row by row (index = localZ * SIZE + localX).
+     * @param complete false if some blocks of the tile were not loaded when it was rendered.
+     * @param columnStamp the modification stamp of the tile's column when the tile started rendering.
+     * @param paletteHash the hash of the {@link BlockColorPalette} the tile was rendered with.
+     */
+    public MapTile(MapTileKey key, int[] colors, boolean complete, long columnStamp, int paletteHash) {
+        this.key = key;
+        this.colors = colors;
+        this.complete = complete;
+        this.columnStamp = columnStamp;
+        this.paletteHash = paletteHash;
+    }
+
+    public MapTileKey getKey() {
+        return key;
+    }
+
+    public int getColor(int localX, int localZ) {
+        return colors[localZ * SIZE + localX];
+    }
+
+    /**
+     * @return whether all the blocks of the tile were loaded when it was rendered; incomplete tiles must not be cached.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the modification stamp of the tile's column when the tile started rendering; it changes with the blocks of the column.
+     */
+    public long getColumnStamp() {
+        return columnStamp;
+    }
+
+    public int getPaletteHash() {
+        return paletteHash;
+    }
+
+    /**
+     * @return a number which changes when the blocks of the tile's column or the colors of the palette change, and stays the same
+     * when an unchanged tile is rendered again.
+     */
+    public long getVersion() {
+        return columnStamp * 31 + paletteHash;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded cache of rendered {@link MapTile}s; when full, the least recently used tile is evicted.
+ * All the methods are synchronized, since the cache is accessed both by request threads and by the engine's event handlers.
+ */
+public class MapTileCache {
+
+    private final int capacity;
+    private final Map<MapTileKey, MapTile> tiles;
+    private final Map<Long, Set<MapTileKey>> keysByColumn = new HashMap<>();
+    private final MapColumnInvalidations invalidations = new MapColumnInvalidations();
+
+    public MapTileCache(int capacity) {
+        this.capacity = capacity;
+        this.tiles = new LinkedHashMap<MapTileKey, MapTile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MapTileKey, MapTile> eldest) {
+                if (size() > MapTileCache.this.capacity) {
+                    removeFromColumnIndex(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized MapTile get(MapTileKey key) {
+        return tiles.get(key);
+    }
+
+    public synchronized void put(MapTile tile) {
+        MapTileKey key = tile.getKey();
+        keysByColumn.computeIfAbsent(key.getColumn(), (column) -> new HashSet<>()).add(key);
+        tiles.put(key, tile);
+    }
+
+    /**
+     * Cache a tile, unless the column it covers has been invalidated after the tile started rendering (in which case
+     * the tile may show outdated blocks); the changes of the other columns don't matter.
+     * @param tile the tile to cache.
+     * @param invalidationStamp the value returned by {@link #getInvalidationCount()} before the tile started rendering.
+     */
+    public synchronized void putIfNotInvalidatedSince(MapTile tile, long invalidationStamp) {
+        if (!invalidations.isInvalidatedSince(tile.getKey(), invalidationStamp)) {
+            put(tile);
+        }
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidations.getStamp();
+    }
+
+    /**
+     * @return the modification stamp of the column of the specified tile, which must be taken after {@link #getInvalidationCount()}
+     * and before the tile starts rendering.
+     */
+    public synchronized long getColumnStamp(MapTileKey key) {
+        return invalidations.getColumnStamp(key);
+    }
+
+    /**
+     * Make sure that the modification stamps of all the columns are greater than the specified one.
+     */
+    public synchronized void advanceColumnStamps(long stamp) {
+        invalidations.advanceBeyond(stamp);
+    }
+
+    /**
+     * Discard all the cached tiles, in every mode and zoom level, which cover the specified chunk column.
+     */
+    public synchronized void invalidateColumn(int tileX, int tileZ) {
+        invalidations.invalidate(tileX, tileZ);
+        for (int level = 0; level <= MapTileKey.MAX_LEVEL; ++level) {
+            // shifting rounds towards negative infinity, like the tile coordinates
+            Set<MapTileKey> keys = keysByColumn.remove(MapTileKey.columnOf(tileX >> level, tileZ >> level, level));
+            if (keys != null) {
+                keys.forEach(tiles::remove);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        tiles.clear();
+        keysByColumn.clear();
+    }
+
+    public synchronized int size() {
+        return tiles.size();
+    }
+
+    private void removeFromColumnIndex(MapTileKey key) {
+        Set<MapTileKey> keys = keysByColumn.get(key.getColumn());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByColumn.remove(key.getColumn());
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+/**
+ * Identifies a {@link MapTile}: its zoom level, its position and the height at which the blocks are sampled.
+ * At level 0 a tile covers a chunk column, with one pixel per block; a tile at level n covers the area of 2x2 tiles
+ * of level n - 1, downsampled to the same size.
+ */
+public final class MapTileKey {
+
+    /**
+     * Value of the y coordinate for tiles which show the topmost visible block of each column.
+     */
+    public static final int SURFACE = Integer.MIN_VALUE;
+
+    /**
+     * The highest zoom level, where a pixel shows the average color of 2^MAX_LEVEL x 2^MAX_LEVEL blocks.
+     */
+    public static final int MAX_LEVEL = 6;
+
+    private final int tileX;
+    private final int tileZ;
+    private final int blockY;
+    private final int level;
+
+    public MapTileKey(int tileX, int tileZ, int blockY, int level) {
+        this.tileX = tileX;
+        this.tileZ = tileZ;
+        this.blockY = blockY;
+        this.level = level;
+    }
+
+    public MapTileKey(int tileX, int tileZ, int blockY) {
+        this(tileX, tileZ, blockY, 0);
+    }
+
+    /**
+     * @param blockCoordinate a x or z block coordinate (or pixel coordinate, for levels other than 0).
+     * @return the x or z coordinate of the tile which contains the given coordinate.
+     */
+    public static int toTileCoordinate(int blockCoordinate) {
+        return Math.floorDiv(blockCoordinate, MapTile.SIZE);
+    }
+
+    /**
+     * @return a value which identifies the tile column (i.e. the tiles of level 0 with the same x and z coordinates in all modes).
+     */
+    static long columnOf(int tileX, int tileZ) {
+        return columnOf(tileX, tileZ, 0);
+    }
+
+    /**
+     * @return a value which identifies the tile column of the given level (i.e. the tiles of that level with the same x and z
+     * coordinates in all modes).
+     */
+    static long columnOf(int tileX, int tileZ, int level) {
+        // tile coordinates fit in 28 bits, since block coordinates are ints and tiles are 32 blocks wide
+        return ((long) level << 56) | ((tileX & 0xFFFFFFFL) << 28) | (tileZ & 0xFFFFFFFL);
+    }
+
+    public int getTileX() {
+        return tileX;
+    }
+
+    public int getTileZ() {
+        return tileZ;
+    }
+
+    public int getBlockY() {
+        return blockY;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isSurface() {
+        return blockY == SURFACE;
+    }
+
+    public int getMinBlockX() {
+        return (tileX * MapTile.SIZE) << level;
+    }
+
+    public int getMinBlockZ() {
+        return (tileZ * MapTile.SIZE) << level;
+    }
+
+    /**
+     * @return the minimum x coordinate of the tile in the pixel space of its level, where a pixel covers 2^level blocks.
+     */
+    public int getMinPixelX() {
+        return tileX * MapTile.SIZE;
+    }
+
+    /**
+     * @return the minimum z coordinate of the tile in the pixel space of its level, where a pixel covers 2^level blocks.
+     */
+    public int getMinPixelZ() {
+        return tileZ * MapTile.SIZE;
+    }
+
+    /**
+     * @return the keys of the 4 tiles of the level below which are downsampled to make this tile, in row order.
+     */
+    public MapTileKey[] getChildren() {
+        return new MapTileKey[] {
+            new MapTileKey(tileX * 2, tileZ * 2, blockY, level - 1),
+            new MapTileKey(tileX * 2 + 1, tileZ * 2, blockY, level - 1),
+            new MapTileKey(tileX * 2, tileZ * 2 + 1, blockY, level - 1),
+            new MapTileKey(tileX * 2 + 1, tileZ * 2 + 1, blockY, level - 1)
+        };
+    }
+
+    long getColumn() {
+        return columnOf(tileX, tileZ, level);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MapTileKey) {
+            MapTileKey other = (MapTileKey) obj;
+            return tileX == other.tileX && tileZ == other.tileZ && blockY == other.blockY && level == other.level;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((tileX * 31 + tileZ) * 31 + blockY) * 31 + level;
+    }
+
+    @Override
+    public String toString() {
+        return "MapTileKey{" + tileX + ", " + tileZ + ", " + (isSurface() ? "surface" : blockY) + ", level " + level + "}";
+    }
+}
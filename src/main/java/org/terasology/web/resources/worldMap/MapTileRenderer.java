@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.block.BlockManager;
+
+/**
+ * Renders single {@link MapTile}s by sampling the blocks of the world.
+ */
+class MapTileRenderer {
+
+    static final int BLOCK_Y_DEFAULT = 40;
+    private static final int UNLOADED_COLOR = 0x000000;
+
+    private final WorldProvider worldProvider;
+    private final BlockColorPalette palette;
+    private final SurfaceHeightmap heightmap;
+
+    MapTileRenderer(WorldProvider worldProvider, BlockColorPalette palette, SurfaceHeightmap heightmap) {
+        this.worldProvider = worldProvider;
+        this.palette = palette;
+        this.heightmap = heightmap;
+    }
+
+    /**
+     * Render a tile. The blocks which aren't loaded are rendered black, in which case the resulting tile is marked as incomplete.
+     * @param key the tile to render.
+     * @param columnStamp the modification stamp of the tile's column, taken before the rendering starts.
+     * @return the rendered tile.
+     */
+    MapTile render(MapTileKey key, long columnStamp) {
+        int[] colors = new int[MapTile.SIZE * MapTile.SIZE];
+        boolean complete = true;
+        int blockY = key.isSurface() ? BLOCK_Y_DEFAULT : key.getBlockY();
+        for (int localZ = 0; localZ < MapTile.SIZE; ++localZ) {
+            int z = key.getMinBlockZ() + localZ;
+            for (int localX = 0; localX < MapTile.SIZE; ++localX) {
+                int x = key.getMinBlockX() + localX;
+                int indexedY = key.isSurface() ? heightmap.getSurfaceY(x, z) : SurfaceHeightmap.UNKNOWN_HEIGHT;
+                Block block;
+                if (indexedY != SurfaceHeightmap.UNKNOWN_HEIGHT) {
+                    blockY = indexedY;
+                    block = worldProvider.getBlock(x, blockY, z);
+                } else {
+                    // the column isn't indexed (e.g. its chunks were loaded before the resource was registered), so scan it
+                    block = worldProvider.getBlock(x, blockY, z);
+                    if (!isUnloaded(block) && key.isSurface()) {
+                        blockY = getSurfaceY(x, blockY, z);
+                        block = worldProvider.getBlock(x, blockY, z);
+                    }
+                }
+                if (isUnloaded(block)) {
+                    colors[localZ * MapTile.SIZE + localX] = UNLOADED_COLOR;
+                    complete = false;
+                } else {
+                    colors[localZ * MapTile.SIZE + localX] = palette.getColor(block, blockY);
+                }
+            }
+        }
+        return new MapTile(key, colors, complete, columnStamp, palette.getHash());
+    }
+
+    /**
+     * Make a tile of a level greater than 0 by averaging each 2x2 pixel square of the tiles of the level below.
+     * @param key the tile to make.
+     * @param children the tiles returned by {@link MapTileKey#getChildren()}, in the same order.
+     * @return the downsampled tile, which is complete only if all the children are, and were rendered with the same palette.
+     */
+    static MapTile downsample(MapTileKey key, MapTile[] children) {
+        final int halfSize = MapTile.SIZE / 2;
+        int[] colors = new int[MapTile.SIZE * MapTile.SIZE];
+        boolean complete = true;
+        long columnStamp = Long.MIN_VALUE;
+        int paletteHash = children[0].getPaletteHash();
+        for (int i = 0; i < children.length; ++i) {
+            MapTile child = children[i];
+            complete &= child.isComplete() && child.getPaletteHash() == paletteHash;
+            // the tile shows the blocks of its children, so it changes when any of them does
+            columnStamp = Math.max(columnStamp, child.getColumnStamp());
+            int offsetX = (i % 2) * halfSize;
+            int offsetZ = (i / 2) * halfSize;
+            for (int z = 0; z < halfSize; ++z) {
+                for (int x = 0; x < halfSize; ++x) {
+                    colors[(offsetZ + z) * MapTile.SIZE + offsetX + x] = average(child.getColor(x * 2, z * 2), child.getColor(x * 2 + 1, z * 2),
+                            child.getColor(x * 2, z * 2 + 1), child.getColor(x * 2 + 1, z * 2 + 1));
+                }
+            }
+        }
+        return new MapTile(key, colors, complete, columnStamp, paletteHash);
+    }
+
+    private static int average(int rgb1, int rgb2, int rgb3, int rgb4) {
+        int r = ((rgb1 >> 16) & 0xFF) + ((rgb2 >> 16) & 0xFF) + ((rgb3 >> 16) & 0xFF) + ((rgb4 >> 16) & 0xFF);
+        int g = ((rgb1 >> 8) & 0xFF) + ((rgb2 >> 8) & 0xFF) + ((rgb3 >> 8) & 0xFF) + ((rgb4 >> 8) & 0xFF);
+        int b = (rgb1 & 0xFF) + (rgb2 & 0xFF) + (rgb3 & 0xFF) + (rgb4 & 0xFF);
+        return ((r / 4) << 16) | ((g / 4) << 8) | (b / 4);
+    }
+
+    /**
+     * Get the y coordinate of the block at the given x and z coordinates where the block is at the surface.
+     * This method is heavily inspired by the renderCell method of the MinimapGrid class in the Minimap module.
+     * @param x the x coordinate of the block
+     * @param yEstimate an estimate of the y coordinate
+     * @param z the z coordinate of the block
+     * @return the y coordinate of the block
+     */
+    private int getSurfaceY(int x, int yEstimate, int z) {
+        final int yMinimum = 0;
+        final int yMaximum = 200;
+        int y = yEstimate;
+        Block block = worldProvider.getBlock(x, yEstimate, z);
+        if (isIgnoredByMap(block)) {
+            while (isIgnoredByMap(block)) {
+                --y;
+                block = worldProvider.getBlock(x, y, z);
+                if (y <= yMinimum) {
+                    return BLOCK_Y_DEFAULT;
+                }
+            }
+        } else {
+            while (!isIgnoredByMap(block)) {
+                ++y;
+                block = worldProvider.getBlock(x, y, z);
+                if (y >= yMaximum) {
+                    return BLOCK_Y_DEFAULT;
+                }
+            }
+            --y;
+        }
+        return y;
+    }
+
+    /**
+     * Determine if the given block should be ignored when trying to find the y-coordinate of a block.
+     * @param block the block to check.
+     * @return whether or not the block should be ignored.
+     */
+    private static boolean isIgnoredByMap(Block block) {
+        return !SurfaceHeightmap.isSurfaceBlock(block) && !isUnloaded(block);
+    }
+
+    private static boolean isUnloaded(Block block) {
+        return block.getURI().equals(BlockManager.UNLOADED_ID);
+    }
+}
@@ -0,0 +1,567 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Persistent store of the complete {@link MapTile}s of a game, so that the map of the explored areas survives restarts
+ * and can be served without loading chunks.
+ *
+ * The store is made of two files: a data file where the deflated tile colors are appended, and a memory-mapped index file
+ * with a fixed number of records, each one holding the key, the column stamp, the palette hash and the position in the data file
+ * of a tile. The whole index is also kept in memory for lookups. The dead space left in the data file by replaced or invalidated
+ * tiles is reclaimed by rewriting the file when it exceeds the live data, both when the store is opened and while it's used.
+ * The store is only a cache of what can be rendered from the chunks, so when its files are not consistent they are simply discarded.
+ * The store is accessed both by the render threads and by the engine's event handlers, so its state is guarded by its lock;
+ * the tiles are compressed and appended to the data file by a dedicated writer thread, and the lock is only held to update the index.
+ */
+public class MapTileStore implements Closeable {
+
+    static final String INDEX_FILE_NAME = "tiles.idx";
+    static final String DATA_FILE_NAME = "tiles.dat";
+
+    private static final Logger logger = LoggerFactory.getLogger(MapTileStore.class);
+    private static final int MAGIC = 0x464D4150; // "FMAP"
+    private static final int FORMAT_VERSION = 2;
+    private static final int INDEX_HEADER_SIZE = 16;
+    private static final int DATA_HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 40;
+    private static final int FREE_RECORD = -1;
+    private static final long MIN_DEAD_SPACE_TO_COMPACT = 1 << 20;
+    private static final int MAX_PENDING_WRITES = 256;
+    private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final Path directory;
+    private final int recordCount;
+    private final int paletteHash;
+    private final Map<MapTileKey, Entry> entries = new HashMap<>();
+    private final Map<Long, Set<MapTileKey>> keysByColumn = new HashMap<>();
+    private final Deque<Integer> freeRecords = new ArrayDeque<>();
+    private final MapColumnInvalidations invalidations = new MapColumnInvalidations();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "worldMap-tileStore");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    // only used by the writer thread
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    // guarded by the lock of the store, since the tiles are read by the render threads
+    private final Inflater inflater = new Inflater();
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private FileChannel data;
+    private int generation;
+    private long liveSize;
+    private long deadSpace;
+    private long latestColumnStamp;
+
+    private static final class Entry {
+        private final int record;
+        private final long columnStamp;
+        private final long offset;
+        private final int length;
+
+        private Entry(int record, long columnStamp, long offset, int length) {
+            this.record = record;
+            this.columnStamp = columnStamp;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private MapTileStore(Path directory, int recordCount, int paletteHash) {
+        this.directory = directory;
+        this.recordCount = recordCount;
+        this.paletteHash = paletteHash;
+    }
+
+    /**
+     * Open the store in the specified directory, creating it if it doesn't exist (or if its files are not valid).
+     * The stored tiles which were rendered with a different palette are discarded, and only tiles of the specified palette are stored.
+     * @param directory the directory of the store.
+     * @param recordCount the maximum number of tiles in the store; only used when the store is created.
+     * @param paletteHash the hash of the {@link BlockColorPalette} of the current game.
+     * @return the opened store.
+     */
+    public static MapTileStore open(Path directory, int recordCount, int paletteHash) throws IOException {
+        Files.createDirectories(directory);
+        MapTileStore store;
+        try {
+            store = new MapTileStore(directory, readRecordCount(directory, recordCount), paletteHash);
+            store.load();
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("The world map tile store in {} is not valid and will be recreated", directory, ex);
+            Files.deleteIfExists(directory.resolve(INDEX_FILE_NAME));
+            Files.deleteIfExists(directory.resolve(DATA_FILE_NAME));
+            store = new MapTileStore(directory, recordCount, paletteHash);
+            store.load();
+        }
+        return store;
+    }
+
+    private static int readRecordCount(Path directory, int defaultRecordCount) throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE_NAME);
+        if (!Files.exists(indexPath)) {
+            return defaultRecordCount;
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < INDEX_HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unknown index file format");
+            }
+            return header.getInt();
+        }
+    }
+
+    private void load() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE_NAME);
+        Path dataPath = directory.resolve(DATA_FILE_NAME);
+        boolean created = !Files.exists(indexPath) || !Files.exists(dataPath);
+        indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) recordCount * RECORD_SIZE);
+        try {
+            if (created) {
+                initializeFiles();
+            } else {
+                readIndex();
+                compactIfNeeded();
+            }
+        } catch (IOException | RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    private void initializeFiles() throws IOException {
+        generation = 0;
+        data.truncate(0);
+        writeDataHeader(data, generation);
+        for (int record = 0; record < recordCount; ++record) {
+            index.putInt(getRecordPosition(record) + 12, FREE_RECORD);
+            freeRecords.add(record);
+        }
+        index.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(8, recordCount).putInt(12, generation);
+        index.force();
+    }
+
+    private void readIndex() throws IOException {
+        generation = index.getInt(12);
+        ByteBuffer dataHeader = ByteBuffer.allocate(DATA_HEADER_SIZE);
+        data.read(dataHeader, 0);
+        dataHeader.flip();
+        if (dataHeader.remaining() < DATA_HEADER_SIZE || dataHeader.getInt() != MAGIC || dataHeader.getInt() != generation) {
+            throw new IOException("The data file doesn't match the index file");
+        }
+        long dataSize = data.size();
+        int discardedRecords = 0;
+        for (int record = 0; record < recordCount; ++record) {
+            int position = getRecordPosition(record);
+            int level = index.getInt(position + 12);
+            if (level == FREE_RECORD) {
+                freeRecords.add(record);
+                continue;
+            }
+            MapTileKey key = new MapTileKey(index.getInt(position), index.getInt(position + 4), index.getInt(position + 8), level);
+            Entry entry = new Entry(record, index.getLong(position + 16), index.getLong(position + 24), index.getInt(position + 32));
+            if (level < 0 || level > MapTileKey.MAX_LEVEL || entry.offset < DATA_HEADER_SIZE || entry.offset + entry.length > dataSize) {
+                throw new IOException("Invalid record " + record + " in the index file");
+            }
+            if (index.getInt(position + 36) != paletteHash) {
+                // the block colors have changed since the tile was rendered; its data becomes dead space
+                index.putInt(position + 12, FREE_RECORD);
+                freeRecords.add(record);
+                discardedRecords++;
+                continue;
+            }
+            addEntry(key, entry);
+        }
+        deadSpace = dataSize - DATA_HEADER_SIZE - liveSize;
+        if (discardedRecords > 0) {
+            logger.info("Discarded {} world map tiles rendered with different block colors", discardedRecords);
+        }
+    }
+
+    /**
+     * Rewrite the data file without the dead space, if there's enough of it. The live tiles are copied without holding the lock;
+     * only the writer thread (or the thread which opens the store) calls this method, so no tile is appended meanwhile.
+     */
+    private void compactIfNeeded() throws IOException {
+        Map<MapTileKey, Entry> liveEntries;
+        FileChannel source;
+        int newGeneration;
+        long reclaimedSpace;
+        synchronized (this) {
+            if (data == null || deadSpace < MIN_DEAD_SPACE_TO_COMPACT || deadSpace < liveSize) {
+                return;
+            }
+            liveEntries = new HashMap<>(entries);
+            source = data;
+            newGeneration = generation + 1;
+            reclaimedSpace = deadSpace;
+        }
+        Path dataPath = directory.resolve(DATA_FILE_NAME);
+        Path compactedPath = directory.resolve(DATA_FILE_NAME + ".tmp");
+        Map<MapTileKey, Entry> movedEntries = new HashMap<>();
+        try (FileChannel compacted = FileChannel.open(compactedPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            writeDataHeader(compacted, newGeneration);
+            for (Map.Entry<MapTileKey, Entry> mapEntry : liveEntries.entrySet()) {
+                Entry entry = mapEntry.getValue();
+                ByteBuffer buffer = readFully(source, entry.offset, entry.length);
+                long newOffset = compacted.size();
+                compacted.write(buffer, newOffset);
+                movedEntries.put(mapEntry.getKey(), new Entry(entry.record, entry.columnStamp, newOffset, entry.length));
+            }
+            compacted.force(true);
+        }
+        synchronized (this) {
+            if (data != source) {
+                // the store has been closed
+                Files.deleteIfExists(compactedPath);
+                return;
+            }
+            data.close();
+            try {
+                // if the server stops before the index is updated, the generations don't match and the store is discarded when opened again
+                Files.move(compactedPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                data = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            for (Map.Entry<MapTileKey, Entry> moved : movedEntries.entrySet()) {
+                // the tiles invalidated while the data was copied stay removed
+                if (entries.get(moved.getKey()) == liveEntries.get(moved.getKey())) {
+                    entries.put(moved.getKey(), moved.getValue());
+                    writeRecord(moved.getKey(), moved.getValue());
+                }
+            }
+            deadSpace = data.size() - DATA_HEADER_SIZE - liveSize;
+            generation = newGeneration;
+            index.putInt(12, generation);
+            index.force();
+        }
+        logger.info("Compacted the world map tile store, reclaiming {} bytes", reclaimedSpace - deadSpace);
+    }
+
+    /**
+     * @return the greatest column stamp of the stored tiles; the stamps of the tiles rendered from now on must be greater,
+     * since they are used in the entity tags sent to clients.
+     */
+    public synchronized long getLatestColumnStamp() {
+        return latestColumnStamp;
+    }
+
+    public synchronized boolean contains(MapTileKey key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @return the stored tile with the specified key, or null if it's not stored.
+     */
+    public synchronized MapTile get(MapTileKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null || data == null) {
+            return null;
+        }
+        try {
+            ByteBuffer compressed = readFully(data, entry.offset, entry.length);
+            int[] colors = new int[MapTile.SIZE * MapTile.SIZE];
+            byte[] uncompressed = new byte[colors.length * Integer.BYTES];
+            inflater.reset();
+            inflater.setInput(compressed.array(), 0, compressed.limit());
+            if (inflater.inflate(uncompressed) != uncompressed.length) {
+                throw new DataFormatException("Truncated tile data");
+            }
+            ByteBuffer.wrap(uncompressed).asIntBuffer().get(colors);
+            return new MapTile(key, colors, true, entry.columnStamp, paletteHash);
+        } catch (IOException | DataFormatException ex) {
+            logger.warn("Failed to read the stored world map tile {}", key, ex);
+            removeEntry(key);
+            return null;
+        }
+    }
+
+    /**
+     * Store a complete tile in the background, unless the column it covers is invalidated after the tile started rendering
+     * (in which case the tile may show outdated blocks), or it was rendered with another palette.
+     * The caller doesn't wait for the tile to be compressed and written; when the store is full, or too many tiles are waiting
+     * to be written, the tile is not stored.
+     * @param tile the tile to store.
+     * @param invalidationStamp the value returned by {@link #getInvalidationCount()} before the tile started rendering.
+     * @return a future which completes when the tile has been stored or discarded.
+     */
+    public CompletableFuture<Void> putIfNotInvalidatedSince(MapTile tile, long invalidationStamp) {
+        if (!tile.isComplete() || tile.getPaletteHash() != paletteHash || !canStore(tile.getKey(), invalidationStamp)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (pendingWrites.incrementAndGet() > MAX_PENDING_WRITES) {
+            pendingWrites.decrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    write(tile, invalidationStamp);
+                } finally {
+                    pendingWrites.decrementAndGet();
+                }
+            }, writer);
+        } catch (RejectedExecutionException ex) {
+            // the store has been closed
+            pendingWrites.decrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private synchronized boolean canStore(MapTileKey key, long invalidationStamp) {
+        return data != null && !invalidations.isInvalidatedSince(key, invalidationStamp) && (entries.containsKey(key) || !freeRecords.isEmpty());
+    }
+
+    /**
+     * Compress a tile and append it to the data file, then add it to the index if its column is still valid.
+     * Only called by the writer thread, which is the only one appending to the data file.
+     */
+    private void write(MapTile tile, long invalidationStamp) {
+        MapTileKey key = tile.getKey();
+        FileChannel channel = getDataChannel();
+        ByteBuffer compressed = compress(tile);
+        if (channel == null || compressed == null) {
+            return;
+        }
+        try {
+            long offset = channel.size();
+            int length = compressed.remaining();
+            channel.write(compressed, offset);
+            // the data is appended before the index record is written, so that a record never points to missing data
+            synchronized (this) {
+                Entry previous = entries.get(key);
+                if (data != channel) {
+                    // the store has been closed
+                    return;
+                }
+                if (invalidations.isInvalidatedSince(key, invalidationStamp) || (previous == null && freeRecords.isEmpty())) {
+                    // the appended data is dead space, reclaimed by the next compaction
+                    deadSpace += length;
+                } else {
+                    int record = previous != null ? previous.record : freeRecords.poll();
+                    Entry entry = new Entry(record, tile.getColumnStamp(), offset, length);
+                    addEntry(key, entry);
+                    writeRecord(key, entry);
+                }
+            }
+        } catch (IOException ex) {
+            logger.warn("Failed to store the world map tile {}", key, ex);
+            return;
+        }
+        try {
+            compactIfNeeded();
+        } catch (IOException ex) {
+            logger.warn("Failed to compact the world map tile store", ex);
+        }
+    }
+
+    private synchronized FileChannel getDataChannel() {
+        return data;
+    }
+
+    /**
+     * @return the deflated colors of the tile, or null if they can't be compressed.
+     */
+    private ByteBuffer compress(MapTile tile) {
+        ByteBuffer uncompressed = ByteBuffer.allocate(MapTile.SIZE * MapTile.SIZE * Integer.BYTES);
+        for (int localZ = 0; localZ < MapTile.SIZE; ++localZ) {
+            for (int localX = 0; localX < MapTile.SIZE; ++localX) {
+                uncompressed.putInt(tile.getColor(localX, localZ));
+            }
+        }
+        byte[] compressed = new byte[uncompressed.capacity() + 64];
+        deflater.reset();
+        deflater.setInput(uncompressed.array());
+        deflater.finish();
+        int length = deflater.deflate(compressed);
+        return deflater.finished() ? ByteBuffer.wrap(compressed, 0, length) : null;
+    }
+
+    public synchronized long getInvalidationCount() {
+        return invalidations.getStamp();
+    }
+
+    /**
+     * Discard all the stored tiles, in every mode and zoom level, which cover the specified chunk column.
+     */
+    public synchronized void invalidateColumn(int tileX, int tileZ) {
+        invalidations.invalidate(tileX, tileZ);
+        if (index == null) {
+            return;
+        }
+        for (int level = 0; level <= MapTileKey.MAX_LEVEL; ++level) {
+            Set<MapTileKey> keys = keysByColumn.get(MapTileKey.columnOf(tileX >> level, tileZ >> level, level));
+            if (keys != null) {
+                for (MapTileKey key : keys.toArray(new MapTileKey[0])) {
+                    removeEntry(key);
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Write the changes of the index to the disk in the background, after the tiles which are waiting to be written.
+     */
+    public void flush() {
+        try {
+            writer.execute(this::forceIndex);
+        } catch (RejectedExecutionException ex) {
+            // the store has been closed, which writes the index
+        }
+    }
+
+    private void forceIndex() {
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            buffer = index;
+        }
+        // the mapping stays valid after the store is closed, so the index can be forced without holding the lock
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Close the store, after writing the tiles which are waiting to be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        boolean writesFinished = false;
+        try {
+            writesFinished = writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writesFinished) {
+            logger.warn("The world map tiles were not written within {} seconds, some of them won't be stored", CLOSE_TIMEOUT_SECONDS);
+        }
+        synchronized (this) {
+            forceIndex();
+            index = null;
+            if (writesFinished) {
+                deflater.end();
+            }
+            inflater.end();
+            try {
+                if (data != null) {
+                    data.close();
+                }
+            } finally {
+                data = null;
+                if (indexChannel != null) {
+                    indexChannel.close();
+                }
+            }
+        }
+    }
+
+    private void addEntry(MapTileKey key, Entry entry) {
+        Entry previous = entries.put(key, entry);
+        if (previous != null) {
+            liveSize -= previous.length;
+            deadSpace += previous.length;
+        }
+        liveSize += entry.length;
+        latestColumnStamp = Math.max(latestColumnStamp, entry.columnStamp);
+        keysByColumn.computeIfAbsent(key.getColumn(), (column) -> new HashSet<>()).add(key);
+    }
+
+    private void removeEntry(MapTileKey key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        liveSize -= entry.length;
+        deadSpace += entry.length;
+        Set<MapTileKey> keys = keysByColumn.get(key.getColumn());
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            keysByColumn.remove(key.getColumn());
+        }
+        index.putInt(getRecordPosition(entry.record) + 12, FREE_RECORD);
+        freeRecords.add(entry.record);
+    }
+
+    private void writeRecord(MapTileKey key, Entry entry) {
+        int position = getRecordPosition(entry.record);
+        index.putInt(position, key.getTileX()).putInt(position + 4, key.getTileZ()).putInt(position + 8, key.getBlockY())
+                .putLong(position + 16, entry.columnStamp).putLong(position + 24, entry.offset).putInt(position + 32, entry.length)
+                .putInt(position + 36, paletteHash);
+        // the level is written last, since it also marks the record as used
+        index.putInt(position + 12, key.getLevel());
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the data file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeDataHeader(FileChannel channel, int generation) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(DATA_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(generation).flip();
+        channel.write(header, 0);
+    }
+
+    private static int getRecordPosition(int record) {
+        return INDEX_HEADER_SIZE + record * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3i;
+import org.terasology.web.resources.InputCheckUtils;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The area of the world shown by a map image, in the pixel space of its zoom level (where a pixel covers 2^level x 2^level blocks),
+ * along with the scale of the image.
+ */
+public final class MapViewport {
+
+    static final int MAX_PIXELS_PER_BLOCK = 16;
+    // the maximum width and length of the image, which bounds the memory used by a request
+    static final int MAX_IMAGE_SIZE = 4096;
+    // enough for an image of the maximum size at the highest zoom level
+    static final int MAX_MAP_BLOCKS = MAX_IMAGE_SIZE << MapTileKey.MAX_LEVEL;
+    // keeps the block coordinates of the map within the range of an int
+    private static final int MAX_CENTER_COORDINATE = Integer.MAX_VALUE - MAX_MAP_BLOCKS;
+
+    private final int level;
+    private final int blockY;
+    private final int minPixelX;
+    private final int minPixelZ;
+    private final int pixelWidth;
+    private final int pixelLength;
+    private final int pixelsPerBlock;
+
+    private MapViewport(int level, int blockY, int minPixelX, int minPixelZ, int pixelWidth, int pixelLength, int pixelsPerBlock) {
+        this.level = level;
+        this.blockY = blockY;
+        this.minPixelX = minPixelX;
+        this.minPixelZ = minPixelZ;
+        this.pixelWidth = pixelWidth;
+        this.pixelLength = pixelLength;
+        this.pixelsPerBlock = pixelsPerBlock;
+    }
+
+    /**
+     * Validate the map parameters sent by a client and compute the corresponding viewport.
+     * @param data the map parameters.
+     * @return the viewport of the requested map.
+     * @throws ResourceAccessException if the parameters are not valid.
+     */
+    public static MapViewport fromInput(WorldMapInput data) throws ResourceAccessException {
+        InputCheckUtils.checkNotNull(data, "The map parameters must be specified.");
+        InputCheckUtils.checkNotNull(data.getCenter(), "The center of the map must be specified.");
+        InputCheckUtils.checkPredicate(data, (input) -> input.getMapBlockWidth() > 0 && input.getMapBlockLength() > 0,
+                "The map width and length must be positive.");
+        InputCheckUtils.checkPredicate(data, (input) -> input.getMapBlockWidth() <= MAX_MAP_BLOCKS && input.getMapBlockLength() <= MAX_MAP_BLOCKS,
+                "The map width and length must be at most " + MAX_MAP_BLOCKS + " blocks.");
+        InputCheckUtils.checkPredicate(data.getCenter(), (center) -> Math.abs((long) center.x()) <= MAX_CENTER_COORDINATE
+                && Math.abs((long) center.z()) <= MAX_CENTER_COORDINATE, "The center of the map is too far from the origin of the world.");
+        InputCheckUtils.checkPredicate(data.getPixelsPerBlock(), (value) -> value >= 0 && value <= MAX_PIXELS_PER_BLOCK,
+                "The pixels per block must be between 0 and " + MAX_PIXELS_PER_BLOCK + ".");
+        InputCheckUtils.checkPredicate(data.getZoomLevel(), (value) -> value >= 0 && value <= MapTileKey.MAX_LEVEL,
+                "The zoom level must be between 0 and " + MapTileKey.MAX_LEVEL + ".");
+        Vector3i center = data.getCenter();
+        int level = data.getZoomLevel();
+        int minX = center.x() - data.getMapBlockWidth() / 2;
+        int minZ = center.z() - data.getMapBlockLength() / 2;
+        int maxX = minX + data.getMapBlockWidth();
+        int maxZ = minZ + data.getMapBlockLength();
+        int minPixelX = minX >> level;
+        int minPixelZ = minZ >> level;
+        int pixelWidth = ((maxX - 1) >> level) + 1 - minPixelX;
+        int pixelLength = ((maxZ - 1) >> level) + 1 - minPixelZ;
+        int pixelsPerBlock = data.getPixelsPerBlock() > 0 ? data.getPixelsPerBlock() : getDefaultPixelsPerBlock(pixelWidth, pixelLength);
+        InputCheckUtils.checkPredicate(pixelsPerBlock, (value) -> Math.max(pixelWidth, pixelLength) * value <= MAX_IMAGE_SIZE,
+                "The map image must be at most " + MAX_IMAGE_SIZE + " pixels wide and long; request a smaller area, a higher zoom level "
+                        + "or fewer pixels per block.");
+        return new MapViewport(level, data.isSurface() ? MapTileKey.SURFACE : center.y(), minPixelX, minPixelZ, pixelWidth, pixelLength, pixelsPerBlock);
+    }
+
+    /**
+     * Choose the size of the blocks in the image so that larger maps use fewer pixels per block; the result is between 1 and
+     * {@link #MAX_PIXELS_PER_BLOCK}, and the image fits in {@link #MAX_IMAGE_SIZE} whenever possible.
+     */
+    private static int getDefaultPixelsPerBlock(int mapBlockWidth, int mapBlockLength) {
+        final int mapColorSizeDecreaseThreshold = 125 * 125;
+        final int largerColorSizeMultiplier = 60;
+        final int smallerColorSizeMultiplier = 30;
+        long area = (long) mapBlockWidth * mapBlockLength;
+        final int colorSizeMultiplier = area <= mapColorSizeDecreaseThreshold ? largerColorSizeMultiplier : smallerColorSizeMultiplier;
+        // the logarithm of the area of maps smaller than 3 blocks is below 1, and would be rounded down to 0
+        double logArea = Math.max(1, Math.floor(Math.log(area)));
+        int pixelsPerBlock = Math.min((int) (colorSizeMultiplier / logArea), MAX_PIXELS_PER_BLOCK);
+        return Math.max(1, Math.min(pixelsPerBlock, MAX_IMAGE_SIZE / Math.max(mapBlockWidth, mapBlockLength)));
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getBlockY() {
+        return blockY;
+    }
+
+    public boolean isSurface() {
+        return blockY == MapTileKey.SURFACE;
+    }
+
+    public int getMinPixelX() {
+        return minPixelX;
+    }
+
+    public int getMinPixelZ() {
+        return minPixelZ;
+    }
+
+    public int getPixelWidth() {
+        return pixelWidth;
+    }
+
+    public int getPixelLength() {
+        return pixelLength;
+    }
+
+    public int getPixelsPerBlock() {
+        return pixelsPerBlock;
+    }
+
+    public int getMinBlockX() {
+        return minPixelX << level;
+    }
+
+    public int getMinBlockZ() {
+        return minPixelZ << level;
+    }
+
+    public int getMaxBlockX() {
+        return (minPixelX + pixelWidth) << level;
+    }
+
+    public int getMaxBlockZ() {
+        return (minPixelZ + pixelLength) << level;
+    }
+
+    /**
+     * @return the keys of the tiles which cover the viewport, in row order.
+     */
+    public List<MapTileKey> getTileKeys() {
+        List<MapTileKey> keys = new ArrayList<>();
+        for (int tileZ = MapTileKey.toTileCoordinate(minPixelZ); tileZ <= MapTileKey.toTileCoordinate(minPixelZ + pixelLength - 1); ++tileZ) {
+            for (int tileX = MapTileKey.toTileCoordinate(minPixelX); tileX <= MapTileKey.toTileCoordinate(minPixelX + pixelWidth - 1); ++tileX) {
+                keys.add(new MapTileKey(tileX, tileZ, blockY, level));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return whether the viewport shows any block of the specified tile column of level 0.
+     */
+    public boolean coversColumn(int tileX, int tileZ) {
+        int columnMinX = tileX * MapTile.SIZE;
+        int columnMinZ = tileZ * MapTile.SIZE;
+        return columnMinX < getMaxBlockX() && columnMinX + MapTile.SIZE > getMinBlockX()
+                && columnMinZ < getMaxBlockZ() && columnMinZ + MapTile.SIZE > getMinBlockZ();
+    }
+
+    /**
+     * @return the part of this viewport which is covered by the specified tile, or null if the tile is outside of the viewport.
+     */
+    public MapViewport clip(MapTileKey key) {
+        int clippedMinX = Math.max(minPixelX, key.getMinPixelX());
+        int clippedMinZ = Math.max(minPixelZ, key.getMinPixelZ());
+        int clippedMaxX = Math.min(minPixelX + pixelWidth, key.getMinPixelX() + MapTile.SIZE);
+        int clippedMaxZ = Math.min(minPixelZ + pixelLength, key.getMinPixelZ() + MapTile.SIZE);
+        if (clippedMinX >= clippedMaxX || clippedMinZ >= clippedMaxZ) {
+            return null;
+        }
+        return new MapViewport(level, blockY, clippedMinX, clippedMinZ, clippedMaxX - clippedMinX, clippedMaxZ - clippedMinZ, pixelsPerBlock);
+    }
+
+    /**
+     * Copy the colors of the viewport from the tiles which cover it.
+     * @param tiles tiles of the level of the viewport; the ones which don't overlap with it are ignored.
+     * @return the colors of the pixels (before scaling by pixels per block), row by row (index = z * pixelWidth + x).
+     */
+    public int[] compose(List<MapTile> tiles) {
+        int[] colors = new int[pixelWidth * pixelLength];
+        for (MapTile tile : tiles) {
+            int tileMinX = tile.getKey().getMinPixelX();
+            int tileMinZ = tile.getKey().getMinPixelZ();
+            for (int z = Math.max(minPixelZ, tileMinZ); z < Math.min(minPixelZ + pixelLength, tileMinZ + MapTile.SIZE); ++z) {
+                for (int x = Math.max(minPixelX, tileMinX); x < Math.min(minPixelX + pixelWidth, tileMinX + MapTile.SIZE); ++x) {
+                    colors[(z - minPixelZ) * pixelWidth + (x - minPixelX)] = tile.getColor(x - tileMinX, z - tileMinZ);
+                }
+            }
+        }
+        return colors;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MapViewport) {
+            MapViewport other = (MapViewport) obj;
+            return level == other.level && blockY == other.blockY && minPixelX == other.minPixelX && minPixelZ == other.minPixelZ
+                    && pixelWidth == other.pixelWidth && pixelLength == other.pixelLength && pixelsPerBlock == other.pixelsPerBlock;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(level, blockY, minPixelX, minPixelZ, pixelWidth, pixelLength, pixelsPerBlock);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3ic;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.chunks.Chunks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the surface height of every (x, z) block column of the loaded chunks, where the surface is the topmost block
+ * which is not penetrable or is water. The index stores a short array for every loaded chunk; each block column of a chunk
+ * is scanned the first time its surface is looked up, and scanned again after one of its blocks changes, so that neither
+ * loading chunks nor changing blocks scans blocks on the engine thread.
+ */
+public class SurfaceHeightmap {
+
+    /**
+     * Value returned when the surface of a column is not known, because its chunks which may contain the surface aren't indexed
+     * or none of them contain a surface block.
+     */
+    public static final int UNKNOWN_HEIGHT = Integer.MIN_VALUE;
+    private static final short NO_SURFACE = Short.MIN_VALUE;
+    private static final short NOT_SCANNED = Short.MIN_VALUE + 1;
+
+    private final WorldProvider worldProvider;
+    // chunk column -> chunk y -> surface height for each block column of the chunk (index = localZ * SIZE_X + localX)
+    private final Map<Long, NavigableMap<Integer, short[]>> chunkColumns = new HashMap<>();
+    // incremented on every change of the index, so that the result of a scan which raced with a change is not recorded
+    private long changeCount;
+
+    public SurfaceHeightmap(WorldProvider worldProvider) {
+        this.worldProvider = worldProvider;
+    }
+
+    /**
+     * Determine if the given block is visible on the surface, i.e. is not ignored when looking for the topmost block of a column.
+     * @param block the block to check.
+     * @return whether the block can be the surface of a column.
+     */
+    public static boolean isSurfaceBlock(Block block) {
+        return !block.isPenetrable() || block.isWater();
+    }
+
+    /**
+     * Look up the surface of a block column, scanning the indexed chunks which haven't been scanned yet from the top down.
+     * The surface is unknown when the chunks are not contiguous above it, or when it's the topmost block of the highest
+     * indexed chunk, since the surface may then be in a chunk which isn't loaded.
+     * @param x the x coordinate of the block column.
+     * @param z the z coordinate of the block column.
+     * @return the y coordinate of the surface block of the column, or {@link #UNKNOWN_HEIGHT}.
+     */
+    public int getSurfaceY(int x, int z) {
+        long column = MapTileKey.columnOf(Math.floorDiv(x, Chunks.SIZE_X), Math.floorDiv(z, Chunks.SIZE_Z));
+        int index = indexOf(Math.floorMod(x, Chunks.SIZE_X), Math.floorMod(z, Chunks.SIZE_Z));
+        boolean highestChunk = true;
+        int chunkY = 0;
+        while (true) {
+            short[] heights;
+            short surfaceY;
+            long scanStamp;
+            synchronized (this) {
+                NavigableMap<Integer, short[]> chunks = chunkColumns.get(column);
+                if (chunks == null) {
+                    return UNKNOWN_HEIGHT;
+                }
+                if (highestChunk) {
+                    chunkY = chunks.lastKey();
+                }
+                heights = chunks.get(chunkY);
+                if (heights == null) {
+                    return UNKNOWN_HEIGHT;
+                }
+                surfaceY = heights[index];
+                scanStamp = changeCount;
+            }
+            if (surfaceY == NOT_SCANNED) {
+                surfaceY = findSurfaceY(x, chunkY, z);
+                synchronized (this) {
+                    if (scanStamp == changeCount) {
+                        heights[index] = surfaceY;
+                    }
+                }
+            }
+            if (surfaceY != NO_SURFACE) {
+                return highestChunk && surfaceY == (chunkY + 1) * Chunks.SIZE_Y - 1 ? UNKNOWN_HEIGHT : surfaceY;
+            }
+            highestChunk = false;
+            --chunkY;
+        }
+    }
+
+    /**
+     * Index a chunk which has just been loaded; its block columns are scanned when their surface is first looked up.
+     * @param chunkPosition the position of the chunk, in chunk coordinates.
+     */
+    public synchronized void onChunkLoaded(Vector3ic chunkPosition) {
+        short[] heights = new short[Chunks.SIZE_X * Chunks.SIZE_Z];
+        Arrays.fill(heights, NOT_SCANNED);
+        chunkColumns.computeIfAbsent(MapTileKey.columnOf(chunkPosition.x(), chunkPosition.z()), (column) -> new TreeMap<>())
+                .put(chunkPosition.y(), heights);
+        ++changeCount;
+    }
+
+    /**
+     * Remove a chunk which is about to be unloaded from the index.
+     * @param chunkPosition the position of the chunk, in chunk coordinates.
+     */
+    public synchronized void onChunkUnloaded(Vector3ic chunkPosition) {
+        long column = MapTileKey.columnOf(chunkPosition.x(), chunkPosition.z());
+        NavigableMap<Integer, short[]> chunks = chunkColumns.get(column);
+        if (chunks != null) {
+            chunks.remove(chunkPosition.y());
+            if (chunks.isEmpty()) {
+                chunkColumns.remove(column);
+            }
+        }
+    }
+
+    /**
+     * Update the index after a block has changed; only the block column of the chunk containing the block is scanned again,
+     * the next time its surface is looked up.
+     * @param blockPosition the position of the changed block.
+     */
+    public synchronized void onBlockChanged(Vector3ic blockPosition) {
+        int chunkY = Math.floorDiv(blockPosition.y(), Chunks.SIZE_Y);
+        NavigableMap<Integer, short[]> chunks = chunkColumns.get(MapTileKey.columnOf(Math.floorDiv(blockPosition.x(), Chunks.SIZE_X),
+                Math.floorDiv(blockPosition.z(), Chunks.SIZE_Z)));
+        short[] heights = chunks != null ? chunks.get(chunkY) : null;
+        if (heights != null) {
+            heights[indexOf(Math.floorMod(blockPosition.x(), Chunks.SIZE_X), Math.floorMod(blockPosition.z(), Chunks.SIZE_Z))] = NOT_SCANNED;
+        }
+        ++changeCount;
+    }
+
+    public synchronized void clear() {
+        chunkColumns.clear();
+    }
+
+    /**
+     * Scan a block column of a single chunk from the top down, looking for the first surface block.
+     */
+    private short findSurfaceY(int x, int chunkY, int z) {
+        int minY = chunkY * Chunks.SIZE_Y;
+        for (int y = minY + Chunks.SIZE_Y - 1; y >= minY; --y) {
+            if (isSurfaceBlock(worldProvider.getBlock(x, y, z))) {
+                return (short) y;
+            }
+        }
+        return NO_SURFACE;
+    }
+
+    private static int indexOf(int localX, int localZ) {
+        return localZ * Chunks.SIZE_X + localX;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.terasology.web.io.BinaryResult;
+
+/**
+ * A png image of the world map produced by {@link WorldMapResource}, along with the entity tag which identifies its content.
+ */
+public final class WorldMapImage implements BinaryResult {
+
+    public static final String CONTENT_TYPE = "image/png";
+
+    private final byte[] data;
+    private final String entityTag;
+
+    private WorldMapImage(byte[] data, String entityTag) {
+        this.data = data;
+        this.entityTag = entityTag;
+    }
+
+    public static WorldMapImage of(byte[] data, String entityTag) {
+        return new WorldMapImage(data, entityTag);
+    }
+
+    /**
+     * @return an image without data, which means that the client's copy (identified by the entity tag) is up to date.
+     */
+    public static WorldMapImage notModified(String entityTag) {
+        return new WorldMapImage(null, entityTag);
+    }
+
+    @Override
+    public String getContentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public byte[] getData() {
+        return data;
+    }
+
+    @Override
+    public String getEntityTag() {
+        return entityTag;
+    }
+
+    public boolean isNotModified() {
+        return data == null;
+    }
+}
@@ -28,6 +28,9 @@ public final class WorldMapInput {
     private int mapBlockWidth;
     private int mapBlockLength;
     private boolean surface;
+    private int pixelsPerBlock;
+    private int zoomLevel;
+    private String entityTag;
 
     public Vector3i getCenter() {
         return center;
@@ -44,4 +47,25 @@ public final class WorldMapInput {
     public boolean isSurface() {
         return surface;
     }
+
+    /**
+     * @return the width and height, in pixels, of each block in the image, or 0 to let the server choose it from the map size.
+     */
+    public int getPixelsPerBlock() {
+        return pixelsPerBlock;
+    }
+
+    /**
+     * @return the zoom level of the map; at zoom level n, each pixel shows the average color of 2^n x 2^n blocks.
+     */
+    public int getZoomLevel() {
+        return zoomLevel;
+    }
+
+    /**
+     * @return the entity tag of the image the client already has, if any; when it's still up to date, the image is not sent again.
+     */
+    public String getEntityTag() {
+        return entityTag;
+    }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+/**
+ * Event sent to a client whose world map request is waiting for other requests to be processed.
+ */
+public class WorldMapProgress {
+
+    private final int queuePosition;
+
+    public WorldMapProgress(int queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
+    /**
+     * @return the position of the request in the queue (1 for the next request to be processed), or 0 if it's being processed.
+     */
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+}
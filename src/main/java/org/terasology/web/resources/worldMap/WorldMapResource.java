@@ -15,23 +15,37 @@
  */
 package org.terasology.web.resources.worldMap;
 
+import org.joml.Vector2i;
+import org.joml.Vector2ic;
 import org.joml.Vector3f;
+import org.joml.Vector3fc;
 import org.joml.Vector3i;
+import org.joml.Vector3ic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.terasology.assets.ResourceUrn;
+import org.terasology.engine.core.paths.PathManager;
 import org.terasology.engine.entitySystem.entity.EntityManager;
 import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.entitySystem.event.ReceiveEvent;
+import org.terasology.engine.entitySystem.systems.RegisterSystem;
+import org.terasology.engine.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.engine.game.Game;
 import org.terasology.engine.logic.location.LocationComponent;
 import org.terasology.engine.registry.In;
-import org.terasology.engine.utilities.Assets;
-import org.terasology.engine.world.RelevanceRegionComponent;
+import org.terasology.engine.world.OnChangedBlock;
 import org.terasology.engine.world.WorldProvider;
-import org.terasology.engine.world.block.Block;
-import org.terasology.engine.world.block.tiles.BlockTile;
+import org.terasology.engine.world.block.BlockManager;
 import org.terasology.engine.world.chunks.Chunks;
-import org.terasology.math.TeraMath;
+import org.terasology.engine.world.chunks.event.BeforeChunkUnload;
+import org.terasology.engine.world.chunks.event.OnChunkGenerated;
+import org.terasology.engine.world.chunks.event.OnChunkLoaded;
+import org.terasology.engine.world.generator.WorldGenerator;
 import org.terasology.engine.network.Client;
+import org.terasology.engine.network.ClientComponent;
+import org.terasology.engine.network.NetworkSystem;
+import org.terasology.web.io.ActionResult;
+import org.terasology.web.resources.DefaultComponentSystem;
+import org.terasology.web.resources.EngineThreadDispatcher;
 import org.terasology.web.resources.base.AbstractSimpleResource;
 import org.terasology.web.resources.base.ClientSecurityRequirements;
 import org.terasology.web.resources.base.ResourceAccessException;
@@ -39,25 +53,59 @@ import org.terasology.web.resources.base.ResourceMethod;
 import org.terasology.web.resources.base.ResourcePath;
 import org.terasology.web.serverAdminManagement.ServerAdminsManager;
 
-import javax.imageio.ImageIO;
-import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createAsyncMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createVoidParameterlessMethod;
 
 /**
- * {@link org.terasology.web.resources.base.Resource} class used for sending png images of the world map, encoded in base64.
+ * {@link org.terasology.web.resources.base.Resource} class used for sending png images of the world map.
  */
-public class WorldMapResource extends AbstractSimpleResource {
+@RegisterSystem
+public class WorldMapResource extends AbstractSimpleResource implements DefaultComponentSystem, UpdateSubscriberSystem {
 
     private static final Logger logger = LoggerFactory.getLogger(WorldMapResource.class);
-    private static final int BLOCK_Y_DEFAULT = 40;
+    private static final ForkJoinPool RENDER_POOL = new ForkJoinPool(WorldMapSettings.getRenderThreads(), (pool) -> {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("worldMap-renderer-" + thread.getPoolIndex());
+        return thread;
+    }, null, false);
+    // sends the events of this resource, so that the threads which generate them don't wait for the clients
+    private static final ScheduledExecutorService EVENT_SCHEDULER = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+        Thread thread = new Thread(runnable, "worldMap-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final MapPngEncoder PNG_ENCODER = new MapPngEncoder(WorldMapSettings.getPngCompressionLevel());
+    private static final int CHUNK_LOADING_TIMEOUT_SECONDS = 60;
+    // the number of chunk layers kept loaded by the anchor of a map
+    private static final int ANCHOR_VERTICAL_CHUNKS = 8;
+    private static final long LIVE_UPDATE_DELAY_MS = 500;
+    private static final String TILE_STORE_DIRECTORY = "worldMapTiles";
+    // small, so that the requests of the clients don't wait long for the background rendering
+    private static final int PRE_RENDER_BATCH_SIZE = 4;
 
     @In
     private WorldProvider worldProvider;
@@ -65,180 +113,616 @@ public class WorldMapResource extends AbstractSimpleResource {
     @In
     private EntityManager entityManager;
 
-    // TODO: reimplement this as a GET request with parameters
-    @Override
-    protected ResourceMethod<WorldMapInput, String> getPutMethod(ResourcePath path) throws ResourceAccessException {
-        return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, WorldMapInput.class,
-                (data, client) -> getWorldMapBase64ImageString(data.getCenter(), data.getMapBlockWidth(), data.getMapBlockLength(), data.isSurface(), client));
+    @In
+    private BlockManager blockManager;
+
+    @In
+    private Game game;
+
+    @In
+    private NetworkSystem networkSystem;
+
+    @In
+    private WorldGenerator worldGenerator;
+
+    private final EngineThreadDispatcher engineThreadDispatcher;
+    private final BlockColorPalette palette = new BlockColorPalette();
+    private final MapTileCache tileCache = new MapTileCache(WorldMapSettings.getTileCacheSize());
+    private MapTileRenderer tileRenderer;
+    private ChunkReadinessService chunkReadinessService;
+    private ChunkAnchorPool chunkAnchorPool;
+    private SurfaceHeightmap surfaceHeightmap;
+    private volatile MapTileStore tileStore;
+    private final Map<EntityRef, MapViewport> liveViewports = new ConcurrentHashMap<>();
+    private final Map<MapTileKey, TileTask> inFlightTiles = new ConcurrentHashMap<>();
+    // the requests only start their tasks in the render pool, they never wait for them
+    private final MapRenderScheduler renderScheduler = new MapRenderScheduler(RENDER_POOL, WorldMapSettings.getMaxConcurrentRequests(),
+            WorldMapSettings.getMaxQueuedRequests());
+    private final MapPreRenderer preRenderer = new MapPreRenderer(WorldMapSettings.getPreRenderRadius(),
+            WorldMapSettings.getPreRenderMaxFrameTime() / 1000f, PRE_RENDER_BATCH_SIZE);
+    private ForkJoinTask<?> preRenderBatch;
+    private Vector3fc spawnPosition;
+    private final Set<Vector2ic> changedColumns = new HashSet<>();
+    private boolean liveUpdateScheduled;
+
+    /**
+     * @param engineThreadDispatcher used to create, move and destroy the entities which keep the chunks of the map loaded,
+     *                               since the rendering doesn't run on the engine's thread.
+     */
+    public WorldMapResource(EngineThreadDispatcher engineThreadDispatcher) {
+        this.engineThreadDispatcher = engineThreadDispatcher;
     }
 
     /**
-     * Get the color of blocks in the world map and convert them into a base64 encoded image.
-     * @param center the location of the block in the center of the map.
-     * @param mapBlockWidth the width of the map.
-     * @param mapBlockLength the length of the map.
-     * @param isSurface whether or not to get blocks on the surface (using the block at the highest elevation that isn't air).
-     * @return a base64 encoded png image of the world map with location and size depending on the parameters.
+     * The tiles of a map, shared by all the callers of a coalesced request; the image is encoded only if a caller needs it.
      */
-    private String getWorldMapBase64ImageString(Vector3i center, int mapBlockWidth, int mapBlockLength, boolean isSurface, Client client) {
-        final int mapColorSizeDecreaseThreshold = 125 * 125;
-        final int largerColorSizeMultiplier = 60;
-        final int smallerColorSizeMultiplier = 30;
-        final int colorSizeMultiplier = mapBlockWidth * mapBlockLength <= mapColorSizeDecreaseThreshold ? largerColorSizeMultiplier : smallerColorSizeMultiplier;
-        int blockY = BLOCK_Y_DEFAULT;
-        List<List<Color>> colors = new ArrayList<>(mapBlockWidth);
-        for (int i = 0; i < mapBlockWidth; ++i) {
-            colors.add(i, new ArrayList<>(mapBlockLength));
+    private static final class RenderedMap {
+        private final MapViewport viewport;
+        private final List<MapTile> tiles;
+        private final String entityTag;
+        private CompletableFuture<byte[]> png;
+
+        private RenderedMap(MapViewport viewport, List<MapTile> tiles) {
+            this.viewport = viewport;
+            this.tiles = tiles;
+            this.entityTag = getEntityTag(viewport.getMinPixelX(), viewport.getMinPixelZ(), viewport.getPixelWidth(), viewport.getPixelLength(),
+                    viewport.getPixelsPerBlock(), tiles);
         }
 
-        EntityRef mapLoadingRef = EntityRef.NULL;
-        // TODO: Change this check to be configurable, so it can be disabled. Also provide feedback for when this doesn't trigger
-        if (ServerAdminsManager.getInstance().getAdminIds().contains(client.getId())) {
-            mapLoadingRef = loadChunks(center, mapBlockWidth, mapBlockLength);
+        private synchronized CompletableFuture<byte[]> getPng() {
+            if (png == null) {
+                png = CompletableFuture.supplyAsync(() -> encodePng(viewport.compose(tiles), viewport.getPixelWidth(),
+                        viewport.getPixelLength(), viewport.getPixelsPerBlock()), RENDER_POOL);
+            }
+            return png;
         }
+    }
 
-        for (int x = (int) Math.floor((double) center.x() - mapBlockWidth / 2); x < (int) Math.ceil((double) mapBlockWidth / 2 + center.x()); ++x) {
-            for (int z = (int) Math.floor((double) center.z() - mapBlockLength / 2); z < (int) Math.ceil((double) mapBlockLength / 2 + center.z()); ++z) {
-                while (worldProvider.getBlock(x, blockY, z).getURI().toString().equals("engine:unloaded")) {
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                    }
-                }
-                mapLoadingRef.destroy();
-                blockY = isSurface ? getSurfaceY(x, blockY, z) : center.y();
-                Block block = worldProvider.getBlock(x, blockY, z);
-                ResourceUrn blockUrn = block.getURI().getBlockFamilyDefinitionUrn();
-                if (Assets.get(blockUrn, BlockTile.class).isPresent()) {
-                    BufferedImage blockImage = Assets.get(blockUrn, BlockTile.class).get().getImage();
-                    colors.get(x - (center.x() - mapBlockWidth / 2)).add(new Color(getColorOfTexture(blockImage, blockY)));
-                } else {
-                    logger.warn("cannot find texture of block " + blockUrn.toString());
-                    colors.get(x - (center.x() - mapBlockWidth / 2)).add(Color.BLACK);
+    /**
+     * Task which gets a tile in the render pool; while it runs, it's shared by all the requests which need the same tile.
+     * The tasks of the render pool join it, while the requests depend on its result stage.
+     */
+    private final class TileTask extends RecursiveTask<MapTile> {
+        private final MapTileKey key;
+        private final CompletableFuture<MapTile> result = new CompletableFuture<>();
+
+        private TileTask(MapTileKey key) {
+            this.key = key;
+        }
+
+        @Override
+        protected MapTile compute() {
+            try {
+                MapTile tile = getTile(key);
+                result.complete(tile);
+                return tile;
+            } catch (RuntimeException | Error ex) {
+                result.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                inFlightTiles.remove(key, this);
+            }
+        }
+    }
+
+    @Override
+    public void initialise() {
+        // this resource is registered again with every new game, so the palette always matches the loaded modules
+        palette.rebuild(blockManager);
+        MapTileStore store = openTileStore();
+        // the column stamps are used in the entity tags sent to clients, so they must not repeat the ones of a previous run;
+        // a thousand stamps per millisecond are far more than the columns which change
+        long firstColumnStamp = System.currentTimeMillis() * 1000;
+        tileCache.advanceColumnStamps(store != null ? Math.max(firstColumnStamp, store.getLatestColumnStamp()) : firstColumnStamp);
+        tileStore = store;
+    }
+
+    @Override
+    public void postSave() {
+        if (tileStore != null) {
+            tileStore.flush();
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (tileStore != null) {
+            try {
+                tileStore.close();
+            } catch (IOException ex) {
+                logger.warn("Failed to close the world map tile store", ex);
+            }
+            tileStore = null;
+        }
+    }
+
+    /**
+     * Release the chunks which aren't needed by the map anymore, and render in the background the missing tiles around the players
+     * and the spawn point, one small batch at a time; this only happens when no client request is being processed and the engine
+     * isn't under load.
+     */
+    @Override
+    public void update(float delta) {
+        getChunkAnchorPool().destroyExpired();
+        preRenderer.onFrame(delta);
+        if (!preRenderer.isScanDue() || (preRenderBatch != null && !preRenderBatch.isDone())
+                || renderScheduler.getRunningJobCount() > 0 || renderScheduler.getQueuedJobCount() > 0) {
+            return;
+        }
+        List<MapTileKey> keys = preRenderer.selectTiles(getPointsOfInterest(), this::needsPreRendering);
+        if (!keys.isEmpty()) {
+            preRenderBatch = RENDER_POOL.submit(() -> keys.forEach((key) -> getTileTask(key).join()));
+        }
+    }
+
+    private List<Vector3fc> getPointsOfInterest() {
+        List<Vector3fc> points = new ArrayList<>();
+        for (Client player : networkSystem.getPlayers()) {
+            ClientComponent clientComponent = player.getEntity().getComponent(ClientComponent.class);
+            LocationComponent location = clientComponent != null ? clientComponent.character.getComponent(LocationComponent.class) : null;
+            if (location != null) {
+                Vector3f position = location.getWorldPosition(new Vector3f());
+                if (position.isFinite()) {
+                    points.add(position);
                 }
             }
         }
+        points.add(getSpawnPosition());
+        return points;
+    }
 
-        int colorSize = (int) (1 / Math.floor(Math.log(mapBlockWidth * mapBlockLength)) * colorSizeMultiplier);
-        BufferedImage mapImage = new BufferedImage(mapBlockWidth * colorSize, mapBlockLength * colorSize, BufferedImage.TYPE_INT_RGB);
-        Graphics2D graphics = mapImage.createGraphics();
-        for (int x = 0; x < mapBlockWidth; ++x) {
-            for (int y = 0; y < mapBlockLength; ++y) {
-                graphics.setColor(colors.get(x).get(y));
-                graphics.fillRect(colorSize * x, colorSize * y, colorSize, colorSize);
+    private Vector3fc getSpawnPosition() {
+        if (spawnPosition == null) {
+            try {
+                spawnPosition = new Vector3f(worldGenerator.getSpawnPosition(EntityRef.NULL));
+            } catch (RuntimeException ex) {
+                logger.warn("Failed to get the spawn position, the map around the origin will be rendered in the background instead", ex);
+                spawnPosition = new Vector3f();
             }
         }
+        return spawnPosition;
+    }
 
-        graphics.dispose();
-        return convertImageToBase64String(mapImage);
+    /**
+     * @return whether the tile isn't available yet and the blocks it shows are loaded.
+     */
+    private boolean needsPreRendering(MapTileKey key) {
+        return !inFlightTiles.containsKey(key) && !isAvailable(Collections.singletonList(key))
+                && getSurfaceHeightmap().getSurfaceY(key.getMinBlockX(), key.getMinBlockZ()) != SurfaceHeightmap.UNKNOWN_HEIGHT;
     }
 
     /**
-     * Converts a BufferedImage into a base64 string.
-     * @param img the image to convert.
-     * @return a base64 encoded string representation of the image, or null if the image cannot be converted.
+     * Open the store of the rendered tiles in the directory of the current game, unless it's disabled.
+     * @return the tile store, or null if it's disabled or it can't be opened.
      */
-    String convertImageToBase64String(final BufferedImage img) {
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    private MapTileStore openTileStore() {
+        int storeSize = WorldMapSettings.getTileStoreSize();
+        if (game == null || storeSize == 0) {
+            return null;
+        }
+        Path storeDirectory = PathManager.getInstance().getSavePath(game.getName()).resolve(TILE_STORE_DIRECTORY);
         try {
-            ImageIO.write(img, "png", byteArrayOutputStream);
-            return Base64.getEncoder().encodeToString(byteArrayOutputStream.toByteArray());
-        } catch (IOException e) {
-            logger.error("cannot convert image to base 64", e);
-        }
-        return null;
-    }
-
-    /**
-     * Get the average color of an individual block's texture and adjust its brightness, where a lower y-coordinate is darker.
-     * @param bufferedImage the texture of a single block.
-     * @param blockY the y coordinate of the block for use in determining brightness.
-     * @return the average color of the block with brightness changed.
-     */
-    int getColorOfTexture(BufferedImage bufferedImage, int blockY) {
-        double brightnessMin = 0.85;
-        double blockYCoordinateBrightnessChange = 0.0015;
-        double brightnessMultiplier = TeraMath.clamp(brightnessMin + blockY * blockYCoordinateBrightnessChange, brightnessMin, 1);
-        int r = 0;
-        int g = 0;
-        int b = 0;
-        for (int x = 0; x < bufferedImage.getWidth(); ++x) {
-            for (int y = 0; y < bufferedImage.getHeight(); ++y) {
-                Color color = new Color(bufferedImage.getRGB(x, y));
-                r += color.getRed();
-                g += color.getGreen();
-                b += color.getBlue();
+            return MapTileStore.open(storeDirectory, storeSize, palette.getHash());
+        } catch (IOException ex) {
+            logger.warn("Failed to open the world map tile store in {}, rendered tiles won't be saved", storeDirectory, ex);
+            return null;
+        }
+    }
+
+    @ReceiveEvent
+    public void onBlockChanged(OnChangedBlock event, EntityRef entity) {
+        Vector3ic position = event.getBlockPosition();
+        getSurfaceHeightmap().onBlockChanged(position);
+        int tileX = MapTileKey.toTileCoordinate(position.x());
+        int tileZ = MapTileKey.toTileCoordinate(position.z());
+        invalidateStoredColumn(tileX, tileZ);
+        onColumnChanged(tileX, tileZ);
+    }
+
+    @ReceiveEvent
+    public void onChunkGenerated(OnChunkGenerated event, EntityRef worldEntity) {
+        // the stored tiles of a newly generated chunk (if any) show a world which doesn't exist anymore
+        Vector3ic chunkPosition = event.getChunkPos();
+        invalidateStoredColumn(chunkPosition.x(), chunkPosition.z());
+    }
+
+    /**
+     * Record that a chunk has been loaded, so that the tiles which were rendered without its blocks are rendered again;
+     * the stored tiles are kept, since they're only made of loaded blocks and loading a chunk doesn't change them.
+     */
+    @ReceiveEvent
+    public void onChunkLoaded(OnChunkLoaded event, EntityRef worldEntity) {
+        // tiles have the same horizontal size as chunks, so tile coordinates are chunk coordinates
+        Vector3ic chunkPosition = event.getChunkPos();
+        getSurfaceHeightmap().onChunkLoaded(chunkPosition);
+        onColumnChanged(chunkPosition.x(), chunkPosition.z());
+        getChunkReadinessService().onChunkLoaded(chunkPosition);
+    }
+
+    @ReceiveEvent
+    public void onChunkUnloading(BeforeChunkUnload event, EntityRef worldEntity) {
+        getSurfaceHeightmap().onChunkUnloaded(event.getChunkPos());
+    }
+
+    @Override
+    protected ResourceMethod<WorldMapInput, WorldMapImage> getGetMethod(ResourcePath path) throws ResourceAccessException {
+        return createAsyncMethod(path, ClientSecurityRequirements.PUBLIC, WorldMapInput.class,
+                (data, client) -> getWorldMapImage(data, client, true));
+    }
+
+    // kept for the clients which expect the image as a base64 string; the GET method should be preferred
+    @Override
+    protected ResourceMethod<WorldMapInput, String> getPutMethod(ResourcePath path) throws ResourceAccessException {
+        return createAsyncMethod(path, ClientSecurityRequirements.PUBLIC, WorldMapInput.class,
+                (data, client) -> getWorldMapImage(data, client, false).thenApply((image) -> Base64.getEncoder().encodeToString(image.getData())));
+    }
+
+    @Override
+    protected ResourceMethod<WorldMapInput, WorldMapImage> getPostMethod(ResourcePath path) throws ResourceAccessException {
+        return createAsyncMethod(path, ClientSecurityRequirements.PUBLIC, WorldMapInput.class, (data, client) -> {
+            // validated before the rendering starts, since the stages can't throw a ResourceAccessException
+            MapViewport viewport = MapViewport.fromInput(data);
+            return getWorldMapImage(data, client, false).thenApply((image) -> {
+                liveViewports.put(client.getEntity(), viewport);
+                return image;
+            });
+        });
+    }
+
+    @Override
+    protected ResourceMethod<Void, Void> getDeleteMethod(ResourcePath path) throws ResourceAccessException {
+        return createVoidParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class,
+                (data, client) -> liveViewports.remove(client.getEntity()));
+    }
+
+    /**
+     * Get the color of blocks in the world map and convert them into a png image.
+     * The map is composed from tiles which cover one chunk column each (or, when zoomed out, the area of 2^n x 2^n chunk columns);
+     * tiles are cached until the blocks they show change. Requests are processed by the render scheduler, so identical
+     * concurrent requests are rendered once, and the client is notified of its position in the queue while it waits.
+     * The rendering is a chain of stages (loading the chunks, rendering the missing tiles in the render pool, encoding the image),
+     * so no thread waits for the chunks or the tiles.
+     * @param data the location, size and mode of the map.
+     * @param client the client which requested the map.
+     * @param checkEntityTag whether an image without data should be returned if the entity tag sent by the client is still valid.
+     * @return a stage which completes with a png image of the world map with location and size depending on the parameters.
+     */
+    private CompletableFuture<WorldMapImage> getWorldMapImage(WorldMapInput data, Client client, boolean checkEntityTag) throws ResourceAccessException {
+        MapViewport viewport = MapViewport.fromInput(data);
+        // TODO: Change this check to be configurable, so it can be disabled. Also provide feedback for when this doesn't trigger
+        // zoomed out maps only show the chunks which are already loaded or stored, since their area can be very large
+        boolean loadChunks = viewport.getLevel() == 0 && ServerAdminsManager.getInstance().getAdminIds().contains(client.getId());
+        EntityRef clientEntity = client.getEntity();
+        CompletableFuture<RenderedMap> rendering = renderScheduler.submit(Arrays.asList(viewport, loadChunks),
+                () -> renderMap(viewport, loadChunks ? data : null),
+                (queuePosition) -> EVENT_SCHEDULER.execute(() -> notifyEvent(clientEntity, new WorldMapProgress(queuePosition))));
+        return rendering.thenCompose((map) -> {
+            if (checkEntityTag && map.entityTag.equals(data.getEntityTag())) {
+                return CompletableFuture.completedFuture(WorldMapImage.notModified(map.entityTag));
+            }
+            return map.getPng().thenApply((png) -> WorldMapImage.of(png, map.entityTag));
+        }).exceptionally((failure) -> {
+            throw new CompletionException(toRenderingException(failure));
+        });
+    }
+
+    private static ResourceAccessException toRenderingException(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof ResourceAccessException) {
+            return (ResourceAccessException) cause;
+        }
+        logger.error("Failed to render the world map", cause);
+        return new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR, "Failed to render the world map."));
+    }
+
+    /**
+     * Get the tiles of a map, loading its chunks first if requested.
+     * @param viewport the area of the map.
+     * @param chunkLoadingInput the input of the request, if the chunks of the map which are not available must be loaded; otherwise null.
+     * @return a stage which completes with the tiles of the map.
+     */
+    private CompletableFuture<RenderedMap> renderMap(MapViewport viewport, WorldMapInput chunkLoadingInput) {
+        List<MapTileKey> tileKeys = viewport.getTileKeys();
+        if (chunkLoadingInput == null || isAvailable(tileKeys)) {
+            return getTiles(tileKeys).thenApply((tiles) -> new RenderedMap(viewport, tiles));
+        }
+        CompletableFuture<ChunkAnchorPool.Anchor> anchorAcquired = loadChunks(chunkLoadingInput.getCenter(),
+                chunkLoadingInput.getMapBlockWidth(), chunkLoadingInput.getMapBlockLength());
+        // the anchor may be acquired by the engine's thread, which must not render the map
+        return anchorAcquired.thenComposeAsync((anchor) -> whenChunksLoaded(viewport, chunkLoadingInput.getCenter())
+                .thenCompose((loaded) -> getTiles(tileKeys))
+                .thenApply((tiles) -> new RenderedMap(viewport, tiles))
+                // the chunks stay loaded for a while, in case the map is requested again
+                .whenComplete((map, failure) -> engineThreadDispatcher.submit(() -> {
+                    getChunkAnchorPool().release(anchor);
+                    return null;
+                })), RENDER_POOL);
+    }
+
+    private void invalidateStoredColumn(int tileX, int tileZ) {
+        MapTileStore store = tileStore;
+        if (store != null) {
+            store.invalidateColumn(tileX, tileZ);
+        }
+    }
+
+    /**
+     * Record that the blocks of a tile column have changed or have been loaded, so that the cached tiles which show it are discarded
+     * and the clients with a live map of the area get the updated tiles after a short delay.
+     */
+    private void onColumnChanged(int tileX, int tileZ) {
+        tileCache.invalidateColumn(tileX, tileZ);
+        if (liveViewports.isEmpty()) {
+            return;
+        }
+        synchronized (changedColumns) {
+            changedColumns.add(new Vector2i(tileX, tileZ));
+            if (!liveUpdateScheduled) {
+                // the changes which happen before the update is sent are coalesced into it
+                liveUpdateScheduled = true;
+                EVENT_SCHEDULER.schedule(this::sendLiveUpdates, LIVE_UPDATE_DELAY_MS, TimeUnit.MILLISECONDS);
             }
         }
-        int imageSize = bufferedImage.getWidth() * bufferedImage.getHeight();
-        r /= imageSize;
-        r *= brightnessMultiplier;
-        g /= imageSize;
-        g *= brightnessMultiplier;
-        b /= imageSize;
-        b *= brightnessMultiplier;
-        // get rid of the alpha because it is always 255
-        return new Color(r, g, b).getRGB() & 0x00FFFFFF;
-    }
-
-    /**
-     * Get the y coordinate of the block at the given x and z coordinates where the block is at the surface.
-     * This method is heavily inspired by the renderCell method of the MinimapGrid class in the Minimap module.
-     * @param x the x coordinate of the block
-     * @param yEstimate an estimate of the y coordinate
-     * @param z the z coordinate of the block
-     * @return the y coordinate of the block
-     */
-    private int getSurfaceY(int x, int yEstimate, int z) {
-        final int yMinimum = 0;
-        final int yMaximum = 200;
-        int y = yEstimate;
-        Block block = worldProvider.getBlock(x, yEstimate, z);
-        if (isIgnoredByMap(block)) {
-            while (isIgnoredByMap(block)) {
-                --y;
-                block = worldProvider.getBlock(x, y, z);
-                if (y <= yMinimum) {
-                    return BLOCK_Y_DEFAULT;
+    }
+
+    private void sendLiveUpdates() {
+        Set<Vector2ic> columns;
+        synchronized (changedColumns) {
+            columns = new HashSet<>(changedColumns);
+            changedColumns.clear();
+            liveUpdateScheduled = false;
+        }
+        for (Map.Entry<EntityRef, MapViewport> subscription : liveViewports.entrySet()) {
+            EntityRef clientEntity = subscription.getKey();
+            if (!clientEntity.exists()) {
+                // the client has disconnected
+                liveViewports.remove(clientEntity);
+                continue;
+            }
+            getLiveUpdate(subscription.getValue(), columns).whenCompleteAsync((update, failure) -> {
+                if (failure != null) {
+                    logger.warn("Failed to send a live world map update", failure);
+                } else if (!update.isEmpty()) {
+                    notifyEvent(clientEntity, update);
                 }
+            }, EVENT_SCHEDULER);
+        }
+    }
+
+    /**
+     * Render the parts of a live map which are covered by the changed tile columns.
+     * @param viewport the viewport of the live map.
+     * @param columns the tile columns (of level 0) which have changed.
+     * @return a stage which completes with the update to send to the client.
+     */
+    private CompletableFuture<WorldMapUpdate> getLiveUpdate(MapViewport viewport, Set<Vector2ic> columns) {
+        int level = viewport.getLevel();
+        Set<MapTileKey> changedKeys = new LinkedHashSet<>();
+        for (Vector2ic column : columns) {
+            if (viewport.coversColumn(column.x(), column.y())) {
+                changedKeys.add(new MapTileKey(column.x() >> level, column.y() >> level, viewport.getBlockY(), level));
             }
-        } else {
-            while (!isIgnoredByMap(block)) {
-                ++y;
-                block = worldProvider.getBlock(x, y, z);
-                if (y >= yMaximum) {
-                    return BLOCK_Y_DEFAULT;
+        }
+        return getTiles(new ArrayList<>(changedKeys)).thenApplyAsync((tiles) -> {
+            WorldMapUpdate update = new WorldMapUpdate();
+            int pixelsPerBlock = viewport.getPixelsPerBlock();
+            for (MapTile tile : tiles) {
+                MapViewport region = viewport.clip(tile.getKey());
+                if (region != null) {
+                    byte[] regionImage = encodePng(region.compose(Collections.singletonList(tile)), region.getPixelWidth(),
+                            region.getPixelLength(), pixelsPerBlock);
+                    update.addRegion((region.getMinPixelX() - viewport.getMinPixelX()) * pixelsPerBlock,
+                            (region.getMinPixelZ() - viewport.getMinPixelZ()) * pixelsPerBlock, regionImage);
                 }
             }
-            --y;
+            return update;
+        }, RENDER_POOL);
+    }
+
+    /**
+     * Compute an entity tag for a map image, which changes when the area, the scale or any of the tiles change.
+     * Since the version of a tile changes with the blocks of its column and with the palette, the tag also identifies the content of the image.
+     */
+    static String getEntityTag(int minX, int minZ, int mapBlockWidth, int mapBlockLength, int pixelsPerBlock, List<MapTile> tiles) {
+        long hash = 17;
+        for (long value : new long[] {minX, minZ, mapBlockWidth, mapBlockLength, pixelsPerBlock}) {
+            hash = hash * 31 + value;
+        }
+        for (MapTile tile : tiles) {
+            hash = hash * 31 + tile.getKey().hashCode();
+            hash = hash * 31 + tile.getVersion();
+        }
+        return Long.toHexString(hash);
+    }
+
+    /**
+     * Get a stage which completes when the chunks of the map area are loaded, or when the loading timeout expires;
+     * in the latter case the blocks which are still not loaded are rendered black.
+     * The surface may be at any height, so for surface maps all the chunk layers kept loaded by the anchor are waited for.
+     */
+    private CompletableFuture<Void> whenChunksLoaded(MapViewport viewport, Vector3ic center) {
+        int minY = viewport.getBlockY();
+        int maxY = minY + 1;
+        if (viewport.isSurface()) {
+            int centerChunkY = Math.floorDiv(center.y(), Chunks.SIZE_Y);
+            minY = (centerChunkY - ANCHOR_VERTICAL_CHUNKS / 2) * Chunks.SIZE_Y;
+            maxY = (centerChunkY + ANCHOR_VERTICAL_CHUNKS / 2 + 1) * Chunks.SIZE_Y;
+        }
+        // the timeout completes the future of the readiness service, which stops tracking the area
+        return getChunkReadinessService().whenLoaded(viewport.getMinBlockX(), viewport.getMinBlockZ(),
+                viewport.getMaxBlockX(), viewport.getMaxBlockZ(), minY, maxY)
+                .orTimeout(CHUNK_LOADING_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .handle((loaded, failure) -> {
+                    if (failure instanceof TimeoutException) {
+                        logger.warn("Not all the chunks of the world map were loaded within {} seconds", CHUNK_LOADING_TIMEOUT_SECONDS);
+                    } else if (failure != null) {
+                        logger.error("Failed to wait for the chunks of the world map", failure);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Get the tiles with the specified keys; the ones which are not cached are rendered in parallel,
+     * each one in a separate task of the render pool. Tiles which are already being rendered for another request are not rendered again.
+     * @param keys the keys of the tiles to get.
+     * @return a stage which completes with the tiles, in the same order as the keys.
+     */
+    private CompletableFuture<List<MapTile>> getTiles(List<MapTileKey> keys) {
+        MapTile[] tiles = new MapTile[keys.size()];
+        List<CompletableFuture<?>> renderings = new ArrayList<>();
+        for (int i = 0; i < tiles.length; ++i) {
+            tiles[i] = tileCache.get(keys.get(i));
+            if (tiles[i] == null) {
+                int index = i;
+                renderings.add(getTileTask(keys.get(i)).result.thenAccept((tile) -> tiles[index] = tile));
+            }
+        }
+        return CompletableFuture.allOf(renderings.toArray(new CompletableFuture<?>[0])).thenApply((rendered) -> Arrays.asList(tiles));
+    }
+
+    /**
+     * Get the task which renders a tile, starting it unless the tile is already being rendered.
+     */
+    private TileTask getTileTask(MapTileKey key) {
+        TileTask newTask = new TileTask(key);
+        TileTask task = inFlightTiles.putIfAbsent(key, newTask);
+        if (task != null) {
+            return task;
+        }
+        if (ForkJoinTask.getPool() == RENDER_POOL) {
+            newTask.fork();
+        } else {
+            RENDER_POOL.execute(newTask);
+        }
+        return newTask;
+    }
+
+    /**
+     * @return whether all the specified tiles are cached or stored, so that they can be obtained without loading any chunk.
+     */
+    private boolean isAvailable(List<MapTileKey> keys) {
+        MapTileStore store = tileStore;
+        for (MapTileKey key : keys) {
+            if (tileCache.get(key) == null && (store == null || !store.contains(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get a tile from the cache or, if it's not cached, from the tile store; if it's not stored either, render it.
+     */
+    private MapTile getTile(MapTileKey key) {
+        MapTile tile = tileCache.get(key);
+        if (tile != null) {
+            return tile;
+        }
+        MapTileStore store = tileStore;
+        long invalidationStamp = tileCache.getInvalidationCount();
+        long storeInvalidationStamp = store != null ? store.getInvalidationCount() : 0;
+        // taken after the invalidation stamp, so that a tile with an outdated column stamp is never cached
+        long columnStamp = tileCache.getColumnStamp(key);
+        tile = store != null ? store.get(key) : null;
+        if (tile == null) {
+            tile = key.getLevel() == 0 ? getTileRenderer().render(key, columnStamp) : MapTileRenderer.downsample(key, getChildTiles(key));
+            if (store != null) {
+                store.putIfNotInvalidatedSince(tile, storeInvalidationStamp);
+            }
+        }
+        if (tile.isComplete()) {
+            tileCache.putIfNotInvalidatedSince(tile, invalidationStamp);
+        }
+        return tile;
+    }
+
+    /**
+     * Get the tiles of the level below which make up a zoomed out tile; the missing ones are rendered as parallel subtasks.
+     */
+    private MapTile[] getChildTiles(MapTileKey key) {
+        MapTileKey[] childKeys = key.getChildren();
+        MapTile[] children = new MapTile[childKeys.length];
+        ForkJoinTask<?>[] childTasks = new ForkJoinTask<?>[childKeys.length];
+        for (int i = 0; i < childKeys.length; ++i) {
+            children[i] = tileCache.get(childKeys[i]);
+            if (children[i] == null) {
+                childTasks[i] = getTileTask(childKeys[i]);
+            }
+        }
+        for (int i = 0; i < childKeys.length; ++i) {
+            if (childTasks[i] != null) {
+                children[i] = (MapTile) childTasks[i].join();
+            }
+        }
+        return children;
+    }
+
+    private synchronized MapTileRenderer getTileRenderer() {
+        if (tileRenderer == null) {
+            tileRenderer = new MapTileRenderer(worldProvider, palette, getSurfaceHeightmap());
+        }
+        return tileRenderer;
+    }
+
+    /**
+     * @return the index of the surface height of the loaded chunks, which can be used for any query about the topmost blocks of the world.
+     */
+    public synchronized SurfaceHeightmap getSurfaceHeightmap() {
+        if (surfaceHeightmap == null) {
+            surfaceHeightmap = new SurfaceHeightmap(worldProvider);
+        }
+        return surfaceHeightmap;
+    }
+
+    private synchronized ChunkAnchorPool getChunkAnchorPool() {
+        if (chunkAnchorPool == null) {
+            chunkAnchorPool = new ChunkAnchorPool(entityManager, WorldMapSettings.getChunkAnchors(),
+                    TimeUnit.SECONDS.toMillis(WorldMapSettings.getChunkAnchorLingerTime()), System::currentTimeMillis);
         }
-        return y;
+        return chunkAnchorPool;
+    }
+
+    private synchronized ChunkReadinessService getChunkReadinessService() {
+        if (chunkReadinessService == null) {
+            chunkReadinessService = new ChunkReadinessService(worldProvider);
+        }
+        return chunkReadinessService;
     }
 
     /**
-     * Determine if the given block should be ignored when trying to find the y-coordinate of a block.
-     * @param block the block to check.
-     * @return whether or not the block should be ignored.
+     * Encode the image of a map as png, scaling each block to a square of pixelsPerBlock * pixelsPerBlock pixels.
+     * @param colors the block colors, row by row (index = z * mapBlockWidth + x).
+     * @param mapBlockWidth the width of the map, in blocks.
+     * @param mapBlockLength the length of the map, in blocks.
+     * @param pixelsPerBlock the width and height of each block in the image.
+     * @return the png image.
+     * @throws CompletionException wrapping a {@link ResourceAccessException}, if the image can't be encoded.
      */
-    private static boolean isIgnoredByMap(Block block) {
-        return block.isPenetrable() && !block.isWater() && !block.getURI().toString().equals("engine:unloaded");
+    private static byte[] encodePng(int[] colors, int mapBlockWidth, int mapBlockLength, int pixelsPerBlock) {
+        try {
+            return PNG_ENCODER.encode(colors, mapBlockWidth, mapBlockLength, pixelsPerBlock);
+        } catch (IOException e) {
+            logger.error("cannot encode the world map image", e);
+            throw new CompletionException(new ResourceAccessException(new ActionResult(ActionResult.Status.GENERIC_ERROR,
+                    "Failed to encode the world map image.")));
+        }
     }
 
     /**
      * load all chunks around the designated map area so that the texture of each can be obtained.
+     * The chunks stay loaded until the returned anchor is released to the pool, and for the linger time after that.
+     * The anchor entities are only changed on the engine's thread, while a game is running.
      * @param center the location of the block in the center of the map.
      * @param mapBlockWidth the width of the map.
      * @param mapBlockLength the length of the map.
+     * @return a stage which completes with the anchor once it's in place.
      */
-    EntityRef loadChunks(Vector3i center, int mapBlockWidth, int mapBlockLength) {
-        final int maximumVerticalChunks = 8;
-        LocationComponent locationComponent = new LocationComponent();
-        locationComponent.setWorldPosition(new Vector3f(center));
-        RelevanceRegionComponent relevanceRegionComponent = new RelevanceRegionComponent();
-        relevanceRegionComponent.distance = new Vector3i(((int) Math.ceil((double) mapBlockWidth / Chunks.SIZE_X) * 2) + 2, maximumVerticalChunks,
+    CompletableFuture<ChunkAnchorPool.Anchor> loadChunks(Vector3i center, int mapBlockWidth, int mapBlockLength) {
+        Vector3i distance = new Vector3i(((int) Math.ceil((double) mapBlockWidth / Chunks.SIZE_X) * 2) + 2, ANCHOR_VERTICAL_CHUNKS,
                 ((int) Math.ceil((double) mapBlockLength / Chunks.SIZE_Z) * 2) + 2);
-        return entityManager.create(locationComponent, relevanceRegionComponent);
+        CompletionStage<ChunkAnchorPool.Anchor> anchor = engineThreadDispatcher.submit(() -> getChunkAnchorPool().acquire(center, distance));
+        return anchor.toCompletableFuture();
     }
 
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+/**
+ * Settings of the world map rendering, which can be changed with system properties
+ * (the ones with a command line option are set by {@link org.terasology.web.ServerMain}).
+ */
+public final class WorldMapSettings {
+
+    public static final String RENDER_THREADS_PROPERTY = "facade.worldMap.renderThreads";
+    public static final String TILE_CACHE_SIZE_PROPERTY = "facade.worldMap.tileCacheSize";
+    public static final String TILE_STORE_SIZE_PROPERTY = "facade.worldMap.tileStoreSize";
+    public static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "facade.worldMap.maxConcurrentRequests";
+    public static final String MAX_QUEUED_REQUESTS_PROPERTY = "facade.worldMap.maxQueuedRequests";
+    public static final String PRE_RENDER_RADIUS_PROPERTY = "facade.worldMap.preRenderRadius";
+    public static final String PRE_RENDER_MAX_FRAME_TIME_PROPERTY = "facade.worldMap.preRenderMaxFrameTime";
+    public static final String CHUNK_ANCHORS_PROPERTY = "facade.worldMap.chunkAnchors";
+    public static final String CHUNK_ANCHOR_LINGER_TIME_PROPERTY = "facade.worldMap.chunkAnchorLingerTime";
+    public static final String PNG_COMPRESSION_LEVEL_PROPERTY = "facade.worldMap.pngCompressionLevel";
+
+    private static final int DEFAULT_TILE_CACHE_SIZE = 1024;
+    private static final int DEFAULT_TILE_STORE_SIZE = 65536;
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 2;
+    private static final int DEFAULT_MAX_QUEUED_REQUESTS = 32;
+    private static final int DEFAULT_PRE_RENDER_RADIUS = 4;
+    private static final int DEFAULT_PRE_RENDER_MAX_FRAME_TIME = 50;
+    private static final int DEFAULT_CHUNK_ANCHORS = 4;
+    private static final int DEFAULT_CHUNK_ANCHOR_LINGER_TIME = 30;
+    private static final int DEFAULT_PNG_COMPRESSION_LEVEL = 6;
+
+    private WorldMapSettings() {
+    }
+
+    /**
+     * @return the number of threads used to render the map tiles; by default, one less than the available processors
+     * so that a core is left for the engine.
+     */
+    public static int getRenderThreads() {
+        int defaultThreads = Runtime.getRuntime().availableProcessors() - 1;
+        return Math.max(1, Integer.getInteger(RENDER_THREADS_PROPERTY, defaultThreads));
+    }
+
+    /**
+     * @return the maximum number of rendered tiles kept in memory.
+     */
+    public static int getTileCacheSize() {
+        return Math.max(1, Integer.getInteger(TILE_CACHE_SIZE_PROPERTY, DEFAULT_TILE_CACHE_SIZE));
+    }
+
+    /**
+     * @return the maximum number of rendered tiles kept on disk for each game, or 0 if the tiles must not be stored on disk.
+     * Changes only apply to the games whose tile store hasn't been created yet.
+     */
+    public static int getTileStoreSize() {
+        return Math.max(0, Integer.getInteger(TILE_STORE_SIZE_PROPERTY, DEFAULT_TILE_STORE_SIZE));
+    }
+
+    /**
+     * @return the maximum number of world map requests which are processed at the same time; identical requests count as one.
+     */
+    public static int getMaxConcurrentRequests() {
+        return Math.max(1, Integer.getInteger(MAX_CONCURRENT_REQUESTS_PROPERTY, DEFAULT_MAX_CONCURRENT_REQUESTS));
+    }
+
+    /**
+     * @return the maximum number of world map requests waiting to be processed; further requests are rejected.
+     */
+    public static int getMaxQueuedRequests() {
+        return Math.max(0, Integer.getInteger(MAX_QUEUED_REQUESTS_PROPERTY, DEFAULT_MAX_QUEUED_REQUESTS));
+    }
+
+    /**
+     * @return the radius, in tiles, of the area around the players and the spawn point which is rendered in the background,
+     * or 0 if the background rendering is disabled.
+     */
+    public static int getPreRenderRadius() {
+        return Math.max(0, Integer.getInteger(PRE_RENDER_RADIUS_PROPERTY, DEFAULT_PRE_RENDER_RADIUS));
+    }
+
+    /**
+     * @return the average engine frame time, in milliseconds, above which the background rendering pauses.
+     */
+    public static int getPreRenderMaxFrameTime() {
+        return Math.max(1, Integer.getInteger(PRE_RENDER_MAX_FRAME_TIME_PROPERTY, DEFAULT_PRE_RENDER_MAX_FRAME_TIME));
+    }
+
+    /**
+     * @return the number of entities which are reused to keep loaded the chunks of the maps requested by admins.
+     */
+    public static int getChunkAnchors() {
+        return Math.max(0, Integer.getInteger(CHUNK_ANCHORS_PROPERTY, DEFAULT_CHUNK_ANCHORS));
+    }
+
+    /**
+     * @return how long, in seconds, the chunks of a map stay loaded after it has been rendered.
+     */
+    public static int getChunkAnchorLingerTime() {
+        return Math.max(0, Integer.getInteger(CHUNK_ANCHOR_LINGER_TIME_PROPERTY, DEFAULT_CHUNK_ANCHOR_LINGER_TIME));
+    }
+
+    /**
+     * @return the deflate level of the map images, from 0 (fastest) to 9 (smallest).
+     */
+    public static int getPngCompressionLevel() {
+        return Math.min(9, Math.max(0, Integer.getInteger(PNG_COMPRESSION_LEVEL_PROPERTY, DEFAULT_PNG_COMPRESSION_LEVEL)));
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event sent to the clients which are subscribed to live updates of the world map, containing the parts
+ * of their map image which have changed.
+ */
+public class WorldMapUpdate {
+
+    private final List<Region> regions = new ArrayList<>();
+
+    /**
+     * A rectangular part of the map image which has changed.
+     */
+    public static class Region {
+        private final int x;
+        private final int y;
+        private final byte[] image;
+
+        Region(int x, int y, byte[] image) {
+            this.x = x;
+            this.y = y;
+            this.image = image;
+        }
+
+        /**
+         * @return the horizontal position, in pixels, of the region in the map image.
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return the vertical position, in pixels, of the region in the map image.
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return the new content of the region as a png image.
+         */
+        public byte[] getImage() {
+            return image;
+        }
+    }
+
+    void addRegion(int x, int y, byte[] image) {
+        regions.add(new Region(x, y, image));
+    }
+
+    public List<Region> getRegions() {
+        return regions;
+    }
+
+    public boolean isEmpty() {
+        return regions.isEmpty();
+    }
+}
@@ -39,6 +39,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Manages the serverAdminPermissions.json file in the server directory.
@@ -61,6 +62,8 @@ public final class AdminPermissionManager implements DefaultComponentSystem {
     private Set<IdPermissionPair> serverAdminPermissions;
     private Runnable onListChanged = () -> {
     };
+    private Consumer<String> onPermissionsChanged = (id) -> {
+    };
 
     AdminPermissionManager(Path adminPermissionsFilePath, boolean autoSave) {
         this.adminPermissionsFilePath = adminPermissionsFilePath;
@@ -128,11 +131,13 @@ public final class AdminPermissionManager implements DefaultComponentSystem {
         if (playerToChange != EntityRef.NULL) {
             updateAdminConsolePermissions(adminId, playerToChange);
         }
+        onPermissionsChanged.accept(adminId);
     }
 
     public void addAdmin(String id) {
         serverAdminPermissions.add(new IdPermissionPair(id, PermissionType.generatePermissionMap(false)));
         onListChanged.run();
+        onPermissionsChanged.accept(id);
     }
 
     public void removeAdmin(String id) {
@@ -144,6 +149,7 @@ public final class AdminPermissionManager implements DefaultComponentSystem {
         IdPermissionPair adminPermission = new IdPermissionPair(id, getPermissionsOfAdmin(id));
         serverAdminPermissions.remove(adminPermission);
         onListChanged.run();
+        onPermissionsChanged.accept(id);
     }
 
     public Map<PermissionType, Boolean> getPermissionsOfAdmin(String id) {
@@ -168,6 +174,7 @@ public final class AdminPermissionManager implements DefaultComponentSystem {
             }
         }
         setServerAdminPermissions(newValue);
+        onPermissionsChanged.accept(null);
     }
 
     public void saveAdminPermissionList() throws IOException {
@@ -180,6 +187,14 @@ public final class AdminPermissionManager implements DefaultComponentSystem {
         onListChanged = callback;
     }
 
+    /**
+     * Set a callback to run when the permissions of an admin change.
+     * @param callback receives the id of the admin whose permissions changed, or null if the whole list was reloaded.
+     */
+    public void setOnPermissionsChangedCallback(Consumer<String> callback) {
+        onPermissionsChanged = callback;
+    }
+
     public Set<IdPermissionPair> getAdminPermissions() {
         return serverAdminPermissions;
     }
@@ -28,6 +28,7 @@ import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * This class loads, adds, and removes admins by changing the serverAdmins.json file.
@@ -44,6 +45,7 @@ public final class ServerAdminsManager {
     private final boolean autoSave;
     private Set<String> serverAdminIds;
     private Runnable onListChanged = () -> { };
+    private Consumer<String> onAdminChanged = (id) -> { };
 
     ServerAdminsManager(Path adminListFilePath, boolean autoSave) {
         this.adminListFilePath = adminListFilePath;
@@ -63,6 +65,15 @@ public final class ServerAdminsManager {
         onListChanged = callback;
     }
 
+    /**
+     * Set a callback to run when the admin permissions of some clients change.
+     * @param callback receives the id of the client whose admin permissions changed, or null if those of every client may have changed
+     *                 (e.g. when the first admin is added, since anonymous admin access is disabled).
+     */
+    public void setOnAdminChangedCallback(Consumer<String> callback) {
+        onAdminChanged = callback;
+    }
+
     @SuppressWarnings("unchecked")
     public void loadAdminList() {
         Set<String> newValue;
@@ -75,6 +86,7 @@ public final class ServerAdminsManager {
         }
         setServerAdminIds(newValue);
         adminPermissionManager.loadAdminPermissionList();
+        onAdminChanged.accept(null);
     }
 
     public void saveAdminList() {
@@ -105,12 +117,14 @@ public final class ServerAdminsManager {
     }
 
     public void addAdmin(String id) {
+        boolean wasAnonymousAdminAccessEnabled = isAnonymousAdminAccessEnabled();
         serverAdminIds.add(id);
         adminPermissionManager.addAdmin(id);
         if (autoSave) {
             saveAdminList();
         }
         onListChanged.run();
+        onAdminChanged.accept(wasAnonymousAdminAccessEnabled ? null : id);
     }
 
     public void removeAdmin(String id) {
@@ -120,6 +134,7 @@ public final class ServerAdminsManager {
             saveAdminList();
         }
         onListChanged.run();
+        onAdminChanged.accept(isAnonymousAdminAccessEnabled() ? null : id);
     }
 
     public Set<String> getAdminIds() {
@@ -16,28 +16,42 @@
 package org.terasology.web.servlet;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import org.terasology.web.io.ActionResult;
+import org.terasology.web.io.ActionResultMessageBodyWriter;
+import org.terasology.web.io.BinaryResult;
 import org.terasology.web.io.JsonSession;
+import org.terasology.web.resources.base.AsyncResourceMethod;
 import org.terasology.web.resources.base.ResourceMethodName;
+import org.terasology.web.resources.worldMap.WorldMapImage;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Servlet used to expose the REST API over http.
@@ -130,46 +144,141 @@ public class HttpAPIServlet {
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourceGet(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourceGet(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                  @Suspended AsyncResponse response) {
+        accessResource(data, request, resourcePath, response);
     }
 
     @POST
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourcePost(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourcePost(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                   @Suspended AsyncResponse response) {
+        accessResource(data, request, resourcePath, response);
     }
 
     @PUT
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourcePut(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourcePut(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                  @Suspended AsyncResponse response) {
+        accessResource(data, request, resourcePath, response);
     }
 
     @DELETE
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourceDelete(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourceDelete(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                     @Suspended AsyncResponse response) {
+        accessResource(data, request, resourcePath, response);
     }
 
     @PATCH
     @Path(RESOURCE_PATH_MATCHER)
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public ActionResult accessResourcePatch(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath) {
-        return accessResource(data, request, resourcePath);
+    public void accessResourcePatch(JsonElement data, @Context HttpServletRequest request, @PathParam(RESOURCE_PATH_PARAM) String resourcePath,
+                                    @Suspended AsyncResponse response) {
+        accessResource(data, request, resourcePath, response);
     }
 
-    private ActionResult accessResource(JsonElement data, HttpServletRequest request, String resourcePath) {
+    /**
+     * Perform several resource operations with a single request: the body is an array of objects with the
+     * {@code method}, {@code resourcePath} (as an array) and {@code data} keys, and the response is the array of their results.
+     */
+    @POST
+    @Path("batch")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public void accessResourcesBatch(JsonElement data, @Context HttpServletRequest request, @Suspended AsyncResponse response) {
+        resumeOnCompletion(getSession(request).accessResourcesAsync(data), response);
+    }
+
+    /**
+     * Get a png image of the world map as raw bytes; the response has an ETag header, and if the If-None-Match header
+     * matches the current image an empty 304 response is sent instead. The request thread is released while the map is rendered.
+     */
+    @GET
+    @Path("worldMap.png")
+    @Produces(WorldMapImage.CONTENT_TYPE)
+    public void getWorldMapImage(@QueryParam("x") int x, @QueryParam("y") int y, @QueryParam("z") int z,
+                                     @QueryParam("width") int width, @QueryParam("length") int length,
+                                     @QueryParam("surface") boolean surface, @QueryParam("pixelsPerBlock") int pixelsPerBlock,
+                                     @QueryParam("zoomLevel") int zoomLevel,
+                                     @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch, @Context HttpServletRequest request,
+                                     @Suspended AsyncResponse response) {
+        JsonObject center = new JsonObject();
+        center.addProperty("x", x);
+        center.addProperty("y", y);
+        center.addProperty("z", z);
+        JsonObject data = new JsonObject();
+        data.add("center", center);
+        data.addProperty("mapBlockWidth", width);
+        data.addProperty("mapBlockLength", length);
+        data.addProperty("surface", surface);
+        data.addProperty("pixelsPerBlock", pixelsPerBlock);
+        data.addProperty("zoomLevel", zoomLevel);
+        data.addProperty("entityTag", parseEntityTag(ifNoneMatch));
+        accessBinaryResource(data, request, Collections.singletonList("worldMap"), response);
+    }
+
+    private void accessBinaryResource(JsonElement data, HttpServletRequest request, List<String> resourcePath, AsyncResponse response) {
+        getSession(request).accessBinaryResourceAsync(resourcePath, ResourceMethodName.GET, data).whenComplete((result, failure) -> {
+            if (failure != null) {
+                ActionResult error = AsyncResourceMethod.toResourceAccessException(failure).getResultToSend();
+                response.resume(new JsonWebApplicationException(error.getMessage(), ActionResultMessageBodyWriter.getResponseStatus(error.getStatus())));
+            } else {
+                response.resume(toBinaryResponse(result));
+            }
+        });
+    }
+
+    private static Response toBinaryResponse(BinaryResult result) {
+        EntityTag entityTag = result.getEntityTag() != null ? new EntityTag(result.getEntityTag()) : null;
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoCache(true); // the client can keep the data, but must revalidate it with the ETag
+        if (result.getData() == null) {
+            return Response.notModified(entityTag).cacheControl(cacheControl).build();
+        }
+        return Response.ok(result.getData(), result.getContentType()).tag(entityTag).cacheControl(cacheControl).build();
+    }
+
+    private static String parseEntityTag(String header) {
+        if (header == null) {
+            return null;
+        }
+        String entityTag = header.trim();
+        if (entityTag.startsWith("W/")) {
+            entityTag = entityTag.substring(2);
+        }
+        if (entityTag.length() >= 2 && entityTag.startsWith("\"") && entityTag.endsWith("\"")) {
+            entityTag = entityTag.substring(1, entityTag.length() - 1);
+        }
+        return entityTag;
+    }
+
+    /**
+     * Perform the request and resume the response when it completes, so that the request thread isn't blocked
+     * by the resource methods which complete in the background.
+     */
+    private void accessResource(JsonElement data, HttpServletRequest request, String resourcePath, AsyncResponse response) {
+        // the request must not be accessed once the stage completes on another thread, so everything needed is read here
         List<String> splitPath = Arrays.asList(resourcePath.split("/"));
         ResourceMethodName resourceMethodName = ResourceMethodName.valueOf(request.getMethod());
-        return getSession(request).accessResource(splitPath, resourceMethodName, data);
+        resumeOnCompletion(getSession(request).accessResourceAsync(splitPath, resourceMethodName, data), response);
+    }
+
+    private static void resumeOnCompletion(CompletionStage<ActionResult> result, AsyncResponse response) {
+        result.whenComplete((value, failure) -> {
+            if (failure != null) {
+                response.resume(failure);
+            } else {
+                response.resume(value);
+            }
+        });
     }
 
 }
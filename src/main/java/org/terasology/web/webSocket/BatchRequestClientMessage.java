@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import com.google.gson.JsonElement;
+import org.terasology.web.io.gsonUtils.InvalidClientMessageException;
+import org.terasology.web.io.gsonUtils.Validable;
+
+/**
+ * Represents a batch of client requests, which are answered with a single message.
+ */
+public class BatchRequestClientMessage implements Validable {
+
+    // parsed by JsonSession#accessResourcesAsync, so that the format is the same as over HTTP
+    private JsonElement operations;
+    // optional, like in ResourceRequestClientMessage
+    private String requestId;
+
+    public JsonElement getOperations() {
+        return operations;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    @Override
+    public void validate() throws InvalidClientMessageException {
+        if (operations == null) {
+            throw new InvalidClientMessageException("the operations must be specified");
+        }
+    }
+}
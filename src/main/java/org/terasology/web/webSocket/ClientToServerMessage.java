@@ -27,7 +27,13 @@ public class ClientToServerMessage implements Validable {
     public enum MessageType {
         AUTHENTICATION_REQUEST,
         AUTHENTICATION_DATA,
-        RESOURCE_REQUEST
+        RESOURCE_REQUEST,
+        BINARY_RESOURCE_REQUEST,
+        BATCH_REQUEST,
+        SUBSCRIBE,
+        UNSUBSCRIBE,
+        UPDATE_FORMAT,
+        RESYNC
     }
 
     private MessageType messageType;
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+import org.terasology.web.io.gsonUtils.InvalidClientMessageException;
+import org.terasology.web.io.gsonUtils.Validable;
+
+import java.util.Collection;
+
+/**
+ * Represents a client message which only refers to a resource path, e.g. to start or stop receiving the changes of the
+ * resources below it.
+ */
+public class ResourcePathClientMessage implements Validable {
+
+    private Collection<String> resourcePath;
+
+    public Collection<String> getResourcePath() {
+        return resourcePath;
+    }
+
+    @Override
+    public void validate() throws InvalidClientMessageException {
+        if (resourcePath == null) {
+            throw new InvalidClientMessageException("a resource path must be specified");
+        }
+    }
+}
@@ -15,40 +15,17 @@
  */
 package org.terasology.web.webSocket;
 
-import com.google.gson.JsonElement;
-import org.terasology.web.io.gsonUtils.InvalidClientMessageException;
-import org.terasology.web.io.gsonUtils.Validable;
-import org.terasology.web.resources.base.ResourceMethodName;
-
-import java.util.Collection;
+import org.terasology.web.io.ResourceOperation;
 
 /**
  * Represents a client request for a {@link org.terasology.web.resources.base.Resource}.
  */
-public class ResourceRequestClientMessage implements Validable {
-
-    private ResourceMethodName method;
-    private Collection<String> resourcePath;
-    private JsonElement data;
-
-    public ResourceMethodName getMethod() {
-        return method;
-    }
+public class ResourceRequestClientMessage extends ResourceOperation {
 
-    public Collection<String> getResourcePath() {
-        return resourcePath;
-    }
-
-    public JsonElement getData() {
-        return data;
-    }
+    // optional; if set, the result may be sent before the results of the previous requests, tagged with this id
+    private String requestId;
 
-    @Override
-    public void validate() throws InvalidClientMessageException {
-        if (method == null) {
-            throw new InvalidClientMessageException("an action must be specified");
-        } else if (resourcePath == null) {
-            throw new InvalidClientMessageException("a resource path must be specified");
-        }
+    public String getRequestId() {
+        return requestId;
     }
 }
@@ -27,12 +27,18 @@ public class ServerToClientMessage {
     public enum MessageType {
         ACTION_RESULT,
         RESOURCE_CHANGED,
+        RESOURCE_PATCHED,
         RESOURCE_EVENT
     }
 
     private MessageType messageType;
     private Collection<String> resourcePath;
     private JsonElement data;
+    // only set for the versioned resource changes
+    private Long version;
+    private Long baseVersion;
+    // only set for the results of the requests which were tagged with an id by the client
+    private String requestId;
 
     public ServerToClientMessage(MessageType messageType, Collection<String> resourcePath, JsonElement data) {
         this.messageType = messageType;
@@ -40,6 +46,24 @@ public class ServerToClientMessage {
         this.data = data;
     }
 
+    /**
+     * @param version the version of the resource's state after the change.
+     * @param baseVersion for patches, the version of the resource's state the patch must be applied to; otherwise null.
+     */
+    public ServerToClientMessage(MessageType messageType, Collection<String> resourcePath, JsonElement data, Long version, Long baseVersion) {
+        this(messageType, resourcePath, data);
+        this.version = version;
+        this.baseVersion = baseVersion;
+    }
+
+    /**
+     * @param requestId the id the client tagged the request this message is the result of with.
+     */
+    public ServerToClientMessage(MessageType messageType, Collection<String> resourcePath, JsonElement data, String requestId) {
+        this(messageType, resourcePath, data);
+        this.requestId = requestId;
+    }
+
     public ServerToClientMessage(MessageType messageType, JsonElement data) {
         this.messageType = messageType;
         this.data = data;
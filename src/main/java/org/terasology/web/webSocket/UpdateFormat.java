@@ -0,0 +1,31 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.webSocket;
+
+/**
+ * How a WebSocket client receives the changes of the resources it's subscribed to.
+ */
+public enum UpdateFormat {
+    /**
+     * Each change is sent as a RESOURCE_CHANGED message with the full state of the resource.
+     */
+    SNAPSHOT,
+    /**
+     * Changes are sent as RESOURCE_PATCHED messages carrying a JSON patch against the previous version, unless the full state
+     * is smaller or there is no previous version.
+     */
+    PATCH
+}
@@ -18,31 +18,55 @@ package org.terasology.web.webSocket;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.web.io.ActionResult;
+import org.terasology.web.io.BinaryResult;
 import org.terasology.web.io.JsonSession;
+import org.terasology.web.io.gsonUtils.JsonDiff;
 import org.terasology.web.io.gsonUtils.ValidatorTypeAdapterFactory;
+import org.terasology.web.resources.ResourceUpdate;
+import org.terasology.web.resources.base.AsyncResourceMethod;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Manages one websocket session
  */
 public class WebSocketHandler extends WebSocketAdapter {
 
+    private static final Gson GSON = createGson();
     private static final Logger logger = LoggerFactory.getLogger(WebSocketHandler.class);
+    // keys of the serialized RESOURCE_CHANGED and RESOURCE_PATCHED messages in the ResourceUpdates, which are shared by all the sockets
+    private static final Object RESOURCE_CHANGED_MESSAGE = new Object();
+    private static final Object RESOURCE_PATCHED_MESSAGE = new Object();
     private static final ErrorReportingWriteCallback ERROR_REPORTING_WRITE_CALLBACK = new ErrorReportingWriteCallback(logger);
-    private static final Gson GSON = new GsonBuilder()
-            .registerTypeAdapterFactory(ValidatorTypeAdapterFactory.getInstance())
-            .disableHtmlEscaping()
-            .create();
+    // held while sending, so that the two frames of a binary result are not separated by messages sent by other threads
+    private final Object sendLock = new Object();
     private JsonSession jsonSession;
+    private volatile UpdateFormat updateFormat = UpdateFormat.SNAPSHOT;
+
+    /**
+     * @return a new instance of the serializer of the websocket messages; also used by the serialization benchmark.
+     */
+    static Gson createGson() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(ValidatorTypeAdapterFactory.getInstance())
+                .disableHtmlEscaping()
+                .create();
+    }
 
     @Override
     public void onWebSocketConnect(Session session) {
@@ -51,8 +75,11 @@ public class WebSocketHandler extends WebSocketAdapter {
         jsonSession = new JsonSession();
         jsonSession.setResourceEventListener((resourceName, eventData) ->
                 send(new ServerToClientMessage(ServerToClientMessage.MessageType.RESOURCE_EVENT, resourceName, eventData)));
-        jsonSession.setResourceChangeSubscriber((resourceName, newData) ->
-                send(new ServerToClientMessage(ServerToClientMessage.MessageType.RESOURCE_CHANGED, resourceName, newData)));
+        jsonSession.setResourceChangeSubscriber((update) -> sendText(updateFormat == UpdateFormat.PATCH
+                ? update.getRepresentation(RESOURCE_PATCHED_MESSAGE, WebSocketHandler::serializeResourcePatched)
+                : update.getRepresentation(RESOURCE_CHANGED_MESSAGE, WebSocketHandler::serializeResourceChanged)));
+        // clients which don't send subscriptions keep receiving the changes of all the resources
+        jsonSession.subscribeToAllByDefault();
     }
 
     @Override
@@ -89,12 +116,69 @@ public class WebSocketHandler extends WebSocketAdapter {
                 sendResult(jsonSession.finishAuthentication(clientMessage.getData())); //process client handshake hello
                 break;
             case RESOURCE_REQUEST:
-                parseAndHandleResourceRequest(clientMessage.getData());
+                parseAndHandleResourceRequest(clientMessage.getData(), this::handleResourceRequest);
+                break;
+            case BINARY_RESOURCE_REQUEST:
+                parseAndHandleResourceRequest(clientMessage.getData(), this::handleBinaryResourceRequest);
+                break;
+            case BATCH_REQUEST:
+                handleBatchRequest(clientMessage.getData());
+                break;
+            case SUBSCRIBE:
+                parseAndHandleSubscription(clientMessage.getData(), jsonSession::subscribe);
+                break;
+            case UNSUBSCRIBE:
+                parseAndHandleSubscription(clientMessage.getData(), jsonSession::unsubscribe);
+                break;
+            case UPDATE_FORMAT:
+                handleUpdateFormat(clientMessage.getData());
+                break;
+            case RESYNC:
+                parseAndHandleResourcePathMessage(clientMessage.getData(), this::handleResync);
+        }
+    }
+
+    private static String serializeResourceChanged(ResourceUpdate update) {
+        Long version = update.getVersion() != 0 ? update.getVersion() : null;
+        return GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.RESOURCE_CHANGED,
+                update.getPath().getItemList(), JsonSession.toJsonTree(update), version, null));
+    }
+
+    /**
+     * @return a RESOURCE_PATCHED message with the differences from the previous version of the update, or the RESOURCE_CHANGED
+     * message if there is no previous version or the full state is smaller than the patch.
+     */
+    private static String serializeResourcePatched(ResourceUpdate update) {
+        String fullMessage = update.getRepresentation(RESOURCE_CHANGED_MESSAGE, WebSocketHandler::serializeResourceChanged);
+        ResourceUpdate previous = update.getPrevious();
+        if (previous == null) {
+            return fullMessage;
         }
+        JsonArray patch = JsonDiff.diff(JsonSession.toJsonTree(previous), JsonSession.toJsonTree(update));
+        String patchMessage = GSON.toJson(new ServerToClientMessage(ServerToClientMessage.MessageType.RESOURCE_PATCHED,
+                update.getPath().getItemList(), patch, update.getVersion(), previous.getVersion()));
+        return patchMessage.length() < fullMessage.length() ? patchMessage : fullMessage;
     }
 
     private void send(ServerToClientMessage message) {
-        getSession().getRemote().sendString(GSON.toJson(message), ERROR_REPORTING_WRITE_CALLBACK);
+        sendText(GSON.toJson(message));
+    }
+
+    private void sendText(String text) {
+        synchronized (sendLock) {
+            // the results of the asynchronous requests may complete after the socket is closed
+            if (isConnected()) {
+                getSession().getRemote().sendString(text, ERROR_REPORTING_WRITE_CALLBACK);
+            }
+        }
+    }
+
+    private void sendBytes(byte[] data) {
+        synchronized (sendLock) {
+            if (isConnected()) {
+                getSession().getRemote().sendBytes(ByteBuffer.wrap(data), ERROR_REPORTING_WRITE_CALLBACK);
+            }
+        }
     }
 
     private void sendResult(ActionResult result) {
@@ -105,17 +189,127 @@ public class WebSocketHandler extends WebSocketAdapter {
         send(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, resourcePath, result.toJsonTree(GSON)));
     }
 
-    private void parseAndHandleResourceRequest(JsonElement requestMessage) {
+    private void sendResult(ActionResult result, Collection<String> resourcePath, String requestId) {
+        send(new ServerToClientMessage(ServerToClientMessage.MessageType.ACTION_RESULT, resourcePath, result.toJsonTree(GSON), requestId));
+    }
+
+    private void parseAndHandleResourceRequest(JsonElement requestMessage, Consumer<ResourceRequestClientMessage> handler) {
         try {
             ResourceRequestClientMessage deserializedMessage = GSON.fromJson(requestMessage, ResourceRequestClientMessage.class);
-            handleResourceRequest(deserializedMessage);
+            handler.accept(deserializedMessage);
+        } catch (JsonSyntaxException ex) {
+            sendResult(new ActionResult(ex));
+        }
+    }
+
+    private void parseAndHandleResourcePathMessage(JsonElement message, Consumer<List<String>> handler) {
+        try {
+            ResourcePathClientMessage deserializedMessage = GSON.fromJson(message, ResourcePathClientMessage.class);
+            handler.accept(new ArrayList<>(deserializedMessage.getResourcePath()));
         } catch (JsonSyntaxException ex) {
             sendResult(new ActionResult(ex));
         }
     }
 
+    private void parseAndHandleSubscription(JsonElement subscriptionMessage, Function<List<String>, ActionResult> handler) {
+        parseAndHandleResourcePathMessage(subscriptionMessage, (resourcePath) -> sendResult(handler.apply(resourcePath), resourcePath));
+    }
+
+    private void handleUpdateFormat(JsonElement data) {
+        try {
+            UpdateFormat newFormat = GSON.fromJson(data, UpdateFormat.class);
+            if (newFormat == null) {
+                sendResult(new ActionResult(ActionResult.Status.BAD_REQUEST, "Unknown update format"));
+                return;
+            }
+            updateFormat = newFormat;
+            sendResult(ActionResult.OK);
+        } catch (JsonSyntaxException ex) {
+            sendResult(new ActionResult(ex));
+        }
+    }
+
+    /**
+     * Send the full state of a resource which the client's next patches will be based on, as a RESOURCE_CHANGED message;
+     * the socket's thread doesn't wait for the resource to be read.
+     */
+    private void handleResync(List<String> resourcePath) {
+        jsonSession.getLatestUpdate(resourcePath).whenComplete((update, failure) -> {
+            if (failure != null) {
+                sendResult(AsyncResourceMethod.toResourceAccessException(failure).getResultToSend(), resourcePath);
+            } else {
+                sendText(update.getRepresentation(RESOURCE_CHANGED_MESSAGE, WebSocketHandler::serializeResourceChanged));
+            }
+        });
+    }
+
+    /**
+     * Handle a request to a resource. If the client tagged the request with an id, the result is sent when the request
+     * completes, so the following requests don't wait for it; otherwise the socket's thread waits for the result, so that
+     * the results are sent in the same order as the requests.
+     */
     private void handleResourceRequest(ResourceRequestClientMessage deserializedMessage) {
         Collection<String> resourcePath = deserializedMessage.getResourcePath();
-        sendResult(jsonSession.accessResource(new ArrayList<>(resourcePath), deserializedMessage.getMethod(), deserializedMessage.getData()), resourcePath);
+        String requestId = deserializedMessage.getRequestId();
+        CompletionStage<Void> sent = jsonSession.accessResourceAsync(new ArrayList<>(resourcePath), deserializedMessage.getMethod(), deserializedMessage.getData())
+                .thenAccept((result) -> sendResult(result, resourcePath, requestId));
+        if (requestId == null) {
+            sent.toCompletableFuture().join();
+        }
+    }
+
+    /**
+     * Handle a request whose result is sent as a binary frame: an ACTION_RESULT message with the content type and
+     * entity tag of the data is sent first, followed by the data itself unless the client's copy is up to date.
+     * Requests tagged with an id are completed asynchronously, like in {@link #handleResourceRequest(ResourceRequestClientMessage)}.
+     */
+    private void handleBinaryResourceRequest(ResourceRequestClientMessage deserializedMessage) {
+        Collection<String> resourcePath = deserializedMessage.getResourcePath();
+        String requestId = deserializedMessage.getRequestId();
+        CompletionStage<Void> sent = jsonSession.accessBinaryResourceAsync(new ArrayList<>(resourcePath), deserializedMessage.getMethod(), deserializedMessage.getData())
+                .handle((result, failure) -> {
+                    if (failure != null) {
+                        sendResult(AsyncResourceMethod.toResourceAccessException(failure).getResultToSend(), resourcePath, requestId);
+                    } else {
+                        sendBinaryResult(result, resourcePath, requestId);
+                    }
+                    return null;
+                });
+        if (requestId == null) {
+            sent.toCompletableFuture().join();
+        }
+    }
+
+    /**
+     * Handle a batch of requests, which is answered with a single ACTION_RESULT message; like single requests, the batches
+     * tagged with an id are completed asynchronously.
+     */
+    private void handleBatchRequest(JsonElement data) {
+        BatchRequestClientMessage deserializedMessage;
+        try {
+            deserializedMessage = GSON.fromJson(data, BatchRequestClientMessage.class);
+        } catch (JsonSyntaxException ex) {
+            sendResult(new ActionResult(ex));
+            return;
+        }
+        String requestId = deserializedMessage.getRequestId();
+        CompletionStage<Void> sent = jsonSession.accessResourcesAsync(deserializedMessage.getOperations())
+                .thenAccept((result) -> sendResult(result, null, requestId));
+        if (requestId == null) {
+            sent.toCompletableFuture().join();
+        }
+    }
+
+    private void sendBinaryResult(BinaryResult result, Collection<String> resourcePath, String requestId) {
+        JsonObject metadata = new JsonObject();
+        metadata.addProperty("contentType", result.getContentType());
+        metadata.addProperty("entityTag", result.getEntityTag());
+        metadata.addProperty("notModified", result.getData() == null);
+        synchronized (sendLock) {
+            sendResult(new ActionResult(metadata), resourcePath, requestId);
+            if (result.getData() != null) {
+                sendBytes(result.getData());
+            }
+        }
     }
 }
@@ -17,6 +17,7 @@ package org.terasology.web.io;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import org.junit.Test;
@@ -38,18 +39,24 @@ import org.terasology.web.io.gsonUtils.ByteArrayBase64Serializer;
 import org.terasology.web.resources.ResourceManager;
 import org.terasology.web.resources.base.ResourceAccessException;
 import org.terasology.web.resources.base.ResourceMethodName;
+import org.terasology.web.resources.base.ResourcePath;
 
 
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -141,6 +148,85 @@ public class JsonSessionTest {
         assertNull(result.getMessage());
     }
 
+    @Test
+    public void testBatchRequest() throws Exception {
+        ResourcePath slowPath = new ResourcePath("slow");
+        ResourcePath writtenPath = new ResourcePath("written");
+        CompletableFuture<Object> slowResult = new CompletableFuture<>();
+        ResourceManager resourceManagerMock = mock(ResourceManager.class);
+        when(resourceManagerMock.performActionAsync(any(), any(), any(), any(), any())).thenAnswer((invocation) -> {
+            ResourcePath path = invocation.getArgument(0);
+            if (path.equals(slowPath)) {
+                return slowResult;
+            } else if (path.equals(writtenPath)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Object> notFound = new CompletableFuture<>();
+            notFound.completeExceptionally(ResourceAccessException.NOT_FOUND);
+            return notFound;
+        });
+        JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), resourceManagerMock);
+        JsonElement batch = GSON.fromJson("[{\"method\": \"GET\", \"resourcePath\": [\"slow\"]},"
+                + "{\"method\": \"POST\", \"resourcePath\": [\"written\"], \"data\": 1},"
+                + "{\"method\": \"GET\", \"resourcePath\": [\"missing\"]}]", JsonElement.class);
+
+        CompletableFuture<ActionResult> result = session.accessResourcesAsync(batch).toCompletableFuture();
+        verify(resourceManagerMock, timeout(1000)).performActionAsync(eq(slowPath), any(), any(), any(), any());
+        // the write waits for the reads before it, and the reads after it wait for the write
+        verify(resourceManagerMock, never()).performActionAsync(eq(writtenPath), any(), any(), any(), any());
+        assertFalse(result.isDone());
+        slowResult.complete("slowData");
+
+        ActionResult batchResult = result.get(1, TimeUnit.SECONDS);
+        assertEquals(ActionResult.Status.OK, batchResult.getStatus());
+        JsonArray results = batchResult.getData().getAsJsonArray();
+        assertEquals(3, results.size());
+        assertEquals("slowData", results.get(0).getAsJsonObject().get("data").getAsString());
+        assertEquals("OK", results.get(1).getAsJsonObject().get("status").getAsString());
+        assertEquals("NOT_FOUND", results.get(2).getAsJsonObject().get("status").getAsString());
+    }
+
+    @Test
+    public void testBatchRequestSizeIsLimited() {
+        JsonArray batch = new JsonArray();
+        for (int i = 0; i <= JsonSession.MAX_BATCH_SIZE; ++i) {
+            batch.add(GSON.fromJson("{\"method\": \"GET\", \"resourcePath\": [\"engineState\"]}", JsonElement.class));
+        }
+        JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), mock(ResourceManager.class));
+        ActionResult result = session.accessResourcesAsync(batch).toCompletableFuture().join();
+        assertEquals(ActionResult.Status.BAD_REQUEST, result.getStatus());
+    }
+
+    @Test
+    public void testMalformedBatchIsRejected() {
+        ResourceManager resourceManagerMock = mock(ResourceManager.class);
+        JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), resourceManagerMock);
+        String[] batches = {"[{\"method\": \"GET\", \"resourcePath\": [\"engineState\"]}, null]",
+            "[{\"resourcePath\": [\"engineState\"]}]", "[{\"method\": \"GET\"}]", "[{\"method\": \"GET\", \"resourcePath\": [null]}]"};
+        for (String batch : batches) {
+            ActionResult result = session.accessResourcesAsync(GSON.fromJson(batch, JsonElement.class)).toCompletableFuture().join();
+            assertEquals(ActionResult.Status.BAD_REQUEST, result.getStatus());
+        }
+        verify(resourceManagerMock, never()).performActionAsync(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testFirstSubscriptionReplacesDefaultSubscription() {
+        ResourceManager resourceManagerMock = mock(ResourceManager.class);
+        JsonSession session = new JsonSession(null, mock(HeadlessClientFactory.class), resourceManagerMock);
+        session.subscribeToAllByDefault();
+        verify(resourceManagerMock).subscribe(any(), eq(ResourcePath.createEmpty()));
+
+        session.subscribe(Collections.singletonList("console"));
+        verify(resourceManagerMock).subscribe(any(), eq(new ResourcePath("console")));
+        verify(resourceManagerMock).unsubscribe(any(), eq(ResourcePath.createEmpty()));
+        assertEquals(ActionResult.Status.NOT_FOUND, session.unsubscribe(Collections.emptyList()).getStatus());
+
+        session.subscribe(Collections.emptyList());
+        session.subscribe(Collections.singletonList("games"));
+        verify(resourceManagerMock, times(1)).unsubscribe(any(), eq(ResourcePath.createEmpty()));
+    }
+
     private static class AuthenticationHandshakeHandlerMock implements AuthenticationHandshakeHandler {
         private boolean nextResult;
 
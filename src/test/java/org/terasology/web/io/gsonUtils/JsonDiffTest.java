@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.io.gsonUtils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonDiffTest {
+
+    private static JsonElement parse(String json) {
+        return new JsonParser().parse(json);
+    }
+
+    private static void assertPatch(String source, String target, String expectedPatch) {
+        JsonArray patch = JsonDiff.diff(parse(source), parse(target));
+        assertEquals(parse(expectedPatch), patch);
+        assertEquals(parse(target), apply(parse(source), patch));
+    }
+
+    // minimal implementation of the operations generated by JsonDiff, to check that the patches transform the source into the target
+    private static JsonElement apply(JsonElement document, JsonArray patch) {
+        for (JsonElement element : patch) {
+            JsonObject operation = element.getAsJsonObject();
+            String path = operation.get("path").getAsString();
+            if (path.isEmpty()) {
+                document = operation.get("value");
+                continue;
+            }
+            String[] tokens = path.substring(1).split("/", -1);
+            JsonElement parent = document;
+            for (int i = 0; i < tokens.length - 1; ++i) {
+                parent = child(parent, unescape(tokens[i]));
+            }
+            String last = unescape(tokens[tokens.length - 1]);
+            String op = operation.get("op").getAsString();
+            if (parent.isJsonArray()) {
+                JsonArray array = parent.getAsJsonArray();
+                int index = Integer.parseInt(last);
+                if (op.equals("add")) {
+                    JsonArray shifted = new JsonArray();
+                    for (int i = 0; i < array.size(); ++i) {
+                        if (i == index) {
+                            shifted.add(operation.get("value"));
+                        }
+                        shifted.add(array.get(i));
+                    }
+                    if (index == array.size()) {
+                        shifted.add(operation.get("value"));
+                    }
+                    while (array.size() > 0) {
+                        array.remove(0);
+                    }
+                    array.addAll(shifted);
+                } else if (op.equals("remove")) {
+                    array.remove(index);
+                } else {
+                    array.set(index, operation.get("value"));
+                }
+            } else if (op.equals("remove")) {
+                parent.getAsJsonObject().remove(last);
+            } else {
+                parent.getAsJsonObject().add(last, operation.get("value"));
+            }
+        }
+        return document;
+    }
+
+    private static JsonElement child(JsonElement parent, String token) {
+        return parent.isJsonArray() ? parent.getAsJsonArray().get(Integer.parseInt(token)) : parent.getAsJsonObject().get(token);
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    @Test
+    public void testEqual() {
+        assertPatch("{\"a\": [1, 2], \"b\": null}", "{\"a\": [1, 2], \"b\": null}", "[]");
+    }
+
+    @Test
+    public void testObjectMembers() {
+        assertPatch("{\"a\": 1, \"b\": {\"c\": true}, \"d\": \"x\"}", "{\"a\": 2, \"b\": {\"c\": true}, \"e\": \"x\"}",
+                "[{\"op\": \"replace\", \"path\": \"/a\", \"value\": 2}, {\"op\": \"remove\", \"path\": \"/d\"},"
+                        + " {\"op\": \"add\", \"path\": \"/e\", \"value\": \"x\"}]");
+    }
+
+    @Test
+    public void testArrayInsertion() {
+        assertPatch("[{\"name\": \"a\"}, {\"name\": \"c\"}]", "[{\"name\": \"a\"}, {\"name\": \"b\"}, {\"name\": \"c\"}]",
+                "[{\"op\": \"add\", \"path\": \"/1\", \"value\": {\"name\": \"b\"}}]");
+    }
+
+    @Test
+    public void testArrayRemoval() {
+        assertPatch("[1, 2, 3, 4, 5]", "[1, 5]",
+                "[{\"op\": \"remove\", \"path\": \"/1\"}, {\"op\": \"remove\", \"path\": \"/1\"}, {\"op\": \"remove\", \"path\": \"/1\"}]");
+    }
+
+    @Test
+    public void testArrayElementChange() {
+        assertPatch("[{\"id\": 1, \"online\": true}, {\"id\": 2, \"online\": true}]", "[{\"id\": 1, \"online\": true}, {\"id\": 2, \"online\": false}]",
+                "[{\"op\": \"replace\", \"path\": \"/1/online\", \"value\": false}]");
+    }
+
+    @Test
+    public void testTypeChange() {
+        assertPatch("{\"a\": [1]}", "{\"a\": {\"b\": 1}}", "[{\"op\": \"replace\", \"path\": \"/a\", \"value\": {\"b\": 1}}]");
+        assertPatch("[1]", "\"text\"", "[{\"op\": \"replace\", \"path\": \"\", \"value\": \"text\"}]");
+    }
+
+    @Test
+    public void testKeyEscaping() {
+        assertPatch("{\"a/b\": {\"c~d\": 1}}", "{\"a/b\": {\"c~d\": 2}}", "[{\"op\": \"replace\", \"path\": \"/a~1b/c~0d\", \"value\": 2}]");
+    }
+}
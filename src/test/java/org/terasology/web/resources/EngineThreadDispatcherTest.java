@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.web.resources.base.AsyncResourceMethod;
+import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+public class EngineThreadDispatcherTest {
+
+    // plays the role of the web server's threads, while the test's thread plays the engine's thread
+    private final ExecutorService webThread = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        webThread.shutdownNow();
+    }
+
+    @Test
+    public void testTasksRunDirectlyWhenNotDrained() {
+        EngineThreadDispatcher dispatcher = new EngineThreadDispatcher(0);
+        CompletionStage<Integer> result = dispatcher.submit(() -> 42);
+        assertEquals(42, (int) result.toCompletableFuture().join());
+        assertEquals(0, dispatcher.getQueuedTaskCount());
+    }
+
+    @Test
+    public void testTasksWaitForTheTick() throws Exception {
+        EngineThreadDispatcher dispatcher = new EngineThreadDispatcher(Long.MAX_VALUE);
+        dispatcher.initialise();
+        CompletionStage<Thread> result = webThread.submit(() -> dispatcher.submit(Thread::currentThread)).get();
+        assertFalse(result.toCompletableFuture().isDone());
+        dispatcher.update(0);
+        assertSame(Thread.currentThread(), result.toCompletableFuture().join());
+    }
+
+    @Test
+    public void testBudgetLeavesTasksForTheNextTick() throws Exception {
+        EngineThreadDispatcher dispatcher = new EngineThreadDispatcher(0);
+        dispatcher.initialise();
+        webThread.submit(() -> {
+            for (int i = 0; i < 3; ++i) {
+                dispatcher.submit(() -> null);
+            }
+        }).get();
+        assertEquals(1, dispatcher.drain());
+        assertEquals(2, dispatcher.getQueuedTaskCount());
+    }
+
+    @Test
+    public void testQueuedTasksRunOnShutdown() throws Exception {
+        EngineThreadDispatcher dispatcher = new EngineThreadDispatcher(Long.MAX_VALUE);
+        dispatcher.initialise();
+        CompletionStage<Integer> result = webThread.submit(() -> dispatcher.submit(() -> 42)).get();
+        dispatcher.shutdown();
+        assertEquals(42, (int) result.toCompletableFuture().join());
+        // after the shutdown, nothing drains the queue anymore
+        assertTrue(webThread.submit(() -> dispatcher.submit(() -> 0).toCompletableFuture().isDone()).get());
+    }
+
+    @Test
+    public void testDecoratedMethodIsPerformedOnTheEngineThread() throws Exception {
+        EngineThreadDispatcher dispatcher = new EngineThreadDispatcher(Long.MAX_VALUE);
+        dispatcher.initialise();
+        AsyncResourceMethod<Void, Thread> method = dispatcher.decorate(createParameterlessMethod(ResourcePath.createEmpty(),
+                ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> Thread.currentThread()));
+        CompletionStage<Thread> result = webThread.submit(() -> method.performAsync(null, null)).get();
+        dispatcher.update(0);
+        assertSame(Thread.currentThread(), result.toCompletableFuture().join());
+    }
+}
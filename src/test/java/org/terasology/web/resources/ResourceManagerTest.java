@@ -0,0 +1,284 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.After;
+import org.junit.Test;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.web.client.ClientSecurityInfo;
+import org.terasology.web.client.HeadlessClient;
+import org.terasology.web.resources.base.AbstractSimpleResource;
+import org.terasology.web.resources.base.ClientSecurityRequirements;
+import org.terasology.web.resources.base.ResourceAccessException;
+import org.terasology.web.resources.base.ResourceMethod;
+import org.terasology.web.resources.base.ResourcePath;
+import org.terasology.web.resources.base.RouterResource;
+import org.terasology.web.serverAdminManagement.PermissionType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createAsyncMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+public class ResourceManagerTest {
+
+    private final ResourceManager resourceManager = ResourceManager.getInstance();
+    private final List<HeadlessClient> clients = new ArrayList<>();
+
+    private HeadlessClient addClient(boolean isAdmin, List<ResourceUpdate> receivedUpdates) {
+        HeadlessClient client = addUnsubscribedClient(isAdmin, receivedUpdates);
+        resourceManager.subscribe(client, ResourcePath.createEmpty());
+        return client;
+    }
+
+    private HeadlessClient addUnsubscribedClient(boolean isAdmin, List<ResourceUpdate> receivedUpdates) {
+        return addUnsubscribedClient(isAdmin, receivedUpdates::add);
+    }
+
+    private HeadlessClient addUnsubscribedClient(boolean isAdmin, Consumer<ResourceUpdate> updateSubscriber) {
+        HeadlessClient client = mock(HeadlessClient.class);
+        when(client.getId()).thenReturn("client" + clients.size());
+        when(client.getEntity()).thenReturn(mock(EntityRef.class));
+        when(client.getSecurityInfo()).thenReturn(securityInfo(isAdmin, Collections.emptyMap()));
+        resourceManager.addClient(client, updateSubscriber, (path, data) -> { });
+        clients.add(client);
+        return client;
+    }
+
+    private static ClientSecurityInfo securityInfo(boolean isAdmin, Map<PermissionType, Boolean> permissions) {
+        return new ClientSecurityInfo(isAdmin, isAdmin, permissions);
+    }
+
+    @After
+    public void removeClients() {
+        clients.forEach(resourceManager::removeClient);
+    }
+
+    @Test
+    public void testUpdateIsSharedBySecurityInfo() {
+        CountingResource resource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("counting", resource).build(), new HashMap<>());
+        List<ResourceUpdate> userUpdates = new ArrayList<>();
+        List<ResourceUpdate> adminUpdates = new ArrayList<>();
+        addClient(false, userUpdates);
+        addClient(false, userUpdates);
+        addClient(true, adminUpdates);
+
+        resource.notifyChangedForAllClients();
+
+        assertEquals(2, resource.readCount.get());
+        assertEquals(2, userUpdates.size());
+        assertSame(userUpdates.get(0), userUpdates.get(1));
+        assertEquals(new ResourcePath("counting"), userUpdates.get(0).getPath());
+        assertEquals(1, adminUpdates.size());
+    }
+
+    @Test
+    public void testSecurityInfoIsNotComputedOnUpdate() {
+        CountingResource resource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("counting", resource).build(), new HashMap<>());
+        HeadlessClient client = addClient(false, new ArrayList<>());
+
+        resource.notifyChangedForAllClients();
+        resource.notifyChangedForAllClients();
+
+        verify(client, times(1)).getSecurityInfo();
+    }
+
+    @Test
+    public void testClientChangesGroupWhenPermissionsChange() {
+        CountingResource resource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("counting", resource).build(), new HashMap<>());
+        List<ResourceUpdate> updates = new ArrayList<>();
+        addClient(true, updates);
+        HeadlessClient promotedClient = addClient(true, updates);
+
+        resource.notifyChangedForAllClients();
+        assertEquals(1, resource.readCount.get());
+
+        when(promotedClient.getSecurityInfo()).thenReturn(securityInfo(true, Collections.singletonMap(PermissionType.ADMIN_MANAGEMENT, true)));
+        resourceManager.onClientSecurityChanged(promotedClient.getId());
+        resource.notifyChangedForAllClients();
+        assertEquals(3, resource.readCount.get());
+        assertEquals(4, updates.size());
+    }
+
+    @Test
+    public void testOnlySubscribedClientsAreUpdated() {
+        CountingResource countingResource = new CountingResource();
+        CountingResource otherResource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder()
+                .addSubResource("parent", new RouterResource.Builder().addSubResource("counting", countingResource).build())
+                .addSubResource("other", otherResource)
+                .build(), new HashMap<>());
+        List<ResourceUpdate> prefixSubscriberUpdates = new ArrayList<>();
+        List<ResourceUpdate> unsubscribedUpdates = new ArrayList<>();
+        HeadlessClient prefixSubscriber = addUnsubscribedClient(false, prefixSubscriberUpdates);
+        addUnsubscribedClient(false, unsubscribedUpdates);
+        resourceManager.subscribe(prefixSubscriber, new ResourcePath("parent"));
+
+        countingResource.notifyChangedForAllClients();
+        otherResource.notifyChangedForAllClients();
+
+        assertEquals(1, countingResource.readCount.get());
+        assertEquals(0, otherResource.readCount.get());
+        assertEquals(1, prefixSubscriberUpdates.size());
+        assertEquals(new ResourcePath("parent", "counting"), prefixSubscriberUpdates.get(0).getPath());
+        assertTrue(unsubscribedUpdates.isEmpty());
+
+        resourceManager.unsubscribe(prefixSubscriber, new ResourcePath("parent"));
+        countingResource.notifyChangedForAllClients();
+        assertEquals(1, countingResource.readCount.get());
+    }
+
+    @Test
+    public void testUpdatesAreVersionedPerGroup() throws ResourceAccessException {
+        CountingResource resource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("counting", resource).build(), new HashMap<>());
+        List<ResourceUpdate> updates = new ArrayList<>();
+        HeadlessClient client = addClient(false, updates);
+        ResourcePath path = new ResourcePath("counting");
+
+        resource.notifyChangedForAllClients();
+        resource.notifyChangedForAllClients();
+
+        assertEquals(1, updates.get(0).getVersion());
+        assertEquals(2, updates.get(1).getVersion());
+        // released once the update has been sent, so that the previous versions aren't kept in memory
+        assertNull(updates.get(1).getPrevious());
+        assertSame(updates.get(1), resourceManager.getLatestUpdate(path, client).toCompletableFuture().join());
+        assertEquals(2, resource.readCount.get());
+    }
+
+    @Test
+    public void testLatestUpdateIsReadIfNoneWasSent() {
+        CountingResource resource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("counting", resource).build(), new HashMap<>());
+        HeadlessClient client = addClient(false, new ArrayList<>());
+
+        ResourceUpdate latest = resourceManager.getLatestUpdate(new ResourcePath("counting"), client).toCompletableFuture().join();
+        assertEquals(1, latest.getVersion());
+        assertEquals(1, latest.getData());
+        assertSame(latest, resourceManager.getLatestUpdate(new ResourcePath("counting"), client).toCompletableFuture().join());
+    }
+
+    @Test
+    public void testAsyncResourceIsReadWithoutWaiting() throws Exception {
+        CompletableFuture<Object> data = new CompletableFuture<>();
+        AsyncResource resource = new AsyncResource(data);
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("async", resource).build(), new HashMap<>());
+        CompletableFuture<ResourceUpdate> received = new CompletableFuture<>();
+        HeadlessClient client = addUnsubscribedClient(false, received::complete);
+        resourceManager.subscribe(client, ResourcePath.createEmpty());
+
+        resource.notifyChangedForAllClients();
+        CompletableFuture<ResourceUpdate> latest = resourceManager.getLatestUpdate(new ResourcePath("async"), client).toCompletableFuture();
+        assertFalse(received.isDone());
+        assertFalse(latest.isDone());
+
+        data.complete("data");
+        ResourceUpdate update = received.get(1, TimeUnit.SECONDS);
+        assertEquals("data", update.getData());
+        assertEquals(1, update.getVersion());
+        assertEquals("data", latest.get(1, TimeUnit.SECONDS).getData());
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreSentInOrder() throws Exception {
+        final int threadCount = 4;
+        final int notificationsPerThread = 100;
+        CountingResource resource = new CountingResource();
+        resourceManager.initialize(new RouterResource.Builder().addSubResource("counting", resource).build(), new HashMap<>());
+        List<ResourceUpdate> updates = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch allReceived = new CountDownLatch(threadCount * notificationsPerThread);
+        HeadlessClient client = addUnsubscribedClient(false, (update) -> {
+            updates.add(update);
+            allReceived.countDown();
+        });
+        resourceManager.subscribe(client, ResourcePath.createEmpty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        for (int i = 0; i < threadCount; ++i) {
+            executor.execute(() -> {
+                for (int j = 0; j < notificationsPerThread; ++j) {
+                    resource.notifyChangedForAllClients();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(allReceived.await(10, TimeUnit.SECONDS));
+
+        // each update has the data read right before it was versioned, and the updates are received in the order of their versions
+        for (int i = 0; i < updates.size(); ++i) {
+            assertEquals(i + 1, updates.get(i).getVersion());
+            assertEquals(i + 1, updates.get(i).getData());
+        }
+    }
+
+    @Test
+    public void testPermissionMaskEquality() {
+        Map<PermissionType, Boolean> permissions = new HashMap<>();
+        permissions.put(PermissionType.DELETE_GAMES, true);
+        permissions.put(PermissionType.INSTALL_MODULES, false);
+        assertEquals(securityInfo(true, Collections.singletonMap(PermissionType.DELETE_GAMES, true)), securityInfo(true, permissions));
+        assertEquals(securityInfo(false, null), securityInfo(false, Collections.emptyMap()));
+        assertNotEquals(securityInfo(true, permissions), securityInfo(true, null));
+    }
+
+    private static final class AsyncResource extends AbstractSimpleResource {
+        private final CompletionStage<Object> data;
+
+        private AsyncResource(CompletionStage<Object> data) {
+            this.data = data;
+        }
+
+        @Override
+        protected ResourceMethod<Void, Object> getGetMethod(ResourcePath path) throws ResourceAccessException {
+            return createAsyncMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (input, client) -> data);
+        }
+    }
+
+    private static final class CountingResource extends AbstractSimpleResource {
+        private final AtomicInteger readCount = new AtomicInteger();
+
+        @Override
+        protected ResourceMethod<Void, Integer> getGetMethod(ResourcePath path) throws ResourceAccessException {
+            return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> readCount.incrementAndGet());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.Test;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class SubscriptionIndexTest {
+
+    private final SubscriptionIndex index = new SubscriptionIndex();
+    private final EntityRef client1 = mock(EntityRef.class);
+    private final EntityRef client2 = mock(EntityRef.class);
+
+    @Test
+    public void testPrefixSubscription() {
+        index.subscribe(client1, ResourcePath.createEmpty());
+        index.subscribe(client2, new ResourcePath("modules"));
+
+        assertEquals(new HashSet<>(Arrays.asList(client1, client2)), index.getSubscribers(new ResourcePath("modules", "installer")));
+        assertEquals(new HashSet<>(Arrays.asList(client1, client2)), index.getSubscribers(new ResourcePath("modules")));
+        assertEquals(new HashSet<>(Arrays.asList(client1)), index.getSubscribers(new ResourcePath("games")));
+        assertTrue(index.isSubscribed(client2, new ResourcePath("modules", "available")));
+        assertFalse(index.isSubscribed(client2, new ResourcePath("system")));
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        index.subscribe(client1, new ResourcePath("system"));
+        index.subscribe(client1, new ResourcePath("games"));
+        index.unsubscribe(client1, new ResourcePath("system"));
+
+        assertTrue(index.getSubscribers(new ResourcePath("system")).isEmpty());
+        assertTrue(index.isSubscribed(client1, new ResourcePath("games")));
+    }
+
+    @Test
+    public void testRemoveClient() {
+        index.subscribe(client1, ResourcePath.createEmpty());
+        index.subscribe(client1, new ResourcePath("system"));
+        index.removeClient(client1);
+
+        assertTrue(index.getSubscribers(new ResourcePath("system")).isEmpty());
+    }
+}
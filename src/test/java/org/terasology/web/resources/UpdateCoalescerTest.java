@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.terasology.web.resources.base.ResourcePath;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class UpdateCoalescerTest {
+
+    private static final ResourcePath COALESCED_PATH = new ResourcePath("coalesced");
+    private static final ResourcePath IMMEDIATE_PATH = new ResourcePath("immediate");
+
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final List<ResourcePath> flushed = new ArrayList<>();
+    private final UpdateCoalescer coalescer = new UpdateCoalescer(scheduler, flushed::add, (path) -> path.equals(COALESCED_PATH) ? 100L : 0L);
+
+    private Runnable captureScheduledTask(int expectedTaskCount) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler, times(expectedTaskCount)).schedule(captor.capture(), eq(100L), eq(TimeUnit.MILLISECONDS));
+        return captor.getValue();
+    }
+
+    @Test
+    public void testNoWindow() {
+        coalescer.onChanged(IMMEDIATE_PATH);
+        coalescer.onChanged(IMMEDIATE_PATH);
+        assertEquals(2, flushed.size());
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        assertTrue(coalescer.getSuppressedCounts().isEmpty());
+    }
+
+    @Test
+    public void testNotificationsAreCollapsedWithinWindow() {
+        coalescer.onChanged(COALESCED_PATH);
+        assertEquals(1, flushed.size());
+        coalescer.onChanged(COALESCED_PATH);
+        coalescer.onChanged(COALESCED_PATH);
+        coalescer.onChanged(COALESCED_PATH);
+        assertEquals(1, flushed.size());
+
+        captureScheduledTask(1).run();
+        assertEquals(2, flushed.size());
+        assertEquals(2L, (long) coalescer.getSuppressedCounts().get(COALESCED_PATH));
+
+        // the deferred flush opened a new window, which closes without flushing since nothing changed
+        captureScheduledTask(2).run();
+        assertEquals(2, flushed.size());
+
+        coalescer.onChanged(COALESCED_PATH);
+        assertEquals(3, flushed.size());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Test;
+import org.terasology.web.io.ActionResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createAsyncMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createBackgroundMethod;
+import static org.terasology.web.resources.base.ResourceMethodFactory.decorateMethod;
+
+public class AsyncResourceMethodTest {
+
+    @Test
+    public void testDecoratedMethodRunsAfterActionOnCompletion() throws ResourceAccessException {
+        CompletableFuture<String> completion = new CompletableFuture<>();
+        AtomicInteger beforeCount = new AtomicInteger();
+        AtomicInteger afterCount = new AtomicInteger();
+        ResourceMethod<Void, String> method = decorateMethod(
+                createAsyncMethod(ResourcePath.createEmpty(), ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> completion),
+                beforeCount::incrementAndGet, afterCount::incrementAndGet);
+        assertTrue(method instanceof AsyncResourceMethod);
+        CompletableFuture<String> result = ((AsyncResourceMethod<Void, String>) method).performAsync(null, null).toCompletableFuture();
+        assertEquals(1, beforeCount.get());
+        assertEquals(0, afterCount.get());
+        completion.complete("done");
+        assertEquals(1, afterCount.get());
+        assertEquals("done", result.join());
+    }
+
+    @Test
+    public void testFailureIsUnwrapped() {
+        ResourceAccessException failure = new ResourceAccessException(new ActionResult(ActionResult.Status.CONFLICT, "failed"));
+        CompletableFuture<Object> stage = new CompletableFuture<>();
+        stage.completeExceptionally(failure);
+        try {
+            AsyncResourceMethod.join(stage.thenApply((value) -> value));
+            fail();
+        } catch (ResourceAccessException ex) {
+            assertSame(failure, ex);
+        }
+    }
+
+    @Test
+    public void testBackgroundMethodRunsOnAnotherThread() throws ResourceAccessException {
+        Thread callingThread = Thread.currentThread();
+        ResourceMethod<Void, Thread> method = createBackgroundMethod(ResourcePath.createEmpty(), ClientSecurityRequirements.PUBLIC, Void.class,
+                (data, client) -> Thread.currentThread());
+        assertTrue(method.perform(null, null) != callingThread);
+    }
+
+    @Test
+    public void testParametrizedMethodInBackground() throws ResourceAccessException {
+        ParametrizedResourceMethod<Void, String> method = new ParametrizedResourceMethod<Void, String>(Void.class, ClientSecurityRequirements.PUBLIC,
+                (data, parameter, client) -> parameter).runInBackground();
+        ResourceMethod<Void, String> boundMethod = method.withParameter("item");
+        assertTrue(boundMethod instanceof AsyncResourceMethod);
+        assertEquals("item", boundMethod.perform(null, null));
+    }
+}
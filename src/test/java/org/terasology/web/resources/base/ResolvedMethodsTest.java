@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ResolvedMethodsTest {
+
+    @Test
+    public void testMethodsAreResolvedOnce() throws ResourceAccessException {
+        ResolvedMethods<Object> resolvedMethods = new ResolvedMethods<>();
+        AtomicInteger resolveCount = new AtomicInteger();
+        ResolvedMethods.Resolver<Object> resolver = (methodName) -> {
+            resolveCount.incrementAndGet();
+            return new Object();
+        };
+        Object getMethod = resolvedMethods.get(ResourceMethodName.GET, resolver);
+        assertSame(getMethod, resolvedMethods.get(ResourceMethodName.GET, resolver));
+        resolvedMethods.get(ResourceMethodName.PUT, resolver);
+        assertEquals(2, resolveCount.get());
+    }
+
+    @Test
+    public void testExceptionsAreRemembered() {
+        ResolvedMethods<Object> resolvedMethods = new ResolvedMethods<>();
+        AtomicInteger resolveCount = new AtomicInteger();
+        ResolvedMethods.Resolver<Object> resolver = (methodName) -> {
+            resolveCount.incrementAndGet();
+            throw ResourceAccessException.METHOD_NOT_ALLOWED;
+        };
+        for (int i = 0; i < 2; ++i) {
+            try {
+                resolvedMethods.get(ResourceMethodName.DELETE, resolver);
+            } catch (ResourceAccessException ex) {
+                assertSame(ResourceAccessException.METHOD_NOT_ALLOWED, ex);
+            }
+        }
+        assertEquals(1, resolveCount.get());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ResourcePathTest {
+
+    @Test
+    public void testEmptyItemsAreIgnored() {
+        ResourcePath path = new ResourcePath("", "config", "", "MOTD");
+        assertEquals(Arrays.asList("config", "MOTD"), path.getItemList());
+        assertEquals("config/MOTD", path.toString());
+    }
+
+    @Test
+    public void testSubPathsEqualNewPaths() throws ResourceAccessException {
+        ResourcePath path = new ResourcePath("modules", "installer", "item");
+        ResourcePath subPath = path.removeFirstItem();
+        assertEquals(new ResourcePath("installer", "item"), subPath);
+        assertEquals(new ResourcePath("installer", "item").hashCode(), subPath.hashCode());
+        assertEquals("item", subPath.removeFirstItem().getSingleItem());
+        assertSame(ResourcePath.createEmpty(), path.subPath(3));
+        assertTrue(path.subPath(3).isEmpty());
+    }
+
+    @Test
+    public void testPathsAreNotModified() throws ResourceAccessException {
+        ResourcePath path = new ResourcePath("available");
+        ResourcePath pushed = path.pushItem("modules");
+        assertEquals(new ResourcePath("modules", "available"), pushed);
+        assertEquals(new ResourcePath("available"), path);
+        assertEquals("modules", pushed.getFirstItem());
+        assertNotEquals(path, pushed);
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testSingleItemRequiresOneItem() throws ResourceAccessException {
+        new ResourcePath("a", "b").getSingleItem();
+    }
+}
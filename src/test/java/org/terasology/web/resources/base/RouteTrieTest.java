@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.base;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.terasology.web.resources.base.ResourceMethodFactory.createParameterlessMethod;
+
+public class RouteTrieTest {
+
+    private static class ValueResource extends AbstractSimpleResource {
+        @Override
+        protected ResourceMethod<Void, String> getGetMethod(ResourcePath path) throws ResourceAccessException {
+            return createParameterlessMethod(path, ClientSecurityRequirements.PUBLIC, Void.class, (data, client) -> "value");
+        }
+    }
+
+    @RequiresEngineThread
+    private static class EngineBoundResource extends ValueResource {
+    }
+
+    @Test
+    public void testEngineBoundMethodsAreDecoratedOnce() throws ResourceAccessException {
+        AtomicInteger decorations = new AtomicInteger();
+        UnaryOperator<ResourceMethod> decorator = (method) -> {
+            decorations.incrementAndGet();
+            return ResourceMethodFactory.decorateMethod(method, () -> { }, () -> { });
+        };
+        EngineBoundResource engineBoundResource = new EngineBoundResource();
+        RouteTrie routes = RouteTrie.compile(new RouterResource.Builder()
+                .addSubResource("engine", engineBoundResource)
+                .addSubResource("value", new ValueResource())
+                .build(), decorator);
+        ResourceMethod method = routes.getMethod(ResourceMethodName.GET, new ResourcePath("engine"));
+        assertNotSame(engineBoundResource.getMethod(ResourceMethodName.GET, ResourcePath.createEmpty()), method);
+        assertSame(method, routes.getMethod(ResourceMethodName.GET, new ResourcePath("engine")));
+        routes.getMethod(ResourceMethodName.GET, new ResourcePath("value"));
+        assertEquals(1, decorations.get());
+    }
+}
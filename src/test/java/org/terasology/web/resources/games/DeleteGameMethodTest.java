@@ -54,12 +54,12 @@ public class DeleteGameMethodTest {
     public void testDeleteOk() throws ResourceAccessException {
         Path gamePath = tempFolder.getRoot().toPath().resolve("game1");
         assertTrue(Files.exists(gamePath));
-        new DeleteGameMethod(pathManagerMock, "game1").perform(null, null);
+        new DeleteGameMethod(pathManagerMock).perform(null, "game1", null);
         assertFalse(Files.exists(gamePath));
     }
 
     @Test(expected = ResourceAccessException.class)
     public void testDeleteNotExisting() throws ResourceAccessException {
-        new DeleteGameMethod(pathManagerMock, "game2").perform(null, null);
+        new DeleteGameMethod(pathManagerMock).perform(null, "game2", null);
     }
 }
@@ -67,7 +67,7 @@ public class PatchGameMethodTest {
         assertTrue(Files.exists(oldPath));
         assertFalse(Files.exists(newPath));
 
-        new PatchGameMethod(pathManagerMock, "game1").perform(getRenameData("game1New"), null);
+        new PatchGameMethod(pathManagerMock).perform(getRenameData("game1New"), "game1", null);
 
         assertFalse(Files.exists(oldPath));
         assertTrue(Files.exists(newPath));
@@ -78,17 +78,17 @@ public class PatchGameMethodTest {
 
     @Test(expected = ResourceAccessException.class)
     public void testRenameNotExisting() throws ResourceAccessException {
-        new PatchGameMethod(pathManagerMock, "game2New").perform(getRenameData("game2"), null);
+        new PatchGameMethod(pathManagerMock).perform(getRenameData("game2"), "game2New", null);
     }
 
     @Test(expected = ResourceAccessException.class)
     public void testRenameConflict() throws ResourceAccessException {
-        new PatchGameMethod(pathManagerMock, "game3").perform(getRenameData("game1"), null);
+        new PatchGameMethod(pathManagerMock).perform(getRenameData("game1"), "game3", null);
     }
 
     @Test(expected = ResourceAccessException.class)
     public void testRenameEmptyName() throws ResourceAccessException {
-        new PatchGameMethod(pathManagerMock, "game1").perform(getRenameData(""), null);
+        new PatchGameMethod(pathManagerMock).perform(getRenameData(""), "game1", null);
     }
 
     private NewGameMetadata getRenameData(String newName) {
@@ -69,7 +69,7 @@ public class AvailableModulesResourceTest {
 
     @Test
     public void testReadItemOk() throws ResourceAccessException {
-        ModuleMetadata result = availableModulesResource.getGetItemMethod("module1").perform(null, null);
+        ModuleMetadata result = availableModulesResource.getGetItemMethod().perform(null, "module1", null);
         assertEquals(moduleMock1.getMetadata(), result);
     }
 
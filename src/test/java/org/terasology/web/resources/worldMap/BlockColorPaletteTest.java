@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.assertEquals;
+
+public class BlockColorPaletteTest {
+
+    private static BufferedImage getTestImage() {
+        BufferedImage imageToTest = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = imageToTest.createGraphics();
+        graphics.setColor(Color.BLACK);
+        graphics.fillRect(0, 0, 5, 5);
+        graphics.setColor(Color.GREEN);
+        graphics.fillRect(5, 0, 5, 5);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(0, 5, 5, 5);
+        graphics.setColor(Color.RED);
+        graphics.fillRect(5, 5, 5, 5);
+        return imageToTest;
+    }
+
+    @Test
+    public void testColorOfTexture() {
+        // each color takes up 1/4th of the image
+        final int colorToTest = new Color(60, 60, 60).getRGB() & 0x00FFFFFF;
+        assertEquals(colorToTest, BlockColorPalette.applyBrightness(BlockColorPalette.getAverageColor(getTestImage()), 75));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3i;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.engine.entitySystem.entity.EntityManager;
+import org.terasology.engine.entitySystem.entity.EntityRef;
+import org.terasology.engine.logic.location.LocationComponent;
+import org.terasology.engine.world.RelevanceRegionComponent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChunkAnchorPoolTest {
+
+    private static final long LINGER_MILLIS = 1000;
+
+    private EntityManager entityManagerMock;
+    private long now;
+    private ChunkAnchorPool pool;
+
+    @Before
+    public void setup() {
+        entityManagerMock = mock(EntityManager.class);
+        when(entityManagerMock.create(any(LocationComponent.class), any(RelevanceRegionComponent.class))).thenAnswer((invocation) -> {
+            EntityRef entity = mock(EntityRef.class);
+            when(entity.exists()).thenReturn(true);
+            return entity;
+        });
+        pool = new ChunkAnchorPool(entityManagerMock, 1, LINGER_MILLIS, () -> now);
+    }
+
+    @Test
+    public void testAnchorIsSharedByCoveredAreas() {
+        ChunkAnchorPool.Anchor first = pool.acquire(new Vector3i(0, 0, 0), new Vector3i(6, 8, 6));
+        ChunkAnchorPool.Anchor second = pool.acquire(new Vector3i(40, 0, 0), new Vector3i(4, 8, 4));
+        assertSame(first, second);
+        verify(entityManagerMock, times(1)).create(any(LocationComponent.class), any(RelevanceRegionComponent.class));
+    }
+
+    @Test
+    public void testAnchorLingersAfterRelease() {
+        ChunkAnchorPool.Anchor anchor = pool.acquire(new Vector3i(0, 0, 0), new Vector3i(4, 8, 4));
+        pool.release(anchor);
+        now += LINGER_MILLIS - 1;
+        pool.destroyExpired();
+        assertSame(anchor, pool.acquire(new Vector3i(0, 0, 0), new Vector3i(4, 8, 4)));
+        pool.release(anchor);
+        now += LINGER_MILLIS;
+        pool.destroyExpired();
+        verify(anchor.getEntity()).destroy();
+        assertEquals(0, pool.getAnchorCount());
+    }
+
+    @Test
+    public void testIdleAnchorIsMoved() {
+        ChunkAnchorPool.Anchor anchor = pool.acquire(new Vector3i(0, 0, 0), new Vector3i(4, 8, 4));
+        pool.release(anchor);
+        assertSame(anchor, pool.acquire(new Vector3i(1000, 0, 1000), new Vector3i(4, 8, 4)));
+        verify(anchor.getEntity()).saveComponent(any(LocationComponent.class));
+        verify(anchor.getEntity(), never()).destroy();
+    }
+
+    @Test
+    public void testTemporaryAnchorWhenPoolIsBusy() {
+        ChunkAnchorPool.Anchor pooled = pool.acquire(new Vector3i(0, 0, 0), new Vector3i(4, 8, 4));
+        ChunkAnchorPool.Anchor temporary = pool.acquire(new Vector3i(1000, 0, 1000), new Vector3i(4, 8, 4));
+        assertNotSame(pooled, temporary);
+        pool.release(temporary);
+        verify(temporary.getEntity()).destroy();
+        assertEquals(1, pool.getAnchorCount());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3i;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.chunks.Chunks;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ChunkReadinessServiceTest {
+
+    private WorldProvider worldProviderMock;
+    private ChunkReadinessService chunkReadinessService;
+
+    @Before
+    public void setUp() {
+        worldProviderMock = mock(WorldProvider.class);
+        chunkReadinessService = new ChunkReadinessService(worldProviderMock);
+    }
+
+    @Test
+    public void testLoadedAreaCompletesImmediately() {
+        when(worldProviderMock.isBlockRelevant(anyInt(), anyInt(), anyInt())).thenReturn(true);
+        assertTrue(chunkReadinessService.whenLoaded(-10, -10, 10, 10, 40, 41).isDone());
+        assertEquals(0, chunkReadinessService.getPendingAreaCount());
+    }
+
+    @Test
+    public void testAreaCompletesWhenAllChunksAreLoaded() {
+        when(worldProviderMock.isBlockRelevant(anyInt(), anyInt(), anyInt())).thenReturn(false);
+        // blocks -10..9 span the chunk columns -1 and 0 on both axes; y = 40 is in the chunk layer 0
+        CompletableFuture<Void> future = chunkReadinessService.whenLoaded(-10, -10, 10, 10, 40, 41);
+        chunkReadinessService.onChunkLoaded(new Vector3i(-1, 0, -1));
+        chunkReadinessService.onChunkLoaded(new Vector3i(-1, 0, 0));
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, 0, -1));
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, 1, 0));
+        assertFalse(future.isDone());
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, 0, 0));
+        assertTrue(future.isDone());
+        assertEquals(0, chunkReadinessService.getPendingAreaCount());
+    }
+
+    @Test
+    public void testAreaCompletesWhenAllChunkLayersAreLoaded() {
+        when(worldProviderMock.isBlockRelevant(anyInt(), anyInt(), anyInt())).thenReturn(false);
+        // the chunk layers -1, 0 and 1 of the chunk column 0
+        CompletableFuture<Void> future = chunkReadinessService.whenLoaded(0, 0, 1, 1, -Chunks.SIZE_Y, 2 * Chunks.SIZE_Y);
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, 0, 0));
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, 1, 0));
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, 2, 0));
+        assertFalse(future.isDone());
+        chunkReadinessService.onChunkLoaded(new Vector3i(0, -1, 0));
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void testCancelledAreaIsNoLongerTracked() {
+        when(worldProviderMock.isBlockRelevant(anyInt(), anyInt(), anyInt())).thenReturn(false);
+        CompletableFuture<Void> future = chunkReadinessService.whenLoaded(0, 0, 1, 1, 0, 1);
+        assertEquals(1, chunkReadinessService.getPendingAreaCount());
+        future.cancel(false);
+        assertEquals(0, chunkReadinessService.getPendingAreaCount());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.awt.image.IndexColorModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MapPngEncoderTest {
+
+    private final MapPngEncoder encoder = new MapPngEncoder(6);
+
+    private static void assertImageMatches(int[] colors, int mapBlockWidth, int pixelsPerBlock, BufferedImage image) {
+        assertEquals(mapBlockWidth * pixelsPerBlock, image.getWidth());
+        assertEquals(colors.length / mapBlockWidth * pixelsPerBlock, image.getHeight());
+        for (int y = 0; y < image.getHeight(); ++y) {
+            for (int x = 0; x < image.getWidth(); ++x) {
+                assertEquals(colors[(y / pixelsPerBlock) * mapBlockWidth + x / pixelsPerBlock], image.getRGB(x, y) & 0x00FFFFFF);
+            }
+        }
+    }
+
+    @Test
+    public void testImageIsScaledByPixelsPerBlock() throws IOException {
+        int[] colors = {0xFF0000, 0x00FF00, 0x0000FF, 0x000000, 0xFFFFFF, 0x123456};
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoder.encode(colors, 3, 2, 2)));
+        assertTrue(image.getColorModel() instanceof IndexColorModel);
+        assertImageMatches(colors, 3, 2, image);
+    }
+
+    @Test
+    public void testManyColorsAreEncodedAsRgb() throws IOException {
+        int[] colors = new int[40 * 20];
+        for (int i = 0; i < colors.length; ++i) {
+            colors[i] = (i * 0x010203) & 0xFFFFFF;
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(encoder.encode(colors, 40, 20, 3)));
+        assertFalse(image.getColorModel() instanceof IndexColorModel);
+        assertImageMatches(colors, 40, 3, image);
+    }
+
+    @Test
+    public void testBuffersAreReused() throws IOException {
+        int[] large = new int[64 * 64];
+        int[] small = {0xABCDEF, 0x123456};
+        encoder.encode(large, 64, 64, 4);
+        assertImageMatches(small, 2, 1, ImageIO.read(new ByteArrayInputStream(encoder.encode(small, 2, 1, 1))));
+    }
+}
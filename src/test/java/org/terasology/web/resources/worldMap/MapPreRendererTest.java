@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3f;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MapPreRendererTest {
+
+    @Test
+    public void testClosestTilesAreSelectedFirst() {
+        MapPreRenderer preRenderer = new MapPreRenderer(2, 0.05f, 9);
+        List<MapTileKey> keys = preRenderer.selectTiles(Collections.singletonList(new Vector3f(-1, 0, 40)), (key) -> true);
+        assertEquals(9, keys.size());
+        assertEquals(new MapTileKey(-1, 1, MapTileKey.SURFACE), keys.get(0));
+        for (MapTileKey key : keys) {
+            assertTrue(Math.abs(key.getTileX() + 1) <= 1 && Math.abs(key.getTileZ() - 1) <= 1);
+        }
+    }
+
+    @Test
+    public void testAvailableTilesAreSkipped() {
+        MapPreRenderer preRenderer = new MapPreRenderer(1, 0.05f, 100);
+        List<MapTileKey> keys = preRenderer.selectTiles(Arrays.asList(new Vector3f(0, 0, 0), new Vector3f(10, 0, 10)),
+                (key) -> key.getTileX() >= 0);
+        assertEquals(6, keys.size());
+    }
+
+    @Test
+    public void testPausesUnderLoad() {
+        MapPreRenderer preRenderer = new MapPreRenderer(1, 0.05f, 4);
+        preRenderer.onFrame(0.02f);
+        assertTrue(preRenderer.isScanDue());
+        preRenderer.selectTiles(Collections.emptyList(), (key) -> true);
+        assertFalse(preRenderer.isScanDue());
+        for (int i = 0; i < 100; ++i) {
+            preRenderer.onFrame(0.2f);
+        }
+        assertFalse(preRenderer.isScanDue());
+        for (int i = 0; i < 100; ++i) {
+            preRenderer.onFrame(0.02f);
+        }
+        assertTrue(preRenderer.isScanDue());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.junit.Test;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MapRenderSchedulerTest {
+
+    // runs the submitted tasks only when requested by the test
+    private final Deque<Runnable> pendingTasks = new ArrayDeque<>();
+
+    private void runNextTask() {
+        pendingTasks.poll().run();
+    }
+
+    @Test
+    public void testIdenticalJobsAreCoalesced() throws Exception {
+        MapRenderScheduler scheduler = new MapRenderScheduler(pendingTasks::add, 2, 2);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Integer> first = scheduler.submit("a", () -> CompletableFuture.completedFuture(runs.incrementAndGet()), (position) -> { });
+        CompletableFuture<Integer> second = scheduler.submit("a", () -> CompletableFuture.completedFuture(runs.incrementAndGet()), (position) -> { });
+        assertSame(first, second);
+        runNextTask();
+        assertEquals(1, (int) second.get());
+        assertEquals(1, runs.get());
+        assertTrue(pendingTasks.isEmpty());
+    }
+
+    @Test
+    public void testQueuedJobsAreNotifiedOfTheirPosition() throws Exception {
+        MapRenderScheduler scheduler = new MapRenderScheduler(pendingTasks::add, 1, 2);
+        List<Integer> positionsOfB = new ArrayList<>();
+        List<Integer> positionsOfC = new ArrayList<>();
+        scheduler.submit("a", () -> CompletableFuture.completedFuture("a"), (position) -> { });
+        CompletableFuture<String> b = scheduler.submit("b", () -> CompletableFuture.completedFuture("b"), positionsOfB::add);
+        scheduler.submit("c", () -> CompletableFuture.completedFuture("c"), positionsOfC::add);
+        assertEquals(1, scheduler.getRunningJobCount());
+        assertEquals(2, scheduler.getQueuedJobCount());
+        runNextTask();
+        assertEquals(Arrays.asList(1, 0), positionsOfB);
+        assertEquals(Arrays.asList(2, 1), positionsOfC);
+        runNextTask();
+        assertEquals("b", b.get());
+        assertEquals(Arrays.asList(2, 1, 0), positionsOfC);
+    }
+
+    @Test
+    public void testJobKeepsItsSlotUntilItsStageCompletes() throws Exception {
+        MapRenderScheduler scheduler = new MapRenderScheduler(pendingTasks::add, 1, 1);
+        CompletableFuture<String> rendering = new CompletableFuture<>();
+        CompletableFuture<String> a = scheduler.submit("a", () -> rendering, (position) -> { });
+        CompletableFuture<String> b = scheduler.submit("b", () -> CompletableFuture.completedFuture("b"), (position) -> { });
+        runNextTask();
+        assertFalse(a.isDone());
+        assertEquals(1, scheduler.getRunningJobCount());
+        assertTrue(pendingTasks.isEmpty());
+        rendering.complete("a");
+        assertEquals("a", a.get());
+        runNextTask();
+        assertEquals("b", b.get());
+        assertEquals(0, scheduler.getRunningJobCount());
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testJobsAreRejectedWhenTheQueueIsFull() throws ResourceAccessException {
+        MapRenderScheduler scheduler = new MapRenderScheduler(pendingTasks::add, 1, 1);
+        scheduler.submit("a", () -> CompletableFuture.completedFuture("a"), (position) -> { });
+        scheduler.submit("b", () -> CompletableFuture.completedFuture("b"), (position) -> { });
+        scheduler.submit("c", () -> CompletableFuture.completedFuture("c"), (position) -> { });
+    }
+
+    @Test
+    public void testFailedJobCompletesExceptionally() throws ResourceAccessException {
+        MapRenderScheduler scheduler = new MapRenderScheduler(pendingTasks::add, 1, 1);
+        CompletableFuture<String> failed = scheduler.submit("a", () -> {
+            throw new IllegalStateException();
+        }, (position) -> { });
+        runNextTask();
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, scheduler.getRunningJobCount());
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MapTileCacheTest {
+
+    private static MapTile createTile(int tileX, int tileZ, int blockY) {
+        return new MapTile(new MapTileKey(tileX, tileZ, blockY), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTileIsEvicted() {
+        MapTileCache cache = new MapTileCache(2);
+        cache.put(createTile(0, 0, MapTileKey.SURFACE));
+        cache.put(createTile(1, 0, MapTileKey.SURFACE));
+        cache.get(new MapTileKey(0, 0, MapTileKey.SURFACE));
+        cache.put(createTile(2, 0, MapTileKey.SURFACE));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(new MapTileKey(0, 0, MapTileKey.SURFACE)));
+        assertNull(cache.get(new MapTileKey(1, 0, MapTileKey.SURFACE)));
+        assertNotNull(cache.get(new MapTileKey(2, 0, MapTileKey.SURFACE)));
+    }
+
+    @Test
+    public void testInvalidateColumnRemovesAllModes() {
+        MapTileCache cache = new MapTileCache(10);
+        cache.put(createTile(-1, 3, MapTileKey.SURFACE));
+        cache.put(createTile(-1, 3, 20));
+        cache.put(createTile(3, -1, 20));
+        cache.invalidateColumn(-1, 3);
+        assertNull(cache.get(new MapTileKey(-1, 3, MapTileKey.SURFACE)));
+        assertNull(cache.get(new MapTileKey(-1, 3, 20)));
+        assertNotNull(cache.get(new MapTileKey(3, -1, 20)));
+    }
+
+    @Test
+    public void testInvalidationReachesZoomedOutTiles() {
+        MapTileCache cache = new MapTileCache(10);
+        cache.put(new MapTile(new MapTileKey(-1, 0, 20, 1), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0));
+        cache.put(new MapTile(new MapTileKey(-1, 0, 20, 3), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0));
+        cache.put(new MapTile(new MapTileKey(0, 0, 20, 1), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0));
+        // the tile column (-2, 1) is covered by the tile (-1, 0) of every level above 0
+        cache.invalidateColumn(-2, 1);
+        assertNull(cache.get(new MapTileKey(-1, 0, 20, 1)));
+        assertNull(cache.get(new MapTileKey(-1, 0, 20, 3)));
+        assertNotNull(cache.get(new MapTileKey(0, 0, 20, 1)));
+    }
+
+    @Test
+    public void testTileRenderedBeforeInvalidationIsNotCached() {
+        MapTileCache cache = new MapTileCache(10);
+        long stamp = cache.getInvalidationCount();
+        cache.invalidateColumn(0, 0);
+        cache.putIfNotInvalidatedSince(createTile(0, 0, 10), stamp);
+        assertNull(cache.get(new MapTileKey(0, 0, 10)));
+        cache.putIfNotInvalidatedSince(createTile(0, 0, 10), cache.getInvalidationCount());
+        assertNotNull(cache.get(new MapTileKey(0, 0, 10)));
+    }
+
+    @Test
+    public void testInvalidationOfAnotherColumnDoesNotPreventCaching() {
+        MapTileCache cache = new MapTileCache(10);
+        long stamp = cache.getInvalidationCount();
+        cache.invalidateColumn(5, 5);
+        cache.putIfNotInvalidatedSince(createTile(0, 0, 10), stamp);
+        assertNotNull(cache.get(new MapTileKey(0, 0, 10)));
+    }
+
+    @Test
+    public void testZoomedOutTileRenderedBeforeInvalidationOfCoveredColumnIsNotCached() {
+        MapTileCache cache = new MapTileCache(10);
+        long stamp = cache.getInvalidationCount();
+        // the tile (0, 0) of level 2 covers the tile columns from (0, 0) to (3, 3)
+        cache.invalidateColumn(3, 2);
+        cache.invalidateColumn(4, 0);
+        cache.putIfNotInvalidatedSince(new MapTile(new MapTileKey(0, 0, 10, 2), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0), stamp);
+        cache.putIfNotInvalidatedSince(new MapTile(new MapTileKey(2, 0, 10, 1), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0), stamp);
+        assertNull(cache.get(new MapTileKey(0, 0, 10, 2)));
+        assertNull(cache.get(new MapTileKey(2, 0, 10, 1)));
+        cache.putIfNotInvalidatedSince(new MapTile(new MapTileKey(0, 1, 10, 1), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 0), stamp);
+        assertNotNull(cache.get(new MapTileKey(0, 1, 10, 1)));
+    }
+
+    @Test
+    public void testColumnStampChangesOnlyWithTheColumn() {
+        MapTileCache cache = new MapTileCache(10);
+        cache.advanceColumnStamps(1000);
+        MapTileKey key = new MapTileKey(1, 1, 10);
+        MapTileKey zoomedOutKey = new MapTileKey(0, 0, 10, 1);
+        long stamp = cache.getColumnStamp(key);
+        assertTrue(stamp > 1000);
+        cache.invalidateColumn(2, 1);
+        assertEquals(stamp, cache.getColumnStamp(key));
+        assertEquals(stamp, cache.getColumnStamp(zoomedOutKey));
+        cache.invalidateColumn(1, 1);
+        assertTrue(cache.getColumnStamp(key) > stamp);
+        assertEquals(cache.getColumnStamp(key), cache.getColumnStamp(zoomedOutKey));
+    }
+
+    @Test
+    public void testTileCoordinatesOfNegativeBlocks() {
+        assertEquals(-1, MapTileKey.toTileCoordinate(-1));
+        assertEquals(-1, MapTileKey.toTileCoordinate(-MapTile.SIZE));
+        assertEquals(0, MapTileKey.toTileCoordinate(MapTile.SIZE - 1));
+    }
+}
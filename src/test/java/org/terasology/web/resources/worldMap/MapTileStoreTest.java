@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MapTileStoreTest {
+
+    private static final int PALETTE_HASH = 0x5A17E;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static MapTile createTile(MapTileKey key, int color) {
+        int[] colors = new int[MapTile.SIZE * MapTile.SIZE];
+        for (int i = 0; i < colors.length; ++i) {
+            colors[i] = color + i;
+        }
+        return new MapTile(key, colors, true, 1000 + color, PALETTE_HASH);
+    }
+
+    @Test
+    public void testTilesArePersisted() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        MapTileKey key = new MapTileKey(-3, 5, MapTileKey.SURFACE, 2);
+        MapTile tile = createTile(key, 0x102030);
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            store.putIfNotInvalidatedSince(tile, store.getInvalidationCount()).join();
+        }
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            MapTile storedTile = store.get(key);
+            assertNotNull(storedTile);
+            assertEquals(tile.getVersion(), storedTile.getVersion());
+            assertEquals(tile.getColor(7, 11), storedTile.getColor(7, 11));
+            assertEquals(tile.getColumnStamp(), store.getLatestColumnStamp());
+        }
+    }
+
+    @Test
+    public void testTilesOfAnotherPaletteAreDiscarded() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        MapTileKey key = new MapTileKey(0, 0, 20);
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            store.putIfNotInvalidatedSince(createTile(key, 0), 0).join();
+            store.putIfNotInvalidatedSince(new MapTile(new MapTileKey(1, 0, 20), new int[MapTile.SIZE * MapTile.SIZE], true, 0, 1), 0).join();
+            assertEquals(1, store.size());
+        }
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH + 1)) {
+            assertNull(store.get(key));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void testInvalidationRemovesTiles() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            long stamp = store.getInvalidationCount();
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(4, 4, 20), 0), stamp).join();
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(1, 1, 20, 2), 0), stamp).join();
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(5, 4, 20), 0), stamp).join();
+            store.invalidateColumn(4, 4);
+            assertNull(store.get(new MapTileKey(4, 4, 20)));
+            assertNull(store.get(new MapTileKey(1, 1, 20, 2)));
+            assertNotNull(store.get(new MapTileKey(5, 4, 20)));
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(4, 4, 20), 0), stamp).join();
+            assertNull(store.get(new MapTileKey(4, 4, 20)));
+        }
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    public void testInvalidationOfAnotherColumnDoesNotPreventStoring() throws IOException {
+        try (MapTileStore store = MapTileStore.open(temporaryFolder.getRoot().toPath(), 16, PALETTE_HASH)) {
+            long stamp = store.getInvalidationCount();
+            store.invalidateColumn(4, 4);
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(5, 4, 20), 0), stamp).join();
+            assertNotNull(store.get(new MapTileKey(5, 4, 20)));
+        }
+    }
+
+    @Test
+    public void testTileInvalidatedWhileWritingIsNotStored() throws IOException {
+        try (MapTileStore store = MapTileStore.open(temporaryFolder.getRoot().toPath(), 16, PALETTE_HASH)) {
+            CompletableFuture<Void> write;
+            // the writer thread can't update the index until the lock of the store is released
+            synchronized (store) {
+                write = store.putIfNotInvalidatedSince(createTile(new MapTileKey(4, 4, 20), 0), store.getInvalidationCount());
+                store.invalidateColumn(4, 4);
+            }
+            write.join();
+            assertNull(store.get(new MapTileKey(4, 4, 20)));
+        }
+    }
+
+    @Test
+    public void testFullStoreSkipsNewTiles() throws IOException {
+        try (MapTileStore store = MapTileStore.open(temporaryFolder.getRoot().toPath(), 1, PALETTE_HASH)) {
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(0, 0, 20), 0), 0).join();
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(1, 0, 20), 0), 0).join();
+            assertEquals(1, store.size());
+            assertNotNull(store.get(new MapTileKey(0, 0, 20)));
+        }
+    }
+
+    @Test
+    public void testDeadSpaceIsReclaimedWhileRunning() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        MapTileKey key = new MapTileKey(0, 0, 20);
+        Random random = new Random(1);
+        int[] colors = new int[MapTile.SIZE * MapTile.SIZE];
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            // each tile is about 4 KB, since random colors can't be compressed
+            for (int i = 0; i < 1000; ++i) {
+                for (int j = 0; j < colors.length; ++j) {
+                    colors[j] = random.nextInt();
+                }
+                store.putIfNotInvalidatedSince(new MapTile(key, colors.clone(), true, 0, PALETTE_HASH), 0).join();
+            }
+            assertTrue(Files.size(directory.resolve(MapTileStore.DATA_FILE_NAME)) < 2 << 20);
+            assertEquals(colors[5], store.get(key).getColor(5, 0));
+        }
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            assertEquals(colors[5], store.get(key).getColor(5, 0));
+        }
+    }
+
+    @Test
+    public void testInvalidStoreIsRecreated() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(0, 0, 20), 0), 0).join();
+        }
+        Files.write(directory.resolve(MapTileStore.DATA_FILE_NAME), new byte[] {1, 2, 3});
+        try (MapTileStore store = MapTileStore.open(directory, 16, PALETTE_HASH)) {
+            assertEquals(0, store.size());
+            store.putIfNotInvalidatedSince(createTile(new MapTileKey(0, 0, 20), 0), 0).join();
+            assertNotNull(store.get(new MapTileKey(0, 0, 20)));
+        }
+    }
+}
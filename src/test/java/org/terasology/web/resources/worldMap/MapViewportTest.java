@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+import org.terasology.web.resources.base.ResourceAccessException;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MapViewportTest {
+
+    private static MapViewport createViewport(int centerX, int centerZ, int width, int length, int zoomLevel) throws ResourceAccessException {
+        return createViewport(centerX, centerZ, width, length, zoomLevel, 2);
+    }
+
+    private static MapViewport createViewport(int centerX, int centerZ, int width, int length, int zoomLevel, int pixelsPerBlock)
+            throws ResourceAccessException {
+        String json = "{\"center\": {\"x\": " + centerX + ", \"y\": 20, \"z\": " + centerZ + "}, \"mapBlockWidth\": " + width
+                + ", \"mapBlockLength\": " + length + ", \"surface\": true, \"pixelsPerBlock\": " + pixelsPerBlock
+                + ", \"zoomLevel\": " + zoomLevel + "}";
+        return MapViewport.fromInput(new Gson().fromJson(json, WorldMapInput.class));
+    }
+
+    @Test
+    public void testCoversColumn() throws ResourceAccessException {
+        MapViewport viewport = createViewport(0, 0, 40, 40, 0); // blocks -20 to 19
+        assertTrue(viewport.coversColumn(-1, -1));
+        assertTrue(viewport.coversColumn(0, 0));
+        assertFalse(viewport.coversColumn(1, 0));
+        assertFalse(viewport.coversColumn(0, -2));
+    }
+
+    @Test
+    public void testClipAndCompose() throws ResourceAccessException {
+        MapViewport viewport = createViewport(0, 0, 4, 2, 0); // blocks -2 to 1 on x, -1 to 0 on z
+        MapViewport region = viewport.clip(new MapTileKey(0, -1, MapTileKey.SURFACE));
+        assertEquals(0, region.getMinPixelX());
+        assertEquals(-1, region.getMinPixelZ());
+        assertEquals(2, region.getPixelWidth());
+        assertEquals(1, region.getPixelLength());
+        assertEquals(2, region.getPixelsPerBlock());
+        assertNull(viewport.clip(new MapTileKey(1, 0, MapTileKey.SURFACE)));
+
+        int[] colors = new int[MapTile.SIZE * MapTile.SIZE];
+        colors[(MapTile.SIZE - 1) * MapTile.SIZE] = 0x123456;
+        colors[(MapTile.SIZE - 1) * MapTile.SIZE + 1] = 0x654321;
+        MapTile tile = new MapTile(new MapTileKey(0, -1, MapTileKey.SURFACE), colors, true, 0, 0);
+        assertArrayEquals(new int[] {0x123456, 0x654321}, region.compose(Collections.singletonList(tile)));
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testTooWideMapIsRejected() throws ResourceAccessException {
+        createViewport(0, 0, MapViewport.MAX_MAP_BLOCKS + 1, 40, MapTileKey.MAX_LEVEL);
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testTooLargeImageIsRejected() throws ResourceAccessException {
+        // 2 pixels per block
+        createViewport(0, 0, 40, MapViewport.MAX_IMAGE_SIZE, 0);
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testMapBeyondTheIntRangeIsRejected() throws ResourceAccessException {
+        createViewport(Integer.MAX_VALUE, 0, 40, 40, 0);
+    }
+
+    @Test
+    public void testLargestImageAtTheHighestZoomLevel() throws ResourceAccessException {
+        MapViewport viewport = createViewport(0, 0, MapViewport.MAX_MAP_BLOCKS / 2, 40, MapTileKey.MAX_LEVEL);
+        assertEquals(MapViewport.MAX_IMAGE_SIZE, viewport.getPixelWidth() * viewport.getPixelsPerBlock());
+    }
+
+    @Test
+    public void testDefaultPixelsPerBlockOfTinyMaps() throws ResourceAccessException {
+        assertEquals(MapViewport.MAX_PIXELS_PER_BLOCK, createViewport(0, 0, 1, 1, 0, 0).getPixelsPerBlock());
+        assertEquals(MapViewport.MAX_PIXELS_PER_BLOCK, createViewport(0, 0, 2, 1, 0, 0).getPixelsPerBlock());
+        assertEquals(MapViewport.MAX_PIXELS_PER_BLOCK, createViewport(0, 0, 3, 1, 0, 0).getPixelsPerBlock());
+    }
+
+    @Test
+    public void testDefaultPixelsPerBlockFitsTheImage() throws ResourceAccessException {
+        assertEquals(6, createViewport(0, 0, 100, 100, 0, 0).getPixelsPerBlock());
+        assertEquals(1, createViewport(0, 0, 4000, 10, 0, 0).getPixelsPerBlock());
+    }
+
+    @Test(expected = ResourceAccessException.class)
+    public void testInvalidZoomLevelIsRejected() throws ResourceAccessException {
+        createViewport(0, 0, 40, 40, MapTileKey.MAX_LEVEL + 1);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.web.resources.worldMap;
+
+import org.joml.Vector3i;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.engine.world.WorldProvider;
+import org.terasology.engine.world.block.Block;
+import org.terasology.engine.world.chunks.Chunks;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SurfaceHeightmapTest {
+
+    private WorldProvider worldProviderMock;
+    private SurfaceHeightmap heightmap;
+    private Block air;
+    private Block stone;
+
+    @Before
+    public void setUp() {
+        air = mock(Block.class);
+        when(air.isPenetrable()).thenReturn(true);
+        stone = mock(Block.class);
+        worldProviderMock = mock(WorldProvider.class);
+        when(worldProviderMock.getBlock(anyInt(), anyInt(), anyInt())).thenReturn(air);
+        heightmap = new SurfaceHeightmap(worldProviderMock);
+    }
+
+    @Test
+    public void testSurfaceOfLoadedChunks() {
+        when(worldProviderMock.getBlock(anyInt(), eq(10), anyInt())).thenReturn(stone);
+        when(worldProviderMock.getBlock(anyInt(), eq(Chunks.SIZE_Y + 5), anyInt())).thenReturn(stone);
+        heightmap.onChunkLoaded(new Vector3i(0, 0, 0));
+        assertEquals(10, heightmap.getSurfaceY(3, 4));
+        heightmap.onChunkLoaded(new Vector3i(0, 1, 0));
+        assertEquals(Chunks.SIZE_Y + 5, heightmap.getSurfaceY(3, 4));
+        heightmap.onChunkUnloaded(new Vector3i(0, 1, 0));
+        assertEquals(10, heightmap.getSurfaceY(3, 4));
+        assertEquals(SurfaceHeightmap.UNKNOWN_HEIGHT, heightmap.getSurfaceY(-1, 4));
+    }
+
+    @Test
+    public void testBlockChangeUpdatesColumn() {
+        when(worldProviderMock.getBlock(anyInt(), eq(10), anyInt())).thenReturn(stone);
+        heightmap.onChunkLoaded(new Vector3i(-1, 0, -1));
+        when(worldProviderMock.getBlock(-5, 20, -7)).thenReturn(stone);
+        heightmap.onBlockChanged(new Vector3i(-5, 20, -7));
+        assertEquals(20, heightmap.getSurfaceY(-5, -7));
+        assertEquals(10, heightmap.getSurfaceY(-6, -7));
+    }
+
+    @Test
+    public void testColumnsAreScannedOnFirstLookup() {
+        when(worldProviderMock.getBlock(anyInt(), eq(10), anyInt())).thenReturn(stone);
+        heightmap.onChunkLoaded(new Vector3i(0, 0, 0));
+        verify(worldProviderMock, never()).getBlock(anyInt(), anyInt(), anyInt());
+        assertEquals(10, heightmap.getSurfaceY(3, 4));
+        assertEquals(10, heightmap.getSurfaceY(3, 4));
+        verify(worldProviderMock, times(Chunks.SIZE_Y - 10)).getBlock(anyInt(), anyInt(), anyInt());
+        heightmap.onBlockChanged(new Vector3i(3, 20, 4));
+        verify(worldProviderMock, times(Chunks.SIZE_Y - 10)).getBlock(anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testSurfaceBelowMissingChunkIsUnknown() {
+        when(worldProviderMock.getBlock(anyInt(), eq(10), anyInt())).thenReturn(stone);
+        heightmap.onChunkLoaded(new Vector3i(0, 0, 0));
+        heightmap.onChunkLoaded(new Vector3i(0, 2, 0));
+        assertEquals(SurfaceHeightmap.UNKNOWN_HEIGHT, heightmap.getSurfaceY(3, 4));
+        heightmap.onChunkLoaded(new Vector3i(0, 1, 0));
+        assertEquals(10, heightmap.getSurfaceY(3, 4));
+    }
+
+    @Test
+    public void testSurfaceAtTheTopOfTheHighestChunkIsUnknown() {
+        when(worldProviderMock.getBlock(anyInt(), eq(Chunks.SIZE_Y - 1), anyInt())).thenReturn(stone);
+        heightmap.onChunkLoaded(new Vector3i(0, 0, 0));
+        assertEquals(SurfaceHeightmap.UNKNOWN_HEIGHT, heightmap.getSurfaceY(3, 4));
+        heightmap.onChunkLoaded(new Vector3i(0, 1, 0));
+        assertEquals(Chunks.SIZE_Y - 1, heightmap.getSurfaceY(3, 4));
+    }
+}
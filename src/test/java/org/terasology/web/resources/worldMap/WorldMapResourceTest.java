@@ -15,7 +15,6 @@
  */
 package org.terasology.web.resources.worldMap;
 
-import org.codehaus.plexus.util.Base64;
 import org.joml.Vector3i;
 import org.junit.Before;
 import org.junit.Test;
@@ -26,14 +25,13 @@ import org.terasology.engine.logic.location.LocationComponent;
 import org.terasology.engine.registry.InjectionHelper;
 import org.terasology.engine.world.RelevanceRegionComponent;
 import org.terasology.engine.world.WorldProvider;
+import org.terasology.web.resources.EngineThreadDispatcher;
 
-import java.awt.Graphics2D;
-import java.awt.Color;
-import java.awt.image.BufferedImage;
-import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertNotEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -43,23 +41,10 @@ public class WorldMapResourceTest {
     private WorldMapResource worldMapResource;
     private EntityManager entityManagerMock;
 
-    private static BufferedImage getTestImage() {
-        BufferedImage imageToTest = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
-        Graphics2D graphics = imageToTest.createGraphics();
-        graphics.setColor(Color.BLACK);
-        graphics.fillRect(0, 0, 5, 5);
-        graphics.setColor(Color.GREEN);
-        graphics.fillRect(5, 0, 5, 5);
-        graphics.setColor(Color.BLUE);
-        graphics.fillRect(0, 5, 5, 5);
-        graphics.setColor(Color.RED);
-        graphics.fillRect(5, 5, 5, 5);
-        return imageToTest;
-    }
-
     @Before
     public void setup() {
-        worldMapResource = new WorldMapResource();
+        // the dispatcher isn't registered in a game, so the chunks are loaded by the calling thread
+        worldMapResource = new WorldMapResource(new EngineThreadDispatcher(0));
         WorldProvider worldProviderMock = mock(WorldProvider.class);
         entityManagerMock = mock(EntityManager.class);
         Context context = new ContextImpl();
@@ -69,17 +54,17 @@ public class WorldMapResourceTest {
     }
 
     @Test
-    public void testColorOfTexture() {
-        // each color takes up 1/4th of the image
-        final int colorToTest = new Color(60, 60, 60).getRGB() & 0x00FFFFFF;
-        assertEquals(colorToTest, worldMapResource.getColorOfTexture(getTestImage(), 75));
-    }
-
-    @Test
-    public void testImageConvertsToBase64String() {
-        BufferedImage testImage = getTestImage();
-        assertTrue(Base64.isArrayByteBase64(worldMapResource.convertImageToBase64String(testImage)
-                .getBytes(StandardCharsets.UTF_8)));
+    public void testEntityTagChangesWithTiles() {
+        MapTileKey key = new MapTileKey(0, 0, MapTileKey.SURFACE);
+        List<MapTile> tiles = Collections.singletonList(new MapTile(key, new int[MapTile.SIZE * MapTile.SIZE], true, 1, 7));
+        String entityTag = WorldMapResource.getEntityTag(0, 0, 16, 16, 2, tiles);
+        assertNotEquals(entityTag, WorldMapResource.getEntityTag(0, 0, 16, 16, 3, tiles));
+        List<MapTile> renderedAgain = Collections.singletonList(new MapTile(key, new int[MapTile.SIZE * MapTile.SIZE], true, 1, 7));
+        assertEquals(entityTag, WorldMapResource.getEntityTag(0, 0, 16, 16, 2, renderedAgain));
+        List<MapTile> changed = Collections.singletonList(new MapTile(key, new int[MapTile.SIZE * MapTile.SIZE], true, 2, 7));
+        assertNotEquals(entityTag, WorldMapResource.getEntityTag(0, 0, 16, 16, 2, changed));
+        List<MapTile> otherPalette = Collections.singletonList(new MapTile(key, new int[MapTile.SIZE * MapTile.SIZE], true, 1, 8));
+        assertNotEquals(entityTag, WorldMapResource.getEntityTag(0, 0, 16, 16, 2, otherPalette));
     }
 
     @Test